@@ -5,10 +5,15 @@
 #include "DecodeHints.h"
 #include "Result.h"
 #include <vector>
+#include <algorithm>
+#include <cstring>
 #include "MultiFormatWriter.h"
 #include "BitMatrix.h"
 #include <sys/time.h>
 #include <src/ReadBarcode.h>
+#include "GenericLuminanceSource.h"
+#include "HybridBinarizer.h"
+#include "GlobalHistogramBinarizer.h"
 #include <android/bitmap.h>
 
 JavaVM *javaVM = nullptr;
@@ -42,53 +47,180 @@ struct LockedPixels {
     }
 };
 
-static std::vector<ZXing::BarcodeFormat> GetFormats(JNIEnv *env, jintArray formats) {
-    std::vector<ZXing::BarcodeFormat> result;
+static ZXing::BarcodeFormats GetFormats(JNIEnv *env, jintArray formats) {
+    ZXing::BarcodeFormats result;
     jsize len = env->GetArrayLength(formats);
     if (len > 0) {
         std::vector<jint> elems(len);
         env->GetIntArrayRegion(formats, 0, elems.size(), elems.data());
-        result.resize(len);
         for (jsize i = 0; i < len; ++i) {
-            result[i] = ZXing::BarcodeFormat(elems[i]);
+            result |= ZXing::BarcodeFormat(elems[i]);
         }
     }
     return result;
 }
 
+// 常驻识别器：DecodeHints 与按格式建好的 MultiFormatReader 在 createReader 时构造一次，逐帧复用
+// 二值化与 ReadBarcode 一致；read 为 const，可跨线程共用
+struct NativeReader {
+    ZXing::DecodeHints hints;
+    ZXing::MultiFormatReader reader;
+
+    explicit NativeReader(const ZXing::DecodeHints &hints) : hints(hints), reader(hints) {}
+
+    // GenericLuminanceSource 构造时把裁剪区域的亮度拷贝一份，之后不再引用 data
+    static std::shared_ptr<const ZXing::LuminanceSource>
+    source(const uint8_t *data, int left, int top, int width, int height,
+           int rowStride, int pixelStride, ZXing::ImageFormat format) {
+        return std::make_shared<ZXing::GenericLuminanceSource>(
+                0, 0, width, height, data + top * rowStride + left * pixelStride,
+                rowStride, pixelStride, ZXing::RedIndex(format), ZXing::GreenIndex(format),
+                ZXing::BlueIndex(format), nullptr);
+    }
+
+    ZXing::Result read(const std::shared_ptr<const ZXing::LuminanceSource> &source) const {
+        if (hints.binarizer() == ZXing::Binarizer::LocalAverage)
+            return reader.read(ZXing::HybridBinarizer(source));
+        else
+            return reader.read(ZXing::GlobalHistogramBinarizer(source));
+    }
+
+    ZXing::Result read(const uint8_t *data, int left, int top, int width, int height,
+                       int rowStride, int pixelStride, ZXing::ImageFormat format) const {
+        return read(source(data, left, top, width, height, rowStride, pixelStride, format));
+    }
+};
+
+struct UtfChars {
+    JNIEnv *env;
+    jstring str;
+    const char *chars;
+
+    UtfChars(JNIEnv *env, jstring str) : env(env), str(str),
+                                         chars(str ? env->GetStringUTFChars(str, nullptr) : nullptr) {}
+
+    operator const char *() const { return chars; }
+
+    ~UtfChars() {
+        if (chars)
+            env->ReleaseStringUTFChars(str, chars);
+    }
+};
+
+static ZXing::BitMatrix EncodeMatrix(const char *content, const char *format, int width, int height) {
+    ZXing::MultiFormatWriter writer(ZXing::BarcodeFormatFromString(format));
+    return writer.encode(ANSIToUnicode(content), width, height);
+}
+
+// 按行输出像素：矩阵与上一行相同时直接拷贝上一行，超出矩阵的部分（请求尺寸大于矩阵时）填 light
+template<typename Pixel>
+static void RenderMatrix(const ZXing::BitMatrix &matrix, int width, int height, Pixel dark, Pixel light,
+                         uint8_t *dst, size_t stride) {
+    int matrixWidth = std::min(width, matrix.width());
+    int matrixHeight = std::min(height, matrix.height());
+    for (int y = 0; y < height; ++y) {
+        auto *row = reinterpret_cast<Pixel *>(dst + y * stride);
+        if (y > 0 && y < matrixHeight) {
+            bool same = true;
+            for (int x = 0; x < matrixWidth && same; ++x) {
+                same = matrix.get(x, y) == matrix.get(x, y - 1);
+            }
+            if (same) {
+                memcpy(row, dst + (y - 1) * stride, width * sizeof(Pixel));
+                continue;
+            }
+        }
+        int x = 0;
+        if (y < matrixHeight) {
+            for (; x < matrixWidth; ++x) {
+                row[x] = matrix.get(x, y) ? dark : light;
+            }
+        }
+        std::fill(row + x, row + width, light);
+    }
+}
+
+// Java 的 ARGB 颜色 => ARGB_8888 Bitmap 内存中的预乘 RGBA（小端读作 0xAABBGGRR）
+static uint32_t ToBitmapColor(jint color) {
+    uint32_t a = (color >> 24) & 0xff;
+    uint32_t r = ((color >> 16) & 0xff) * a / 255;
+    uint32_t g = ((color >> 8) & 0xff) * a / 255;
+    uint32_t b = (color & 0xff) * a / 255;
+    return (a << 24) | (b << 16) | (g << 8) | r;
+}
+
 extern "C"
 JNIEXPORT jint JNICALL
 Java_lib_kalu_czxing_jni_Native_writeBytes(JNIEnv *env, jobject instance, jstring content_,
                                       jint width, jint height, jint color,
                                       jstring format_, jobjectArray result) {
-    const char *content = env->GetStringUTFChars(content_, 0);
-    const char *format = env->GetStringUTFChars(format_, 0);
-    try {
-        std::wstring wContent;
-        wContent = ANSIToUnicode(content);
-
-        ZXing::MultiFormatWriter writer(ZXing::BarcodeFormatFromString(format));
-        ZXing::BitMatrix bitMatrix = writer.encode(wContent, width, height);
+    UtfChars content(env, content_);
+    UtfChars format(env, format_);
+    if (!content || !format)
+        return -1;
 
+    try {
+        ZXing::BitMatrix bitMatrix = EncodeMatrix(content, format, width, height);
         if (bitMatrix.empty()) {
             return -1;
         }
 
+        // 先在本地缓冲写满，再一次拷贝到 Java 数组
         int size = width * height;
+        std::vector<jint> buffer(size);
+        RenderMatrix<jint>(bitMatrix, width, height, color, (jint) 0xffffffff,
+                           reinterpret_cast<uint8_t *>(buffer.data()), width * sizeof(jint));
+
         jintArray pixels = env->NewIntArray(size);
-        int black = color;
-        int white = 0xffffffff;
-        int index = 0;
-        for (int i = 0; i < height; ++i) {
-            for (int j = 0; j < width; ++j) {
-                int pix = bitMatrix.get(j, i) ? black : white;
-                env->SetIntArrayRegion(pixels, index, 1, &pix);
-                index++;
-            }
-        }
+        if (!pixels)
+            return -1;
+        env->SetIntArrayRegion(pixels, 0, size, buffer.data());
         env->SetObjectArrayElement(result, 0, pixels);
-        env->ReleaseStringUTFChars(format_, format);
-        env->ReleaseStringUTFChars(content_, content);
+        env->DeleteLocalRef(pixels);
+        return 0;
+    }
+    catch (const std::exception &e) {
+        ThrowJavaException(env, e.what());
+    }
+    catch (...) {
+        ThrowJavaException(env, "Unknown exception");
+    }
+    return -1;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_lib_kalu_czxing_jni_Native_writeBitmap(JNIEnv *env, jobject instance, jstring content_,
+                                       jint color, jstring format_, jobject bitmap) {
+    AndroidBitmapInfo bmInfo;
+    if (AndroidBitmap_getInfo(env, bitmap, &bmInfo) != ANDROID_BITMAP_RESUT_SUCCESS
+        || bmInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        ThrowJavaException(env, "Unsupported format");
+        return -1;
+    }
+
+    UtfChars content(env, content_);
+    UtfChars format(env, format_);
+    if (!content || !format)
+        return -1;
+
+    try {
+        int width = (int) bmInfo.width;
+        int height = (int) bmInfo.height;
+        ZXing::BitMatrix bitMatrix = EncodeMatrix(content, format, width, height);
+        if (bitMatrix.empty()) {
+            return -1;
+        }
+
+        // 直接写入 Bitmap 像素，不经过 Java 数组
+        auto pixels = LockedPixels(env, bitmap);
+        if (!pixels.pixels) {
+            ThrowJavaException(env, "Failed to lock/write AndroidBitmap data");
+            return -1;
+        }
+        RenderMatrix<uint32_t>(bitMatrix, width, height, ToBitmapColor(color), 0xffffffffu,
+                               static_cast<uint8_t *>(pixels.pixels), bmInfo.stride);
+        return 0;
     }
     catch (const std::exception &e) {
         ThrowJavaException(env, e.what());
@@ -96,15 +228,87 @@ Java_lib_kalu_czxing_jni_Native_writeBytes(JNIEnv *env, jobject instance, jstrin
     catch (...) {
         ThrowJavaException(env, "Unknown exception");
     }
+    return -1;
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_lib_kalu_czxing_jni_Native_createReader(JNIEnv *env, jobject instance, jintArray formats_,
+                                        jboolean tryHarder, jboolean tryRotate) {
+    try {
+
+        auto hints = ZXing::DecodeHints()
+                .setTryHarder(tryHarder)
+                .setTryRotate(tryRotate);
+        if (formats_ != nullptr) {
+            hints.setFormats(GetFormats(env, formats_));
+        }
+
+        return reinterpret_cast<jlong>(new NativeReader(hints));
+    } catch (const std::exception &e) {
+        ThrowJavaException(env, e.what());
+    } catch (...) {
+        ThrowJavaException(env, "Unknown exception");
+    }
     return 0;
 }
 
+extern "C"
+JNIEXPORT void JNICALL
+Java_lib_kalu_czxing_jni_Native_destroyReader(JNIEnv *env, jobject instance, jlong reader) {
+    delete reinterpret_cast<NativeReader *>(reader);
+}
+
+// 识别结果写入 result[0] 文本、result[1] 定位点；定位点平移 (offsetX, offsetY)，换算回整幅图像坐标
+static jint SetResult(JNIEnv *env, const ZXing::Result &readResult, int offsetX, int offsetY,
+                      jobjectArray result) {
+    if (!readResult.isValid())
+        return -1;
+
+    env->SetObjectArrayElement(result, 0, ToJavaString(env, readResult.text()));
+    if (!readResult.resultPoints().empty()) {
+        std::vector<ZXing::ResultPoint> points;
+        for (auto point : readResult.resultPoints()) {
+            points.emplace_back(point.x() + offsetX, point.y() + offsetY);
+        }
+        env->SetObjectArrayElement(result, 1, ToJavaArray(env, points));
+    }
+    return static_cast<int>(readResult.format());
+}
+
+// 区域 RGB_565 像素转灰度，只占 width * height 字节，不再先拷贝成 ARGB_8888 Bitmap
+// 权重与 GenericLuminanceSource 相同
+static std::vector<uint8_t> Rgb565ToLuminance(const uint8_t *pixels, int left, int top,
+                                              int width, int height, int rowStride) {
+    std::vector<uint8_t> luminance((size_t) width * height);
+    for (int y = 0; y < height; ++y) {
+        auto src = reinterpret_cast<const uint16_t *>(pixels + (size_t) (top + y) * rowStride) + left;
+        auto dst = luminance.data() + (size_t) y * width;
+        for (int x = 0; x < width; ++x) {
+            uint16_t pixel = src[x];
+            int r = (pixel >> 11) & 0x1f;
+            int g = (pixel >> 5) & 0x3f;
+            int b = pixel & 0x1f;
+            r = (r << 3) | (r >> 2);
+            g = (g << 2) | (g >> 4);
+            b = (b << 3) | (b >> 2);
+            dst[x] = static_cast<uint8_t>((306 * r + 601 * g + 117 * b + 0x200) >> 10);
+        }
+    }
+    return luminance;
+}
+
 extern "C"
 JNIEXPORT jint JNICALL
-Java_lib_kalu_czxing_jni_Native_readBitmap(JNIEnv *env, jobject instance,
+Java_lib_kalu_czxing_jni_Native_readBitmap(JNIEnv *env, jobject instance, jlong reader,
                                      jobject bitmap, jint left, jint top, jint width,
                                      jint height, jobjectArray result) {
 
+    if (reader == 0) {
+        ThrowJavaException(env, "reader released");
+        return -1;
+    }
+
     try {
 
         AndroidBitmapInfo bmInfo;
@@ -118,35 +322,40 @@ Java_lib_kalu_czxing_jni_Native_readBitmap(JNIEnv *env, jobject instance,
             case ANDROID_BITMAP_FORMAT_RGBA_8888:
                 fmt = ZXing::ImageFormat::RGBX;
                 break;
+            case ANDROID_BITMAP_FORMAT_RGB_565:
+                // zxing-cpp 没有 RGB565，锁定后逐行转灰度
+                fmt = ZXing::ImageFormat::Lum;
+                break;
             default:
                 ThrowJavaException(env, "Unsupported format");
+                return -1;
         }
 
         auto pixels = LockedPixels(env, bitmap);
 
-        if (!pixels)
+        if (!pixels) {
             ThrowJavaException(env, "Failed to lock/read AndroidBitmap data");
+            return -1;
+        }
 
-        auto image = ZXing::ImageView{pixels, (int) bmInfo.width, (int) bmInfo.height, fmt, 0, 0};
-//        auto image = ZXing::ImageView{pixels, (int) bmInfo.width, (int) bmInfo.height, fmt,
-//                               (int) bmInfo.stride};
-
-        auto hints = ZXing::DecodeHints()
-                .setTryHarder(false)
-                .setTryRotate(false);
-
-        auto readResult = ReadBarcode(image, hints);
-
-        if (readResult.isValid()) {
-            env->SetObjectArrayElement(result, 0, ToJavaString(env, readResult.text()));
-            if (!readResult.resultPoints().empty()) {
-                env->SetObjectArrayElement(result, 1,
-                                           ToJavaArray(env, readResult.resultPoints()));
-            }
-            return static_cast<int>(readResult.format());
-        } else {
+        // 按 Bitmap 实际行跨度直接读取锁定的像素，只识别 (left, top, width, height) 区域
+        left = std::max(0, std::min(left, (jint) bmInfo.width));
+        top = std::max(0, std::min(top, (jint) bmInfo.height));
+        width = std::min(width, (jint) bmInfo.width - left);
+        height = std::min(height, (jint) bmInfo.height - top);
+        if (width <= 0 || height <= 0)
             return -1;
+
+        if (bmInfo.format == ANDROID_BITMAP_FORMAT_RGB_565) {
+            std::vector<uint8_t> luminance = Rgb565ToLuminance(pixels, left, top, width, height, (int) bmInfo.stride);
+            auto readResult = reinterpret_cast<NativeReader *>(reader)->read(
+                    luminance.data(), 0, 0, width, height, width, 1, fmt);
+            return SetResult(env, readResult, left, top, result);
         }
+
+        auto readResult = reinterpret_cast<NativeReader *>(reader)->read(
+                pixels, left, top, width, height, (int) bmInfo.stride, ZXing::PixStride(fmt), fmt);
+        return SetResult(env, readResult, left, top, result);
     } catch (const std::exception &e) {
         ThrowJavaException(env, e.what());
     } catch (...) {
@@ -155,48 +364,106 @@ Java_lib_kalu_czxing_jni_Native_readBitmap(JNIEnv *env, jobject instance,
     return -1;
 }
 
+// 裁剪区域 [left, left + width) x [top, top + height) 须完整落在 length 字节的平面内
+static bool FitsPlane(jint left, jint top, jint width, jint height, jint rowStride, jint pixelStride,
+                      jlong length) {
+    if (left < 0 || top < 0 || width <= 0 || height <= 0 || pixelStride <= 0)
+        return false;
+    if ((jlong) rowStride < (jlong) (left + width) * pixelStride)
+        return false;
+    return (jlong) (top + height - 1) * rowStride + (jlong) (left + width - 1) * pixelStride < length;
+}
+
 extern "C"
 JNIEXPORT jint JNICALL
-Java_lib_kalu_czxing_jni_Native_readBytes(JNIEnv *env, jobject instance,
+Java_lib_kalu_czxing_jni_Native_readBytes(JNIEnv *env, jobject instance, jlong reader,
                                      jbyteArray bytes_, jint left, jint top,
                                      jint cropWidth, jint cropHeight,
-                                     jint rowWidth, jint rowHeight,
+                                     jint rowStride, jint pixelStride,
                                      jobjectArray result) {
 
+    if (reader == 0) {
+        ThrowJavaException(env, "reader released");
+        return -1;
+    }
 
-    try {
+    if (!FitsPlane(left, top, cropWidth, cropHeight, rowStride, pixelStride, env->GetArrayLength(bytes_))) {
+        ThrowJavaException(env, "crop rect does not fit within the buffer");
+        return -1;
+    }
 
-        jbyte *bytes = env->GetByteArrayElements(bytes_, NULL);
+    // Critical 直接取数组地址，不拷入整幅平面；只读，JNI_ABORT 释放不拷回
+    // Critical 区间内只拷贝一次裁剪区域，随即释放，识别在区间外进行，不长时间阻塞 GC
+    auto bytes = static_cast<const uint8_t *>(env->GetPrimitiveArrayCritical(bytes_, nullptr));
+    if (!bytes)
+        return -1;
 
-        auto image = ZXing::ImageView{reinterpret_cast<const uint8_t *>(bytes), cropWidth,
-                                      cropHeight,
-                                      ZXing::ImageFormat::Lum, 0, 0};
+    std::shared_ptr<const ZXing::LuminanceSource> source;
+    std::string error;
+    try {
+        source = NativeReader::source(bytes, left, top, cropWidth, cropHeight, rowStride, pixelStride,
+                                      ZXing::ImageFormat::Lum);
+    } catch (const std::exception &e) {
+        error = e.what();
+    } catch (...) {
+        error = "Unknown exception";
+    }
 
-        auto hints = ZXing::DecodeHints()
-                .setTryHarder(false)
-                .setTryRotate(false);
+    env->ReleasePrimitiveArrayCritical(bytes_, const_cast<uint8_t *>(bytes), JNI_ABORT);
 
-        auto readResult = ReadBarcode(image, hints);
+    if (!error.empty()) {
+        ThrowJavaException(env, error.c_str());
+        return -1;
+    }
 
-        if (readResult.isValid()) {
-            env->SetObjectArrayElement(result, 0, ToJavaString(env, readResult.text()));
-            if (!readResult.resultPoints().empty()) {
-                env->SetObjectArrayElement(result, 1, ToJavaArray(env, readResult.resultPoints()));
-            }
+    ZXing::Result readResult(ZXing::DecodeStatus::NotFound);
+    try {
+        readResult = reinterpret_cast<NativeReader *>(reader)->read(source);
+    } catch (const std::exception &e) {
+        ThrowJavaException(env, e.what());
+        return -1;
+    } catch (...) {
+        ThrowJavaException(env, "Unknown exception");
+        return -1;
+    }
+    return SetResult(env, readResult, left, top, result);
+}
 
-            env->ReleaseByteArrayElements(bytes_, bytes, 0);
-            return static_cast<int>(readResult.format());
-        } else {
+extern "C"
+JNIEXPORT jint JNICALL
+Java_lib_kalu_czxing_jni_Native_readBuffer(JNIEnv *env, jobject instance, jlong reader,
+                                      jobject buffer, jint left, jint top,
+                                      jint cropWidth, jint cropHeight,
+                                      jint rowStride, jint pixelStride,
+                                      jobjectArray result) {
+
+    if (reader == 0) {
+        ThrowJavaException(env, "reader released");
+        return -1;
+    }
 
-            env->ReleaseByteArrayElements(bytes_, bytes, 0);
-            return -1;
-        }
+    // 直接缓冲区（如 CameraX 平面）按地址读取，不拷贝整幅平面，只拷贝一次裁剪区域
+    auto bytes = static_cast<const uint8_t *>(env->GetDirectBufferAddress(buffer));
+    jlong capacity = env->GetDirectBufferCapacity(buffer);
+    if (!bytes || capacity < 0) {
+        ThrowJavaException(env, "buffer is not direct");
+        return -1;
+    }
 
+    if (!FitsPlane(left, top, cropWidth, cropHeight, rowStride, pixelStride, capacity)) {
+        ThrowJavaException(env, "crop rect does not fit within the buffer");
+        return -1;
+    }
+
+    try {
+        auto readResult = reinterpret_cast<NativeReader *>(reader)->read(
+                bytes, left, top, cropWidth, cropHeight, rowStride, pixelStride,
+                ZXing::ImageFormat::Lum);
+        return SetResult(env, readResult, left, top, result);
     } catch (const std::exception &e) {
         ThrowJavaException(env, e.what());
-        return -1;
     } catch (...) {
         ThrowJavaException(env, "Unknown exception");
-        return -1;
     }
-}
\ No newline at end of file
+    return -1;
+}
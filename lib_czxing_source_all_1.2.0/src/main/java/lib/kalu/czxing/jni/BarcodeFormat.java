@@ -43,6 +43,13 @@ public enum BarcodeFormat {
     UPCA,///< UPC-A (1D)
     UPCE;///< UPC-E (1D)
 
+    /**
+     * @return native 侧的格式位，None 为 0
+     */
+    public int getCode() {
+        return this == None ? 0 : 1 << (ordinal() - 1);
+    }
+
     public static BarcodeFormat valueOf(int code) {
         switch (code) {
             case 1 << 0:
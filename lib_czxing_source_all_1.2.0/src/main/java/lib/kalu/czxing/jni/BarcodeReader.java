@@ -4,10 +4,56 @@ import android.graphics.Bitmap;
 
 import androidx.annotation.Keep;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 @Keep
 public class BarcodeReader {
 
+    // native 识别器句柄，格式、参数在创建时确定，逐帧复用
+    private long nativeReader;
+    // 识别持读锁，可并发；释放持写锁，等进行中的识别结束，避免 native 识别器被提前 delete
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
     private BarcodeReader() {
+        this(false, false);
+    }
+
+    /**
+     * @param tryHarder
+     * @param tryRotate
+     * @param formats   识别的格式，不传识别全部格式
+     */
+    public BarcodeReader(boolean tryHarder, boolean tryRotate, BarcodeFormat... formats) {
+        int[] codes = new int[formats.length];
+        for (int i = 0; i < formats.length; i++) {
+            codes[i] = formats[i].getCode();
+        }
+        nativeReader = Native.getInstance().createReader(codes, tryHarder, tryRotate);
+    }
+
+    /**
+     * 释放 native 识别器，等进行中的识别结束后再释放，之后的识别返回 null
+     */
+    public void release() {
+        lock.writeLock().lock();
+        try {
+            if (nativeReader != 0) {
+                Native.getInstance().destroyReader(nativeReader);
+                nativeReader = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            release();
+        } finally {
+            super.finalize();
+        }
     }
 
     public static final class Holder {
@@ -23,57 +69,136 @@ public class BarcodeReader {
         if (null == bitmap)
             return null;
 
-        // 避免某些情况无法获取图片格式的问题
-        Bitmap copy = bitmap.copy(Bitmap.Config.ARGB_8888, false);
-        if (null != bitmap) {
+        // native 直接锁定 ARGB_8888、ALPHA_8、RGB_565 的像素读取（RGB_565 在 native 逐行转灰度），其它格式（如 HARDWARE、RGBA_F16）才拷贝
+        Bitmap.Config config = bitmap.getConfig();
+        boolean direct = config == Bitmap.Config.ARGB_8888 || config == Bitmap.Config.ALPHA_8 || config == Bitmap.Config.RGB_565;
+        Bitmap source = direct ? bitmap : bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        if (!direct) {
             bitmap.recycle();
         }
-        int width = copy.getWidth();
-        int height = copy.getHeight();
+        if (null == source)
+            return null;
+        int width = source.getWidth();
+        int height = source.getHeight();
 
         Object[] result = new Object[2];
-        int code = Native.getInstance().readBitmap(copy, 0, 0, width, height, result);
-        LogUtil.log("BarcodeReader > read => code = " + code);
-
-        if (null != copy) {
-            copy.recycle();
-        }
-
-        if (code >= 0) {
-            BarcodeFormat type = BarcodeFormat.valueOf(code);
-            String content = result[0].toString();
-            LogUtil.log("BarcodeReader > read => type = " + type + ", content = " + content);
-            BarcodeResult decodeResult = new BarcodeResult(type, content);
-            if (result[1] != null) {
-                decodeResult.setPoint((float[]) result[1]);
+        int code;
+        lock.readLock().lock();
+        try {
+            if (nativeReader == 0) {
+                source.recycle();
+                return null;
             }
-            return decodeResult;
-        } else {
-            return null;
+            code = Native.getInstance().readBitmap(nativeReader, source, 0, 0, width, height, result);
+        } finally {
+            lock.readLock().unlock();
         }
+        LogUtil.log("BarcodeReader > read => code = " + code + ", config = " + config);
+
+        source.recycle();
+        return toResult(code, result);
     }
 
+    /**
+     * @param data       整幅灰度图像，逐行排列
+     * @param cropLeft   识别区域
+     * @param cropTop    识别区域
+     * @param cropWidth  识别区域
+     * @param cropHeight 识别区域
+     * @param rowWidth   行跨度
+     * @param rowHeight  图像高度
+     * @return
+     */
     public BarcodeResult read(byte[] data, int cropLeft, int cropTop, int cropWidth, int cropHeight, int rowWidth, int rowHeight) {
+        return read(data, cropLeft, cropTop, cropWidth, cropHeight, rowWidth, rowHeight, 1);
+    }
+
+    /**
+     * 识别区域由 native 按跨度直接读取，调用方无需先裁剪、旋转；定位点为整幅图像坐标
+     *
+     * @param data        整幅灰度平面，如 YUV_420_888 的 Y 平面
+     * @param cropLeft    识别区域
+     * @param cropTop     识别区域
+     * @param cropWidth   识别区域
+     * @param cropHeight  识别区域
+     * @param rowStride   行跨度（字节）
+     * @param rowHeight   图像高度
+     * @param pixelStride 像素跨度（字节）
+     * @return
+     */
+    public BarcodeResult read(byte[] data, int cropLeft, int cropTop, int cropWidth, int cropHeight, int rowStride, int rowHeight, int pixelStride) {
+        lock.readLock().lock();
         try {
+            if (nativeReader == 0)
+                throw new IllegalStateException("reader released");
+            if (cropTop + cropHeight > rowHeight)
+                throw new IllegalArgumentException("crop rect exceeds the image: " + (cropTop + cropHeight) + " > " + rowHeight);
+
             Object[] result = new Object[2];
-            int code = Native.getInstance().readBytes(data, cropLeft, cropTop, cropWidth, cropHeight, rowWidth, rowHeight, result);
+            int code = Native.getInstance().readBytes(nativeReader, data, cropLeft, cropTop, cropWidth, cropHeight, rowStride, pixelStride, result);
             LogUtil.log("BarcodeReader > read => code = " + code);
+            return toResult(code, result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            if (code >= 0) {
-                BarcodeFormat type = BarcodeFormat.valueOf(code);
-                String content = result[0].toString();
-                LogUtil.log("BarcodeReader > read => type = " + type + ", content = " + content);
-                BarcodeResult decodeResult = new BarcodeResult(type, content);
-                if (result[1] != null) {
-                    decodeResult.setPoint((float[]) result[1]);
-                }
-                return decodeResult;
-            } else {
-                return null;
-            }
+    /**
+     * 同 {@link #read(byte[], int, int, int, int, int, int, int)}，直接缓冲区（如 ImageProxy 平面）由 native 按地址读取，只拷贝一次裁剪区域
+     *
+     * @param buffer      整幅灰度平面，从 position 起；非直接缓冲区先拷贝到数组
+     * @param cropLeft    识别区域
+     * @param cropTop     识别区域
+     * @param cropWidth   识别区域
+     * @param cropHeight  识别区域
+     * @param rowStride   行跨度（字节）
+     * @param rowHeight   图像高度
+     * @param pixelStride 像素跨度（字节）
+     * @return
+     */
+    public BarcodeResult read(ByteBuffer buffer, int cropLeft, int cropTop, int cropWidth, int cropHeight, int rowStride, int rowHeight, int pixelStride) {
+
+        if (!buffer.isDirect()) {
+            byte[] data = new byte[buffer.remaining()];
+            buffer.duplicate().get(data);
+            return read(data, cropLeft, cropTop, cropWidth, cropHeight, rowStride, rowHeight, pixelStride);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (nativeReader == 0)
+                throw new IllegalStateException("reader released");
+            if (cropTop + cropHeight > rowHeight)
+                throw new IllegalArgumentException("crop rect exceeds the image: " + (cropTop + cropHeight) + " > " + rowHeight);
+
+            // native 从地址起读，position 不为 0 时切片对齐
+            ByteBuffer plane = buffer.position() == 0 ? buffer : buffer.slice();
+            Object[] result = new Object[2];
+            int code = Native.getInstance().readBuffer(nativeReader, plane, cropLeft, cropTop, cropWidth, cropHeight, rowStride, pixelStride, result);
+            LogUtil.log("BarcodeReader > read => code = " + code);
+            return toResult(code, result);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BarcodeResult toResult(int code, Object[] result) {
+        if (code < 0)
+            return null;
+
+        BarcodeFormat type = BarcodeFormat.valueOf(code);
+        String content = result[0].toString();
+        LogUtil.log("BarcodeReader > read => type = " + type + ", content = " + content);
+        BarcodeResult decodeResult = new BarcodeResult(type, content);
+        if (result[1] != null) {
+            decodeResult.setPoint((float[]) result[1]);
         }
+        return decodeResult;
     }
 }
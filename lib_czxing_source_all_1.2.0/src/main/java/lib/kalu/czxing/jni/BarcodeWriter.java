@@ -105,16 +105,16 @@ public class BarcodeWriter {
      * @return bitmap二维码
      */
     public Bitmap write(String text, int width, int height, int color, BarcodeFormat format, Bitmap logo) {
-        Object[] result = new Object[1];
-        int resultCode = Native.getInstance().writeBytes(text, width, height, color, format.name(), result);
-        Bitmap bitmap = null;
-        if (resultCode > -1) {
-            int[] pixels = (int[]) result[0];
-            bitmap = Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
-            // 添加logo
-            if (logo != null) {
-                bitmap = BitmapUtil.addLogoInQRCode(bitmap, logo);
-            }
+        // native 直接写入 Bitmap 像素
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        int resultCode = Native.getInstance().writeBitmap(text, color, format.name(), bitmap);
+        if (resultCode < 0) {
+            bitmap.recycle();
+            return null;
+        }
+        // 添加logo
+        if (logo != null) {
+            bitmap = BitmapUtil.addLogoInQRCode(bitmap, logo);
         }
         return bitmap;
     }
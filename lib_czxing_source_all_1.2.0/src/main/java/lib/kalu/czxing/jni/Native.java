@@ -5,6 +5,8 @@ import android.graphics.Bitmap;
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 
+import java.nio.ByteBuffer;
+
 @Keep
 class Native {
 
@@ -23,9 +25,50 @@ class Native {
         return Holder.instance;
     }
 
-    native int readBitmap(@NonNull Bitmap bitmap, @NonNull int left, @NonNull int top, @NonNull int width, @NonNull int height, @NonNull Object[] result);
+    /**
+     * 创建常驻识别器，格式、识别参数只设置一次，识别时传入句柄逐帧复用
+     *
+     * @param formats   {@link BarcodeFormat#getCode()}，空数组识别全部格式
+     * @param tryHarder
+     * @param tryRotate
+     * @return 识别器句柄，用完须 {@link #destroyReader(long)}
+     */
+    native long createReader(@NonNull int[] formats, @NonNull boolean tryHarder, @NonNull boolean tryRotate);
+
+    native void destroyReader(@NonNull long reader);
+
+    native int readBitmap(@NonNull long reader, @NonNull Bitmap bitmap, @NonNull int left, @NonNull int top, @NonNull int width, @NonNull int height, @NonNull Object[] result);
 
-    native int readBytes(@NonNull byte[] bytes, @NonNull int left, @NonNull int top, @NonNull int width, @NonNull int height, @NonNull int rowWidth, @NonNull int rowHeight, @NonNull Object[] result);
+    /**
+     * 识别灰度平面中的一块区域，native 按跨度只拷贝一次裁剪区域，不拷贝整幅平面
+     *
+     * @param reader      {@link #createReader} 返回的句柄
+     * @param bytes       整幅灰度平面，如 YUV_420_888 的 Y 平面
+     * @param left        识别区域（平面坐标）
+     * @param top         识别区域（平面坐标）
+     * @param width       识别区域（平面坐标）
+     * @param height      识别区域（平面坐标）
+     * @param rowStride   行跨度（字节）
+     * @param pixelStride 像素跨度（字节）
+     * @param result      [0] 文本，[1] 定位点（平面坐标）
+     * @return 条码格式，-1 失败
+     */
+    native int readBytes(@NonNull long reader, @NonNull byte[] bytes, @NonNull int left, @NonNull int top, @NonNull int width, @NonNull int height, @NonNull int rowStride, @NonNull int pixelStride, @NonNull Object[] result);
+
+    /**
+     * 同 {@link #readBytes}，按地址读取直接缓冲区，如 CameraX 的平面缓冲，不经过 Java 数组
+     *
+     * @param buffer 直接缓冲区，从下标 0 起为整幅灰度平面，与 position 无关
+     */
+    native int readBuffer(@NonNull long reader, @NonNull ByteBuffer buffer, @NonNull int left, @NonNull int top, @NonNull int width, @NonNull int height, @NonNull int rowStride, @NonNull int pixelStride, @NonNull Object[] result);
 
     native int writeBytes(@NonNull String content, @NonNull int width, @NonNull int height, @NonNull int color, @NonNull String format, @NonNull Object[] result);
+
+    /**
+     * 直接写入 Bitmap 像素，不经过 Java 数组
+     *
+     * @param bitmap 可变的 ARGB_8888 Bitmap，宽高即条码尺寸
+     * @return 0 成功，-1 失败
+     */
+    native int writeBitmap(@NonNull String content, @NonNull int color, @NonNull String format, @NonNull Bitmap bitmap);
 }
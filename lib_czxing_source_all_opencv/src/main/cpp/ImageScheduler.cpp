@@ -74,10 +74,16 @@ ImageScheduler::readByte(JNIEnv *env, jbyte *bytes, int left, int top, int cropW
 Result ImageScheduler::decodeGrayPixels(const Mat &gray) {
     LOGE("start GrayPixels...");
 
-    Mat mat;
-    rotate(gray, mat, ROTATE_90_CLOCKWISE);
-
-    Result result = zxingDecode(mat);
+    Result result(DecodeStatus::NotFound);
+    if (rotateFrame) {
+        Mat mat;
+        rotate(gray, mat, ROTATE_90_CLOCKWISE);
+        result = zxingDecode(mat);
+    } else {
+        // 二维码与方向无关，直接识别，省去一次整帧旋转
+        result = zxingDecode(gray);
+        rotatePoints(result, gray, ROTATE_90_CLOCKWISE);
+    }
     if (result.isValid()) {
         logDecode(SCAN_ZXING, SCAN_TREAT_GRAY, scanIndex);
         return result;
@@ -96,17 +102,29 @@ Result ImageScheduler::decodeGrayPixels(const Mat &gray) {
 Result ImageScheduler::decodeThresholdPixels(const Mat &gray) {
     LOGE("start ThresholdPixels...");
 
+    // 不旋转时 mat 与 gray 共用数据，以下处理都输出到新的 Mat，gray 留给后续步骤
     Mat mat;
-    rotate(gray, mat, ROTATE_180);
+    if (rotateFrame) {
+        rotate(gray, mat, ROTATE_180);
+    } else {
+        mat = gray;
+    }
 
     // 提升亮度
+    Mat light;
     if (cameraLight < 80) {
-        mat.convertTo(mat, -1, 1.0, 30);
+        mat.convertTo(light, -1, 1.0, 30);
+    } else {
+        light = mat;
     }
 
-    threshold(mat, mat, 50, 255, CV_THRESH_OTSU);
+    Mat binary;
+    threshold(light, binary, 50, 255, CV_THRESH_OTSU);
 
-    Result result = zxingDecode(mat);
+    Result result = zxingDecode(binary);
+    if (!rotateFrame) {
+        rotatePoints(result, gray, ROTATE_180);
+    }
     if (result.isValid()) {
         logDecode(SCAN_ZXING, SCAN_TREAT_THRESHOLD, scanIndex);
         return result;
@@ -128,7 +146,11 @@ Result ImageScheduler::decodeAdaptivePixels(const Mat &gray) {
     LOGE("start AdaptivePixels...");
 
     Mat mat;
-    rotate(gray, mat, ROTATE_90_COUNTERCLOCKWISE);
+    if (rotateFrame) {
+        rotate(gray, mat, ROTATE_90_COUNTERCLOCKWISE);
+    } else {
+        mat = gray;
+    }
 
     // 降低图片亮度
     Mat lightMat;
@@ -138,6 +160,9 @@ Result ImageScheduler::decodeAdaptivePixels(const Mat &gray) {
                       THRESH_BINARY, 55, 3);
 
     Result result = zxingDecode(lightMat);
+    if (!rotateFrame) {
+        rotatePoints(result, gray, ROTATE_90_COUNTERCLOCKWISE);
+    }
     if (result.isValid()) {
         logDecode(SCAN_ZBAR, SCAN_TREAT_ADAPTIVE, scanIndex);
         return result;
@@ -212,7 +237,8 @@ Result ImageScheduler::recognizerQrCode(const Mat &mat) {
 }
 
 Result ImageScheduler::zxingDecode(const Mat &mat) {
-    auto binImage = BinaryBitmapFromBytesC1(mat.data, 0, 0, mat.cols, mat.rows);
+    // 按 step 逐行读取，未旋转的裁剪区域（ROI，不连续）也无需拷贝
+    auto binImage = BinaryBitmapFromBytesC1(mat.data, 0, 0, mat.cols, mat.rows, static_cast<int>(mat.step));
     Result result = reader->read(*binImage);
     if (result.isValid()) {
         LOGE("zxing decode success, result data = %s", result.text().c_str());
@@ -250,6 +276,41 @@ void ImageScheduler::setOpenCVDetectValue(int value) {
     this->openCVDetectValue = value;
 }
 
+void ImageScheduler::setRotateFrame(bool rotate) {
+    this->rotateFrame = rotate;
+}
+
+/**
+ * 未旋转图像上识别到的定位点，换算成按 rotation 旋转后识别得到的坐标
+ * 各步骤旋转方向不同，传入该步骤 rotateFrame 为 true 时实际使用的方向
+ * @param result
+ * @param src 旋转前的图像
+ * @param rotation ROTATE_90_CLOCKWISE、ROTATE_180、ROTATE_90_COUNTERCLOCKWISE
+ */
+void ImageScheduler::rotatePoints(Result &result, const Mat &src, RotateFlags rotation) {
+    if (result.resultPoints().empty()) {
+        return;
+    }
+    float cols = src.cols;
+    float rows = src.rows;
+    std::vector<ResultPoint> points;
+    points.reserve(result.resultPoints().size());
+    for (const ResultPoint &point : result.resultPoints()) {
+        switch (rotation) {
+            case ROTATE_90_CLOCKWISE:
+                points.emplace_back(rows - point.y(), point.x());
+                break;
+            case ROTATE_180:
+                points.emplace_back(cols - point.x(), rows - point.y());
+                break;
+            case ROTATE_90_COUNTERCLOCKWISE:
+                points.emplace_back(point.y(), cols - point.x());
+                break;
+        }
+    }
+    result.setResultPoints(std::move(points));
+}
+
 Result
 ImageScheduler::readBitmap(JNIEnv *env, jobject bitmap, int left, int top, int width, int height) {
 
@@ -3,6 +3,7 @@
 
 
 #include <jni.h>
+#include <opencv2/core.hpp>
 #include <opencv2/core/mat.hpp>
 #include <src/MultiFormatReader.h>
 #include <src/BinaryBitmap.h>
@@ -34,6 +35,8 @@ public:
 
     void setOpenCVDetectValue(int value);
 
+    void setRotateFrame(bool rotate);
+
     MultiFormatReader *reader;
 
 private:
@@ -44,6 +47,8 @@ private:
     int scanIndex;
     // openCV 探测强度，[0-10]，强度越低，验证越严格，越不容易放大
     int openCVDetectValue = 10;
+    // 是否旋转图像后再识别；false 时直接识别传感器方向的图像，只旋转结果定位点
+    bool rotateFrame = true;
 
     Result recognizerQrCode(const Mat &mat);
 
@@ -51,6 +56,8 @@ private:
 
     static void logDecode(int scanType, int treatType, int index);
 
+    static void rotatePoints(Result &result, const Mat &src, RotateFlags rotation);
+
     bool analysisBrightness(const Mat &gray);
 };
 
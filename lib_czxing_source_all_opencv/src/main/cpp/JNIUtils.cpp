@@ -97,14 +97,14 @@ BinaryBitmapFromBytesC4(JNIEnv *env, void *pixels, int cropLeft, int cropTop, in
 }
 
 std::shared_ptr<ZXing::BinaryBitmap>
-BinaryBitmapFromBytesC1(void *pixels, int left, int top, int width, int height) {
+BinaryBitmapFromBytesC1(void *pixels, int left, int top, int width, int height, int rowBytes) {
     using namespace ZXing;
     LOGE("cropLeft %d , cropTop %d  cropWidth %d cropHeight %d", left, top, width,
          height);
 
     std::shared_ptr<GenericLuminanceSource> luminance = std::make_shared<GenericLuminanceSource>(
             left, top, width, height,
-            pixels, width * sizeof(unsigned char));
+            pixels, rowBytes);
 
     return std::make_shared<HybridBinarizer>(luminance);
 }
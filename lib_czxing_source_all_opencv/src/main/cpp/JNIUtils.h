@@ -54,7 +54,7 @@ BinaryBitmapFromBytesC4(JNIEnv *env, void *rgbScale, int cropLeft, int cropTop,
                         int cropHeight);
 
 std::shared_ptr<ZXing::BinaryBitmap>
-BinaryBitmapFromBytesC1(void *grayScale, int cropLeft, int cropTop, int cropWidth, int cropHeight);
+BinaryBitmapFromBytesC1(void *grayScale, int cropLeft, int cropTop, int cropWidth, int cropHeight, int rowBytes);
 
 void
 BitmapToMat(JNIEnv *env, jobject bitmap, cv::Mat &mat);
@@ -124,6 +124,17 @@ Java_lib_kalu_czxing_jni_NativeSdk_openCVDetectValue(JNIEnv *env, jobject thiz,
     imageScheduler->setOpenCVDetectValue(value);
 }
 
+extern "C"
+JNIEXPORT void JNICALL
+Java_lib_kalu_czxing_jni_NativeSdk_rotateFrame(JNIEnv *env, jobject thiz, jlong objPtr,
+                                                jboolean rotate) {
+    if (objPtr == 0)
+        return;
+
+    auto imageScheduler = reinterpret_cast<ImageScheduler *>(objPtr);
+    imageScheduler->setRotateFrame(rotate == JNI_TRUE);
+}
+
 extern "C"
 JNIEXPORT jint JNICALL
 Java_lib_kalu_czxing_jni_NativeSdk_writeCode(JNIEnv *env, jobject instance, jstring content_,
@@ -94,6 +94,15 @@ public class BarcodeReader {
         }
     }
 
+    /**
+     * 识别前是否把传感器方向的图像顺时针旋转90度，默认 true
+     * <p>
+     * false 时直接识别未旋转的图像，省去每次尝试的整帧旋转，定位点仍按旋转后的坐标返回
+     */
+    public void enableRotateFrame(boolean enable) {
+        NativeSdk.getInstance().rotateFrame(_nativePtr, enable);
+    }
+
     public void prepareRead() {
         NativeSdk.getInstance().prepareRead(_nativePtr);
     }
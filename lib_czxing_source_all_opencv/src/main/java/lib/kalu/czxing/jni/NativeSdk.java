@@ -78,6 +78,8 @@ class NativeSdk {
 
     native void openCVDetectValue(long objPtr, int value);
 
+    native void rotateFrame(long objPtr, boolean rotate);
+
     // write
     native int writeCode(String content, int width, int height, int color, String format, Object[] result);
 
@@ -8,6 +8,8 @@ import lib.kalu.czxing.util.LogUtil;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.nio.ByteBuffer;
+
 /**
  * @description:
  * @date: 2021-05-07 14:56
@@ -15,10 +17,10 @@ import androidx.annotation.Nullable;
 interface AnalyzerDataImpl extends AnalyzerImageImpl {
     @Nullable
     @Override
-    default BarcodeResult analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    default BarcodeResult analyzeData(@NonNull Context context, @NonNull ByteBuffer original, int originalWidth, int originalHeight, int rowStride, int cropLeft, int cropTop, int cropWidth, int cropHeight) {
 
-        LogUtil.log("analyzeData => cropWidth = " + cropWidth + ", cropHeight = " + cropHeight + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight);
-        return analyzeRect(context, crop, cropWidth, cropHeight, cropLeft, cropTop, original, originalWidth, originalHeight);
+        LogUtil.log("analyzeData => cropWidth = " + cropWidth + ", cropHeight = " + cropHeight + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight + ", rowStride = " + rowStride);
+        return analyzeRect(context, original, originalWidth, originalHeight, rowStride, cropLeft, cropTop, cropWidth, cropHeight);
     }
 
     //    @Nullable
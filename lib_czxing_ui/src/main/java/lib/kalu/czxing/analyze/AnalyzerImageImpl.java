@@ -30,9 +30,11 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
         if (imageProxy.getFormat() != ImageFormat.YUV_420_888)
             return null;
 
-        ByteBuffer buffer = imageProxy.getPlanes()[0].getBuffer();
-        byte[] original = new byte[buffer.remaining()];
-        buffer.get(original);
+        // Y 平面直接缓冲区按行跨度原样交给 native，native 按地址、跨度只拷贝一次识别区域，Java 层不拷贝、不裁剪、不旋转
+        // 二维码识别与方向无关，定位点为平面坐标
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        ByteBuffer original = plane.getBuffer();
+        int rowStride = plane.getRowStride();
         int originalWidth = imageProxy.getWidth();
         int originalHeight = imageProxy.getHeight();
 
@@ -41,7 +43,6 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
         int cropHeight = ratio() >= 1F ? originalHeight : cropWidth;
         int cropLeft = ratio() >= 1F ? 0 : originalWidth / 2 - cropWidth / 2;
         int cropTop = ratio() >= 1F ? 0 : originalHeight / 2 - cropHeight / 2;
-        byte[] crop = crop(original, originalWidth, originalHeight, cropWidth, cropHeight, cropLeft, cropTop, orientation, false, false);
 
 //        if (null != imageView && imageView.getVisibility() == View.VISIBLE) {
 //
@@ -64,6 +65,6 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
 //            }
 //        }
 
-        return analyzeData(context, crop, cropWidth, cropHeight, cropLeft, cropTop, original, originalWidth, originalHeight);
+        return analyzeData(context, original, originalWidth, originalHeight, rowStride, cropLeft, cropTop, cropWidth, cropHeight);
     }
 }
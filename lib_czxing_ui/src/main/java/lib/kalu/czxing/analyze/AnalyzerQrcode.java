@@ -4,6 +4,9 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 
+import java.nio.ByteBuffer;
+
+import lib.kalu.czxing.jni.BarcodeFormat;
 import lib.kalu.czxing.jni.BarcodeReader;
 import lib.kalu.czxing.jni.BarcodeResult;
 import lib.kalu.czxing.util.LogUtil;
@@ -14,6 +17,9 @@ import lib.kalu.czxing.util.LogUtil;
  */
 public final class AnalyzerQrcode implements AnalyzerRectImpl {
 
+    // 只识别二维码，native 识别器常驻复用
+    private final BarcodeReader mReader = new BarcodeReader(false, false, BarcodeFormat.QRCode);
+
     private AnalyzerQrcode() {
         LogUtil.log("AnalyzerQrcode =>");
     }
@@ -28,9 +34,9 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
 
 
     @Override
-    public BarcodeResult decodeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight) {
+    public BarcodeResult decodeRect(@NonNull Context context, @NonNull ByteBuffer original, int originalHeight, int rowStride, int cropLeft, int cropTop, int cropWidth, int cropHeight) {
         try {
-            BarcodeResult read = createReader().read(crop, 0, 0, cropWidth, cropHeight, cropWidth, cropHeight);
+            BarcodeResult read = createReader().read(original, cropLeft, cropTop, cropWidth, cropHeight, rowStride, originalHeight, 1);
             return read;
         } catch (Exception e) {
             LogUtil.log("decodeRect[exception] => " + e.getMessage(), e);
@@ -39,9 +45,9 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
     }
 
     @Override
-    public BarcodeResult decodeFull(@NonNull Context context, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    public BarcodeResult decodeFull(@NonNull Context context, @NonNull ByteBuffer original, int originalWidth, int originalHeight, int rowStride) {
         try {
-            return createReader().read(original, 0, 0, originalWidth, originalHeight, originalWidth, originalHeight);
+            return createReader().read(original, 0, 0, originalWidth, originalHeight, rowStride, originalHeight, 1);
         } catch (Exception e) {
             LogUtil.log("decodeRect[exception] => " + e.getMessage(), e);
             return null;
@@ -50,7 +56,7 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
 
     @Override
     public BarcodeReader createReader() {
-        return BarcodeReader.getInstance();
+        return mReader;
     }
 
     @Override
@@ -4,6 +4,8 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 
+import java.nio.ByteBuffer;
+
 import lib.kalu.czxing.jni.BarcodeResult;
 
 /**
@@ -13,7 +15,7 @@ import lib.kalu.czxing.jni.BarcodeResult;
 interface AnalyzerRectImpl extends AnalyzerDataImpl {
 
     @Override
-    default BarcodeResult analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
-        return decodeRect(context, crop, cropWidth, cropHeight);
+    default BarcodeResult analyzeRect(@NonNull Context context, @NonNull ByteBuffer original, int originalWidth, int originalHeight, int rowStride, int cropLeft, int cropTop, int cropWidth, int cropHeight) {
+        return decodeRect(context, original, originalHeight, rowStride, cropLeft, cropTop, cropWidth, cropHeight);
     }
 }
\ No newline at end of file
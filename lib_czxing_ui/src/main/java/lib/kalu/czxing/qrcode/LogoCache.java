@@ -0,0 +1,217 @@
+package lib.kalu.czxing.qrcode;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+import lib.kalu.czxing.util.LogUtil;
+
+/**
+ * @description: 网络 logo 缓存，按 url，内存 + 磁盘（cache/qrcode_logo）
+ * <p>
+ * 下载、条件请求见 {@link LogoFetcher}，这里只负责存储
+ * 每个 logo 记录内容摘要，生成二维码时作为 logo 标识参与 {@link QrcodeCache} 的 key，logo 变化后不会命中旧图
+ * @date: 2021-06-25 15:40
+ */
+final class LogoCache implements LogoFetcher.Store {
+
+    private static final int MEMORY_MAX = 4 * 1024 * 1024;
+    private static final long DISK_MAX = 8 * 1024 * 1024;
+
+    private static volatile LogoCache mCache;
+
+    private final File mDir;
+    private final LogoFetcher mFetcher;
+    private final LruCache<String, LogoFetcher.Entry> mMemory = new LruCache<String, LogoFetcher.Entry>(MEMORY_MAX) {
+        @Override
+        protected int sizeOf(String key, LogoFetcher.Entry value) {
+            return value.getData().length;
+        }
+    };
+
+    private LogoCache(@NonNull File dir) {
+        mDir = dir;
+        mFetcher = new LogoFetcher(this);
+    }
+
+    @NonNull
+    static LogoCache getCache(@NonNull Context context) {
+        if (null == mCache) {
+            synchronized (LogoCache.class) {
+                if (null == mCache) {
+                    mCache = new LogoCache(new File(context.getApplicationContext().getCacheDir(), "qrcode_logo"));
+                }
+            }
+        }
+        return mCache;
+    }
+
+    /**
+     * 取 logo，必要时联网，须在分线程调用
+     *
+     * @return 下载失败且没有缓存时返回 null
+     */
+    @Nullable
+    LogoFetcher.Entry fetch(@NonNull String url) {
+        LogoFetcher.Entry entry = mFetcher.fetch(url);
+        if (null == entry) {
+            LogUtil.log("LogoCache => fail, url = " + url);
+        }
+        return entry;
+    }
+
+    @Nullable
+    @Override
+    public LogoFetcher.Entry get(@NonNull String key) {
+        LogoFetcher.Entry entry = mMemory.get(key);
+        if (null == entry) {
+            entry = read(key);
+            if (null != entry) {
+                mMemory.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public void put(@NonNull String key, @NonNull LogoFetcher.Entry entry, boolean modified) {
+        mMemory.put(key, entry);
+        if (modified) {
+            write(key, entry);
+            LogUtil.log("LogoCache => download, length = " + entry.getData().length);
+        } else {
+            writeMeta(key, entry);
+            LogUtil.log("LogoCache => not modified");
+        }
+    }
+
+    /****************************** 磁盘 *************************************/
+
+    @Nullable
+    private synchronized LogoFetcher.Entry read(@NonNull String key) {
+        File data = new File(mDir, key + ".logo");
+        File meta = new File(mDir, key + ".meta");
+        if (!data.isFile() || !meta.isFile())
+            return null;
+        try {
+            Properties properties = new Properties();
+            InputStream inputStream = new FileInputStream(meta);
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            byte[] bytes = LogoFetcher.readAll(new FileInputStream(data));
+            if (null == bytes)
+                return null;
+            String digest = LogoFetcher.sha256(bytes);
+            // 文件损坏
+            if (!digest.equals(properties.getProperty("digest")))
+                return null;
+            data.setLastModified(System.currentTimeMillis());
+            return new LogoFetcher.Entry(bytes, digest, properties.getProperty("etag"),
+                    Long.parseLong(properties.getProperty("lastModified", "0")),
+                    Long.parseLong(properties.getProperty("expires", "0")));
+        } catch (Exception e) {
+            LogUtil.log("LogoCache => read " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private synchronized void write(@NonNull String key, @NonNull LogoFetcher.Entry entry) {
+        if (!mDir.isDirectory() && !mDir.mkdirs())
+            return;
+        if (writeFile(new File(mDir, key + ".logo"), entry.getData())) {
+            writeMeta(key, entry);
+            trim();
+        }
+    }
+
+    private synchronized void writeMeta(@NonNull String key, @NonNull LogoFetcher.Entry entry) {
+        if (!new File(mDir, key + ".logo").isFile())
+            return;
+        Properties properties = new Properties();
+        properties.setProperty("digest", entry.getDigest());
+        if (null != entry.getETag()) {
+            properties.setProperty("etag", entry.getETag());
+        }
+        properties.setProperty("lastModified", String.valueOf(entry.getLastModified()));
+        properties.setProperty("expires", String.valueOf(entry.getExpires()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            properties.store(out, null);
+        } catch (IOException e) {
+            return;
+        }
+        writeFile(new File(mDir, key + ".meta"), out.toByteArray());
+    }
+
+    /**
+     * 先写临时文件再改名
+     */
+    private static boolean writeFile(@NonNull File file, @NonNull byte[] bytes) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            if (temp.renameTo(file))
+                return true;
+        } catch (IOException e) {
+            LogUtil.log("LogoCache => write " + e.getMessage(), e);
+        }
+        temp.delete();
+        return false;
+    }
+
+    /**
+     * 超过磁盘上限时按最后使用时间从旧到新删除
+     */
+    private void trim() {
+        File[] files = mDir.listFiles();
+        if (null == files)
+            return;
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= DISK_MAX)
+            return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long l1 = o1.lastModified();
+                long l2 = o2.lastModified();
+                return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (size <= DISK_MAX)
+                break;
+            String name = file.getName();
+            if (!name.endsWith(".logo"))
+                continue;
+            File meta = new File(mDir, name.substring(0, name.length() - 5) + ".meta");
+            size -= file.length() + meta.length();
+            file.delete();
+            meta.delete();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package lib.kalu.czxing.qrcode;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import lib.kalu.czxing.util.LogUtil;
+
+/**
+ * @description: 生成二维码缓存，内存 LRU + 磁盘 files/qrcode
+ * <p>
+ * key = SHA-256(文本, 放大倍数, 白边, 纠错级别, logo 标识)，编码之前先查缓存
+ * 内存保存渲染好的 Bitmap，按字节数淘汰：{@link #getBitmap} 直接拷贝，不再解码 png；磁盘文件被删时用它重写 png，不再编码
+ * 磁盘按文件最后修改时间淘汰，命中时刷新修改时间
+ * @date: 2021-06-24 10:30
+ */
+public final class QrcodeCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // 内存上限（字节）
+    private static final int MEMORY_MAX = 4 * 1024 * 1024;
+    // 磁盘上限（字节）
+    private static final long DISK_MAX = 16 * 1024 * 1024;
+
+    private static volatile QrcodeCache mCache;
+
+    private final File mDir;
+    private final LruCache<String, Bitmap> mMemory;
+    // 磁盘已用字节数，首次访问时统计，-1 未统计
+    private long mDiskSize = -1;
+
+    private long mMemoryHits;
+    private long mDiskHits;
+    private long mMisses;
+    private long mEvictions;
+
+    private QrcodeCache(@NonNull File dir) {
+        mDir = dir;
+        mMemory = new LruCache<String, Bitmap>(MEMORY_MAX) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                // 内存里的 Bitmap 从不交给调用方，移出即可回收
+                if (evicted) {
+                    synchronized (QrcodeCache.this) {
+                        mEvictions++;
+                    }
+                }
+                if (oldValue != newValue && !oldValue.isRecycled()) {
+                    oldValue.recycle();
+                }
+            }
+        };
+    }
+
+    @NonNull
+    static QrcodeCache getCache(@NonNull Context context) {
+        if (null == mCache) {
+            synchronized (QrcodeCache.class) {
+                if (null == mCache) {
+                    File dir = new File(context.getApplicationContext().getFilesDir(), "qrcode");
+                    mCache = new QrcodeCache(dir);
+                }
+            }
+        }
+        return mCache;
+    }
+
+    /**
+     * @param logo logo 标识：来源（文件路径+修改时间、assets 名、url 等）或 logo 像素摘要，没有 logo 传 null
+     * @return 64 位十六进制 SHA-256
+     */
+    @NonNull
+    static String key(@NonNull String text, int multiple, int marginLeft, int marginTop, int marginRight, int marginBottom, @NonNull String level, @Nullable String logo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // 各字段带长度前缀，避免拼接后相同
+            update(digest, text);
+            update(digest, multiple + "," + marginLeft + "," + marginTop + "," + marginRight + "," + marginBottom);
+            update(digest, level);
+            update(digest, null == logo ? "" : logo);
+            return hex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return logo 像素摘要，调用方只给了 Bitmap 时作为 logo 标识
+     */
+    @NonNull
+    static String digest(@NonNull Bitmap logo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            int width = logo.getWidth();
+            int height = logo.getHeight();
+            update(digest, width + "x" + height);
+            int[] row = new int[width];
+            byte[] bytes = new byte[width * 4];
+            for (int y = 0; y < height; y++) {
+                logo.getPixels(row, 0, width, 0, y, width, 1);
+                for (int x = 0, i = 0; x < width; x++) {
+                    int argb = row[x];
+                    bytes[i++] = (byte) (argb >>> 24);
+                    bytes[i++] = (byte) (argb >>> 16);
+                    bytes[i++] = (byte) (argb >>> 8);
+                    bytes[i++] = (byte) argb;
+                }
+                digest.update(bytes);
+            }
+            return "bitmap:" + hex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(@NonNull MessageDigest digest, @NonNull String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    @NonNull
+    private static String hex(@NonNull byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = digits[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = digits[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 查缓存，命中返回 png 路径
+     *
+     * @return 未命中返回 null，调用方编码后 {@link #put}
+     */
+    @Nullable
+    synchronized String get(@NonNull String key) {
+
+        File file = new File(mDir, key + ".png");
+
+        // 磁盘命中，只用到路径
+        if (file.isFile()) {
+            file.setLastModified(System.currentTimeMillis());
+            mDiskHits++;
+            return file.getAbsolutePath();
+        }
+
+        // 内存命中：文件被删了，用内存里的 Bitmap 重写
+        Bitmap bitmap = mMemory.get(key);
+        if (null != bitmap && null != write(key, bitmap)) {
+            mMemoryHits++;
+            return file.getAbsolutePath();
+        }
+
+        mMisses++;
+        return null;
+    }
+
+    /**
+     * 按 {@link #get}、{@link #put} 返回的路径取二维码 Bitmap，内存命中直接拷贝，否则解码 png
+     *
+     * @return 调用方持有，用完自行回收；不在缓存目录或文件不存在返回 null
+     */
+    @Nullable
+    public synchronized Bitmap getBitmap(@Nullable String path) {
+
+        if (null == path)
+            return null;
+        File file = new File(path);
+        String name = file.getName();
+        if (!mDir.equals(file.getParentFile()) || !name.endsWith(".png"))
+            return null;
+
+        Bitmap bitmap = mMemory.get(name.substring(0, name.length() - 4));
+        if (null != bitmap) {
+            Bitmap copy = bitmap.copy(bitmap.getConfig(), false);
+            if (null != copy) {
+                mMemoryHits++;
+                return copy;
+            }
+        }
+
+        if (file.isFile()) {
+            bitmap = BitmapFactory.decodeFile(path);
+            if (null != bitmap) {
+                file.setLastModified(System.currentTimeMillis());
+                mDiskHits++;
+                return bitmap;
+            }
+        }
+
+        mMisses++;
+        return null;
+    }
+
+    /**
+     * 保存编码结果，bitmap 交给缓存管理，调用方不能再回收
+     *
+     * @return png 路径，写入失败返回 null
+     */
+    @Nullable
+    synchronized String put(@NonNull String key, @NonNull Bitmap bitmap) {
+
+        String path = write(key, bitmap);
+
+        // 超过内存上限的单张图不进内存
+        if (bitmap.getByteCount() <= MEMORY_MAX) {
+            mMemory.put(key, bitmap);
+        } else {
+            bitmap.recycle();
+        }
+
+        return path;
+    }
+
+    @Nullable
+    private String write(@NonNull String key, @NonNull Bitmap bitmap) {
+
+        if (!mDir.isDirectory()) {
+            if (mDir.isFile()) {
+                mDir.delete();
+            }
+            mDir.mkdirs();
+        }
+        if (mDiskSize < 0) {
+            mDiskSize = scan();
+        }
+
+        // 先写临时文件再改名，读到的 png 总是完整的
+        File temp = new File(mDir, key + ".tmp");
+        File file = new File(mDir, key + ".png");
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(temp);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
+            fos.flush();
+            fos.close();
+            fos = null;
+
+            long old = file.isFile() ? file.length() : 0;
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return null;
+            }
+            mDiskSize += file.length() - old;
+            LogUtil.log("QrcodeCache => write, path = " + file.getAbsolutePath());
+
+            trim(file);
+            return file.getAbsolutePath();
+        } catch (Exception e) {
+            LogUtil.log("QrcodeCache => write " + e.getMessage(), e);
+            temp.delete();
+            return null;
+        } finally {
+            if (null != fos) {
+                try {
+                    fos.close();
+                } catch (Exception e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 统计磁盘占用，顺便删掉旧版本按 hashCode 命名的 temp_qrcode_*.png
+     */
+    private long scan() {
+        long size = 0;
+        File[] files = mDir.listFiles();
+        if (null == files)
+            return 0;
+        for (File file : files) {
+            if (file.getName().startsWith("temp_qrcode_") || file.getName().endsWith(".tmp")) {
+                file.delete();
+            } else if (file.isFile()) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 超过磁盘上限时，按最后修改时间从旧到新删除，刚写入的 keep 保留
+     */
+    private void trim(@NonNull File keep) {
+
+        if (mDiskSize <= DISK_MAX)
+            return;
+
+        File[] files = mDir.listFiles();
+        if (null == files)
+            return;
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long l1 = o1.lastModified();
+                long l2 = o2.lastModified();
+                return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        });
+
+        for (File file : files) {
+            if (mDiskSize <= DISK_MAX)
+                break;
+            if (file.equals(keep) || !file.isFile())
+                continue;
+            long length = file.length();
+            if (file.delete()) {
+                mDiskSize -= length;
+                mEvictions++;
+            }
+        }
+    }
+
+    /**
+     * 清空内存、磁盘缓存，计数不清零
+     */
+    public synchronized void clear() {
+        mMemory.evictAll();
+        File[] files = mDir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDiskSize = 0;
+    }
+
+    public synchronized long getMemoryHits() {
+        return mMemoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return mDiskHits;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * @return 内存、磁盘两级淘汰总数
+     */
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "QrcodeCache{memoryHits=" + mMemoryHits + ", diskHits=" + mDiskHits + ", misses=" + mMisses + ", evictions=" + mEvictions + ", diskSize=" + mDiskSize + "}";
+    }
+}
@@ -22,11 +22,11 @@ import androidx.annotation.RawRes;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lib.kalu.czxing.listener.OnQrcodeListener;
 
 /**
  * description: 创建二维码
@@ -37,6 +37,8 @@ public final class QrcodeTool {
 
     private static final int DEFAULT_REQ_WIDTH = 480;
     private static final int DEFAULT_REQ_HEIGHT = 640;
+    // 纠错级别，参与缓存 key，BarcodeWriter 使用 native 默认的 L
+    private static final String LEVEL = "L";
 
     /**
      * @param filePath 二维码本地文件路径
@@ -112,22 +114,16 @@ public final class QrcodeTool {
             @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
             @Nullable String base64) {
 
-        InputStream inputStream = null;
-        if (null != base64 && base64.length() > 0) {
-            inputStream = base64ToInputStream(base64);
-        }
-
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
+        if (null == base64 || base64.length() == 0)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        if (null != inputStream) {
-            try {
-                inputStream.close();
-                inputStream = null;
-            } catch (Exception e) {
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "base64:" + base64, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                InputStream inputStream = base64ToInputStream(base64);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
             }
-        }
-
-        return qrcode;
+        });
     }
 
     /****************************** createQrcodeFromBase64 *************************************/
@@ -190,15 +186,13 @@ public final class QrcodeTool {
         if (null == context || null == assets || assets.length() == 0)
             return null;
 
-        InputStream inputStream = null;
-        try {
-            inputStream = context.getResources().getAssets().open(assets);
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromAssets => " + e.getMessage(), e);
-        }
-
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "assets:" + assets, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() throws Exception {
+                InputStream inputStream = context.getResources().getAssets().open(assets);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromAssets *************************************/
@@ -255,21 +249,19 @@ public final class QrcodeTool {
             @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
             @Nullable String filePath) {
 
-        Bitmap bitmap = null;
-
-        try {
-            bitmap = createBitmapLogoFromFile(context, filePath, 14, Color.WHITE);
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromFile => " + e.getMessage(), e);
+        // 文件被替换后修改时间、大小会变，不会命中旧图
+        String logo = null;
+        if (null != filePath) {
+            File file = new File(filePath);
+            logo = "file:" + file.getAbsolutePath() + ":" + file.lastModified() + ":" + file.length();
         }
 
-        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, bitmap);
-        if (null != bitmap) {
-            bitmap.recycle();
-            bitmap = null;
-        }
-
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return createBitmapLogoFromFile(context, filePath, 14, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromFile *************************************/
@@ -333,30 +325,20 @@ public final class QrcodeTool {
         if (Looper.getMainLooper() == Looper.myLooper())
             throw new RuntimeException("createQrcodeFromUrl 当前方法必须在分线程执行");
 
-        InputStream inputStream = null;
+        if (null == url || url.length() == 0)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        // 网络图片
-        try {
-            inputStream = Executors.newFixedThreadPool(1).submit(new Callable<InputStream>() {
-                @Override
-                public InputStream call() {
-
-                    try {
-                        InputStream openStream = new URL(url).openStream();
-                        return openStream;
-                    } catch (Exception e) {
-                        Log.e("QrcodeTool", "createQrcodeFromUrl => " + e.getMessage(), e);
-                        return null;
-                    }
-                }
-            }).get();
+        // logo 走 LogoCache：新鲜期内不联网，过期后条件请求；标识带内容摘要，logo 变化后不会命中旧二维码
+        LogoFetcher.Entry entry = LogoCache.getCache(context).fetch(url);
+        if (null == entry)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromUrl => " + e.getMessage(), e);
-        }
-
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "url:" + url + "#" + entry.getDigest(), new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return createBitmapLogo(context, new ByteArrayInputStream(entry.getData()), 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromUrl *************************************/
@@ -418,53 +400,17 @@ public final class QrcodeTool {
         if (null == context)
             return null;
 
-        InputStream inputStream = context.getResources().openRawResource(raw);
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "raw:" + raw, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                InputStream inputStream = context.getResources().openRawResource(raw);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromRaw *************************************/
 
-    /****************************** createQrcodeFromInputStream *************************************/
-
-    /**
-     * @param context      上下文context
-     * @param text         二维码信息
-     * @param multiple     二维码放大倍数(from = 3, to = 100)
-     * @param marginLeft   二维码白边左边距
-     * @param marginTop    二维码白边上边距
-     * @param marginRight  二维码白边右边距
-     * @param marginBottom 二维码白边下边距
-     * @param inputStream  二维码中间logo
-     * @return
-     */
-    @Keep
-    private static String createQrcodeFromInputStream(
-            @NonNull Context context,
-            @NonNull String text,
-            @IntRange(from = 3, to = 100) int multiple,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
-            @Nullable InputStream inputStream) {
-
-        if (null == context)
-            return null;
-
-        Bitmap logoBitmap = createBitmapLogo(context, inputStream, 20, Color.WHITE);
-        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logoBitmap);
-
-        if (null != logoBitmap) {
-            logoBitmap.recycle();
-            logoBitmap = null;
-        }
-
-        return qrcode;
-    }
-
-    /****************************** createQrcodeFromInputStream *************************************/
-
     /****************************** createQrcode *************************************/
 
     public static String createQrcode(
@@ -526,78 +472,323 @@ public final class QrcodeTool {
         if (null == context || null == text || text.length() == 0)
             return null;
 
-        Bitmap bitmapQrcode = EncodeTool.createBitmapQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo);
+        // 只给了 Bitmap，按像素摘要识别 logo
+        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null == logo ? null : QrcodeCache.digest(logo), null == logo ? null : new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return logo;
+            }
+        });
+
+        if (null != logo && !logo.isRecycled()) {
+            logo.recycle();
+        }
+
+        return qrcode;
+    }
+
+    /**
+     * 先按 key 查缓存，未命中才加载 logo、编码
+     *
+     * @param logoId 缓存 key 里的 logo 标识，没有 logo 传 null
+     * @param logo   加载 logo，返回的 Bitmap 用完回收
+     * @return
+     */
+    private static String createQrcode(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String logoId,
+            @Nullable Callable<Bitmap> logo) {
+
+        if (null == context || null == text || text.length() == 0)
+            return null;
 
-        int hashcode = text.hashCode();
-        String saveBitmapLocal = saveBitmapLocal(context, bitmapQrcode, hashcode);
+        QrcodeCache cache = QrcodeCache.getCache(context);
+        String key = QrcodeCache.key(text, multiple, marginLeft, marginTop, marginRight, marginBottom, LEVEL, logoId);
+        String path = cache.get(key);
+        if (null != path)
+            return path;
 
+        Bitmap logoBitmap = null;
         if (null != logo) {
-            logo.recycle();
-            logo = null;
+            try {
+                logoBitmap = logo.call();
+            } catch (Exception e) {
+                Log.e("QrcodeTool", "createQrcode => " + e.getMessage(), e);
+            }
+        }
+
+        // logo 加载失败生成的是无 logo 二维码，按无 logo 缓存，下次仍会重新加载 logo
+        if (null != logoId && null == logoBitmap) {
+            key = QrcodeCache.key(text, multiple, marginLeft, marginTop, marginRight, marginBottom, LEVEL, null);
+            path = cache.get(key);
+            if (null != path)
+                return path;
         }
 
-        return saveBitmapLocal;
+        Bitmap bitmapQrcode = EncodeTool.createBitmapQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logoBitmap);
+
+        if (null != logoBitmap) {
+            logoBitmap.recycle();
+            logoBitmap = null;
+        }
+
+        if (null == bitmapQrcode)
+            return null;
+
+        return cache.put(key, bitmapQrcode);
     }
 
-    /****************************** createQrcode *************************************/
+    /****************************** createQrcodeAsync *************************************/
+
+    @Keep
+    public static Future<String> createQrcodeFromBase64Async(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String base64,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromBase64Async(context, text, 3, 0, 0, 0, 0, base64, listener);
+    }
 
     /**
-     * 保存bitmap至本地
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromBase64}
      *
-     * @param context  上下文
-     * @param bitmap   bitmap
-     * @param hashcode 文件名hashcode
-     * @return
+     * @param base64 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromBase64Async(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String base64,
+            @Nullable OnQrcodeListener listener) {
+
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromBase64(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, base64);
+            }
+        }, listener);
+    }
+
+    @Keep
+    public static Future<String> createQrcodeFromAssetsAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String assets,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromAssetsAsync(context, text, 4, 0, 0, 0, 0, assets, listener);
+    }
+
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromAssets}
+     *
+     * @param assets 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
      */
     @Keep
-    private static String saveBitmapLocal(@NonNull Context context, @NonNull Bitmap bitmap, @NonNull int hashcode) {
+    public static Future<String> createQrcodeFromAssetsAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String assets,
+            @Nullable OnQrcodeListener listener) {
 
-        if (null == context || null == bitmap)
-            return null;
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromAssets(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, assets);
+            }
+        }, listener);
+    }
 
-        try {
+    @Keep
+    public static Future<String> createQrcodeFromFileAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String filePath,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromFileAsync(context, text, 3, 0, 0, 0, 0, filePath, listener);
+    }
+
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromFile}
+     *
+     * @param filePath 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromFileAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String filePath,
+            @Nullable OnQrcodeListener listener) {
 
-            String root = context.getFilesDir().getAbsolutePath() + File.separatorChar + "qrcode";
-            File dir = new File(root);
-            if (!dir.exists()) {
-                dir.mkdirs();
-            } else if (dir.isFile()) {
-                dir.delete();
-                dir.mkdirs();
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromFile(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, filePath);
             }
+        }, listener);
+    }
 
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append("temp_qrcode_");
-            stringBuilder.append(hashcode);
-            stringBuilder.append(".png");
+    @Keep
+    public static Future<String> createQrcodeFromUrlAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String url,
+            @Nullable OnQrcodeListener listener) {
 
-            String child = stringBuilder.toString();
+        return createQrcodeFromUrlAsync(context, text, 3, 0, 0, 0, 0, url, listener);
+    }
 
-            File file = new File(dir, child);
-            if (file.exists()) {
-                file.delete();
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromUrl}
+     *
+     * @param url 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromUrlAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String url,
+            @Nullable OnQrcodeListener listener) {
+
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromUrl(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, url);
             }
-            file.createNewFile();
-            Log.e("QrcodeTool", "saveBitmapLocal =>  path = " + file.getAbsolutePath());
+        }, listener);
+    }
+
+    @Keep
+    public static Future<String> createQrcodeFromRawAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @RawRes int raw,
+            @Nullable OnQrcodeListener listener) {
 
-            FileOutputStream fos = new FileOutputStream(file);
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
+        return createQrcodeFromRawAsync(context, text, 3, 0, 0, 0, 0, raw, listener);
+    }
 
-            fos.flush();
-            fos.close();
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromRaw}
+     *
+     * @param raw 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromRawAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @RawRes int raw,
+            @Nullable OnQrcodeListener listener) {
 
-            if (null != bitmap) {
-                bitmap.recycle();
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromRaw(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, raw);
             }
+        }, listener);
+    }
 
-            return root + File.separator + child;
+    @Keep
+    public static Future<String> createQrcodeAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable Bitmap logo,
+            @Nullable OnQrcodeListener listener) {
 
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "saveBitmapLocal => " + e.getMessage(), e);
-            return null;
-        }
+        return createQrcodeAsync(context, text, 3, 0, 0, 0, 0, logo, listener);
     }
 
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcode}
+     *
+     * @param logo 二维码中间logo，生成后回收
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable Bitmap logo,
+            @Nullable OnQrcodeListener listener) {
+
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo);
+            }
+        }, listener);
+    }
+
+    /****************************** createQrcodeAsync *************************************/
+
+    /**
+     * @return 二维码缓存，命中、淘汰计数
+     */
+    @Keep
+    public static QrcodeCache getQrcodeCache(@NonNull Context context) {
+        return QrcodeCache.getCache(context);
+    }
+
+    /**
+     * @param path createQrcode* 返回的路径
+     * @return 二维码 Bitmap，内存缓存命中时不解码 png；调用方用完回收
+     */
+    @Keep
+    public static Bitmap getQrcodeBitmap(@NonNull Context context, @Nullable String path) {
+        return QrcodeCache.getCache(context).getBitmap(path);
+    }
+
+    /****************************** createQrcode *************************************/
+
     /**
      * createBitmapLogoFromFile
      *
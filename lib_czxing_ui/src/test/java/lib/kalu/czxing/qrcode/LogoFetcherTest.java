@@ -0,0 +1,286 @@
+package lib.kalu.czxing.qrcode;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @description: {@link LogoFetcher} 对本地 HttpServer 的下载、条件请求、失败回退
+ * @date: 2021-06-26 10:20
+ */
+public class LogoFetcherTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private HttpServer mServer;
+    private ExecutorService mServerExecutor;
+    private String mUrl;
+    private MemoryStore mStore;
+    private LogoFetcher mFetcher;
+
+    // 服务端响应，测试里随时修改
+    private volatile byte[] mBody = "logo-v1".getBytes(UTF_8);
+    private volatile String mCacheControl = "max-age=60";
+    private volatile int mStatus = 200;
+    private volatile CountDownLatch mGate;
+
+    private final AtomicInteger mRequests = new AtomicInteger();
+    private final AtomicInteger mNotModified = new AtomicInteger();
+    private final List<String> mIfNoneMatch = new ArrayList<>();
+
+    /**
+     * 内存存储，记录 put 次数
+     */
+    private static final class MemoryStore implements LogoFetcher.Store {
+
+        private final Map<String, LogoFetcher.Entry> mEntries = new HashMap<>();
+        private int mModified;
+        private int mRefreshed;
+
+        @Override
+        public synchronized LogoFetcher.Entry get(String key) {
+            return mEntries.get(key);
+        }
+
+        @Override
+        public synchronized void put(String key, LogoFetcher.Entry entry, boolean modified) {
+            mEntries.put(key, entry);
+            if (modified) {
+                mModified++;
+            } else {
+                mRefreshed++;
+            }
+        }
+
+        /**
+         * 让缓存立即过期
+         */
+        synchronized void expireAll() {
+            for (Map.Entry<String, LogoFetcher.Entry> item : mEntries.entrySet()) {
+                LogoFetcher.Entry entry = item.getValue();
+                item.setValue(new LogoFetcher.Entry(entry.getData(), entry.getDigest(), entry.getETag(), entry.getLastModified(), 0));
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/logo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests.incrementAndGet();
+                try {
+                    CountDownLatch gate = mGate;
+                    if (null != gate) {
+                        gate.await(5, TimeUnit.SECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                byte[] body = mBody;
+                String eTag = "\"" + LogoFetcher.sha256(body) + "\"";
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                synchronized (mIfNoneMatch) {
+                    mIfNoneMatch.add(ifNoneMatch);
+                }
+                exchange.getResponseHeaders().add("ETag", eTag);
+                if (null != mCacheControl) {
+                    exchange.getResponseHeaders().add("Cache-Control", mCacheControl);
+                }
+
+                if (mStatus != 200) {
+                    exchange.sendResponseHeaders(mStatus, -1);
+                } else if (eTag.equals(ifNoneMatch)) {
+                    mNotModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                }
+                exchange.close();
+            }
+        });
+        mServerExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mServerExecutor);
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/logo";
+        mStore = new MemoryStore();
+        mFetcher = new LogoFetcher(mStore);
+    }
+
+    @After
+    public void tearDown() {
+        if (null != mServer) {
+            mServer.stop(0);
+        }
+        mServerExecutor.shutdownNow();
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutNetwork() {
+        LogoFetcher.Entry first = mFetcher.fetch(mUrl);
+        LogoFetcher.Entry second = mFetcher.fetch(mUrl);
+
+        assertArrayEquals(mBody, first.getData());
+        assertSame(first, second);
+        assertEquals(1, mRequests.get());
+        assertEquals(1, mStore.mModified);
+    }
+
+    @Test
+    public void expiredEntryIsRevalidatedAndRefreshedOn304() {
+        LogoFetcher.Entry first = mFetcher.fetch(mUrl);
+        mStore.expireAll();
+
+        LogoFetcher.Entry second = mFetcher.fetch(mUrl);
+
+        assertEquals(2, mRequests.get());
+        assertEquals(1, mNotModified.get());
+        assertEquals(first.getETag(), mIfNoneMatch.get(1));
+        assertEquals(first.getDigest(), second.getDigest());
+        assertTrue(second.getExpires() > System.currentTimeMillis());
+        assertEquals(1, mStore.mModified);
+        assertEquals(1, mStore.mRefreshed);
+
+        // 304 刷新了新鲜期，不再联网
+        mFetcher.fetch(mUrl);
+        assertEquals(2, mRequests.get());
+    }
+
+    @Test
+    public void changedLogoGetsNewDigest() {
+        LogoFetcher.Entry first = mFetcher.fetch(mUrl);
+        mStore.expireAll();
+        mBody = "logo-v2".getBytes(UTF_8);
+
+        LogoFetcher.Entry second = mFetcher.fetch(mUrl);
+
+        assertArrayEquals("logo-v2".getBytes(UTF_8), second.getData());
+        assertNotEquals(first.getDigest(), second.getDigest());
+        assertEquals(2, mStore.mModified);
+    }
+
+    @Test
+    public void noCacheRevalidatesEveryTime() {
+        mCacheControl = "no-cache";
+        mFetcher.fetch(mUrl);
+        mFetcher.fetch(mUrl);
+        mFetcher.fetch(mUrl);
+
+        assertEquals(3, mRequests.get());
+        assertEquals(2, mNotModified.get());
+    }
+
+    @Test
+    public void maxAgeParsing() {
+        assertEquals(LogoFetcher.DEFAULT_MAX_AGE, LogoFetcher.maxAge(null));
+        assertEquals(LogoFetcher.DEFAULT_MAX_AGE, LogoFetcher.maxAge("public"));
+        assertEquals(LogoFetcher.DEFAULT_MAX_AGE, LogoFetcher.maxAge("max-age=abc"));
+        assertEquals(30 * 1000, LogoFetcher.maxAge("max-age=30"));
+        assertEquals(5 * 1000, LogoFetcher.maxAge("private, Max-Age=5"));
+        assertEquals(0, LogoFetcher.maxAge("max-age=-1"));
+        assertEquals(0, LogoFetcher.maxAge("no-cache"));
+        assertEquals(0, LogoFetcher.maxAge("public, no-store, max-age=60"));
+    }
+
+    @Test
+    public void staleEntryIsServedWhenServerFails() {
+        LogoFetcher.Entry first = mFetcher.fetch(mUrl);
+        mStore.expireAll();
+        mStatus = 500;
+
+        LogoFetcher.Entry second = mFetcher.fetch(mUrl);
+
+        assertEquals(2, mRequests.get());
+        assertEquals(first.getDigest(), second.getDigest());
+    }
+
+    @Test
+    public void staleEntryIsServedWhenServerIsDown() {
+        LogoFetcher.Entry first = mFetcher.fetch(mUrl);
+        mStore.expireAll();
+        mServer.stop(0);
+        mServer = null;
+
+        LogoFetcher.Entry second = mFetcher.fetch(mUrl);
+
+        assertEquals(first.getDigest(), second.getDigest());
+    }
+
+    @Test
+    public void failureWithoutCacheReturnsNull() {
+        mStatus = 404;
+        assertNull(mFetcher.fetch(mUrl));
+    }
+
+    @Test
+    public void oversizedLogoIsRejected() {
+        mBody = new byte[LogoFetcher.MAX_LOGO + 1];
+        assertNull(mFetcher.fetch(mUrl));
+        assertEquals(0, mStore.mModified);
+    }
+
+    @Test
+    public void concurrentFetchesShareOneRequest() throws Exception {
+        mGate = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<LogoFetcher.Entry>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<LogoFetcher.Entry>() {
+                    @Override
+                    public LogoFetcher.Entry call() {
+                        return mFetcher.fetch(mUrl);
+                    }
+                }));
+            }
+            // 等第一个请求到达服务端，其余调用都已排在它后面
+            long deadline = System.currentTimeMillis() + 5000;
+            while (mRequests.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            mGate.countDown();
+
+            LogoFetcher.Entry first = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<LogoFetcher.Entry> future : futures) {
+                assertSame(first, future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, mRequests.get());
+            assertEquals(1, mStore.mModified);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package lib.kalu.frame;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * @description: 相机帧裁剪 + 旋转（0/90/180/270，顺时针）+ 查表，zxing、czxing、zbar 共用
+ * <p>
+ * 90/270 分块：每次把源图 64 行整行读入条带缓冲，再按 64 列一块、按输出行顺序写出，
+ * 一块的读写都落在缓存内，避免逐像素按列跨行写入导致的缓存失效
+ * <p>
+ * out 为 null 或长度不足时，使用当前线程复用的输出缓冲（长度恰为 width * height，下一次调用会覆盖）
+ * @date: 2021-06-11 10:20
+ */
+public final class FrameCrop {
+
+    private static final int TILE = 64;
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private FrameCrop() {
+    }
+
+    /**
+     * @see #crop(ByteBuffer, int, int, int, int, int, int, int, byte[], byte[])
+     */
+    public static byte[] crop(byte[] src, int rowStride, int left, int top, int width, int height, int rotation, byte[] table, byte[] out) {
+        return crop(ByteBuffer.wrap(src), rowStride, 1, left, top, width, height, rotation, table, out);
+    }
+
+    /**
+     * @param src         灰度平面，如 YUV_420_888 的 Y 平面；position、limit 不会被修改
+     * @param rowStride   行跨度
+     * @param pixelStride 像素跨度
+     * @param left        裁剪区域（源图坐标）
+     * @param top         裁剪区域（源图坐标）
+     * @param width       裁剪区域（源图坐标）
+     * @param height      裁剪区域（源图坐标）
+     * @param rotation    裁剪后顺时针旋转角度：0、90、180、270；90/270 时输出宽高互换
+     * @param table       256 项查表，逐像素映射；null 不映射
+     * @param out         输出缓冲，至少 width * height
+     * @return 输出缓冲，按输出宽度逐行排列
+     */
+    public static byte[] crop(ByteBuffer src, int rowStride, int pixelStride, int left, int top, int width, int height, int rotation, byte[] table, byte[] out) {
+
+        if (rotation != 0 && rotation != 90 && rotation != 180 && rotation != 270)
+            throw new IllegalArgumentException("rotation must be 0, 90, 180 or 270: " + rotation);
+        if (left < 0 || top < 0 || width <= 0 || height <= 0)
+            throw new IllegalArgumentException("crop rect is empty or negative");
+        if ((top + height - 1) * (long) rowStride + (left + width - 1) * (long) pixelStride >= src.limit())
+            throw new IllegalArgumentException("crop rect does not fit within the buffer");
+        if (null != table && table.length != 256)
+            throw new IllegalArgumentException("table must have 256 entries: " + table.length);
+
+        Scratch scratch = SCRATCH.get();
+        int size = width * height;
+        if (null == out || out.length < size) {
+            if (null == scratch.out || scratch.out.length != size) {
+                scratch.out = new byte[size];
+            }
+            out = scratch.out;
+        }
+
+        ByteBuffer view = src.duplicate();
+        switch (rotation) {
+            case 90:
+            case 270:
+                transpose(view, rowStride, pixelStride, left, top, width, height, rotation == 90, table, scratch, out);
+                break;
+            default:
+                for (int y = 0; y < height; y++) {
+                    int row = rotation == 180 ? height - 1 - y : y;
+                    load(view, (top + y) * rowStride + left * pixelStride, pixelStride, width, out, row * width);
+                    if (rotation == 180) {
+                        reverse(out, row * width, width);
+                    }
+                    map(table, out, row * width, width);
+                }
+                break;
+        }
+        return out;
+    }
+
+    private static void transpose(ByteBuffer view, int rowStride, int pixelStride, int left, int top, int width, int height, boolean clockwise, byte[] table, Scratch scratch, byte[] out) {
+        if (null == scratch.strip || scratch.strip.length < TILE * width) {
+            scratch.strip = new byte[TILE * width];
+        }
+        byte[] strip = scratch.strip;
+
+        for (int ty = 0; ty < height; ty += TILE) {
+            int th = Math.min(TILE, height - ty);
+
+            // 源图 TILE 行整行读入
+            for (int r = 0; r < th; r++) {
+                load(view, (top + ty + r) * rowStride + left * pixelStride, pixelStride, width, strip, r * width);
+                map(table, strip, r * width, width);
+            }
+
+            // 按 TILE 列分块写出：源图第 x 列 => 输出第 x 行（90），或第 (width - 1 - x) 行（270）
+            for (int tx = 0; tx < width; tx += TILE) {
+                int end = Math.min(tx + TILE, width);
+                for (int x = tx; x < end; x++) {
+                    if (clockwise) {
+                        int index = x * height + height - 1 - ty;
+                        for (int r = 0, s = x; r < th; r++, s += width) {
+                            out[index - r] = strip[s];
+                        }
+                    } else {
+                        int index = (width - 1 - x) * height + ty;
+                        for (int r = 0, s = x; r < th; r++, s += width) {
+                            out[index + r] = strip[s];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void load(ByteBuffer view, int index, int pixelStride, int length, byte[] dst, int offset) {
+        if (pixelStride == 1) {
+            ((Buffer) view).position(index);
+            view.get(dst, offset, length);
+        } else {
+            for (int i = 0; i < length; i++, index += pixelStride) {
+                dst[offset + i] = view.get(index);
+            }
+        }
+    }
+
+    private static void reverse(byte[] data, int offset, int length) {
+        for (int i = offset, j = offset + length - 1; i < j; i++, j--) {
+            byte temp = data[i];
+            data[i] = data[j];
+            data[j] = temp;
+        }
+    }
+
+    private static void map(byte[] table, byte[] data, int offset, int length) {
+        if (null == table)
+            return;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            data[i] = table[data[i] & 0xFF];
+        }
+    }
+
+    private static final class Scratch {
+        private byte[] strip;
+        private byte[] out;
+    }
+}
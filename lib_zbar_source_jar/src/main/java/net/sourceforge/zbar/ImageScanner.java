@@ -120,6 +120,21 @@ public final class ImageScanner {
     @Keep
     private native long getResults(long peer);
 
+    /**
+     * Retrieve decode results for last scanned image as plain Java
+     * objects.  All symbols are copied out in one native call, instead
+     * of one call per symbol and attribute through {@link SymbolSet},
+     * and nothing needs to be destroyed afterwards.
+     *
+     * @returns the symbols, empty if none were decoded
+     */
+    public SymbolResult[] getResultArray() {
+        return (SymbolResult.unpack(getResultsPacked(peer)));
+    }
+
+    @Keep
+    private native byte[] getResultsPacked(long peer);
+
     /**
      * Scan for symbols in provided Image.
      * The image format must currently be "Y800" or "GRAY".
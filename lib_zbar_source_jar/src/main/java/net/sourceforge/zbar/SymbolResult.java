@@ -0,0 +1,168 @@
+/*------------------------------------------------------------------------
+ *  SymbolResult
+ *
+ *  This file is part of the ZBar Bar Code Reader.
+ *
+ *  The ZBar Bar Code Reader is free software; you can redistribute it
+ *  and/or modify it under the terms of the GNU Lesser Public License as
+ *  published by the Free Software Foundation; either version 2.1 of
+ *  the License, or (at your option) any later version.
+ *
+ *  The ZBar Bar Code Reader is distributed in the hope that it will be
+ *  useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ *  of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser Public License
+ *  along with the ZBar Bar Code Reader; if not, write to the Free
+ *  Software Foundation, Inc., 51 Franklin St, Fifth Floor,
+ *  Boston, MA  02110-1301  USA
+ *
+ *  http://sourceforge.net/projects/zbar
+ *------------------------------------------------------------------------*/
+
+package net.sourceforge.zbar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Plain Java copy of a decoded symbol, unpacked from the single array
+ * returned by {@link ImageScanner#getResultArray()}.  Unlike
+ * {@link Symbol} it holds no native peer, so it needs no destroy() and
+ * stays valid after the scanner moves on to the next image.
+ */
+public final class SymbolResult {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int type;
+    private final int quality;
+    private final int count;
+    private final int orientation;
+    private final int[] location;
+    private final byte[] data;
+
+    private SymbolResult(int type, int quality, int count, int orientation,
+                         int[] location, byte[] data) {
+        this.type = type;
+        this.quality = quality;
+        this.count = count;
+        this.orientation = orientation;
+        this.location = location;
+        this.data = data;
+    }
+
+    /**
+     * Unpack the native layout, all ints little endian:
+     * symbol count, then per symbol type, quality, count, orientation,
+     * number of location points, x and y of each point, data length and
+     * the data bytes.
+     */
+    static SymbolResult[] unpack(byte[] packed) {
+        if (packed == null)
+            return (new SymbolResult[0]);
+
+        ByteBuffer buffer = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN);
+        SymbolResult[] results = new SymbolResult[buffer.getInt()];
+        for (int i = 0; i < results.length; i++) {
+            int type = buffer.getInt();
+            int quality = buffer.getInt();
+            int count = buffer.getInt();
+            int orientation = buffer.getInt();
+            int[] location = new int[buffer.getInt() * 2];
+            for (int j = 0; j < location.length; j++)
+                location[j] = buffer.getInt();
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            results[i] = new SymbolResult(type, quality, count, orientation, location, data);
+        }
+        return (results);
+    }
+
+    /**
+     * Retrieve type of decoded symbol, see {@link Symbol#QRCODE} etc.
+     */
+    public int getType() {
+        return (type);
+    }
+
+    /**
+     * Retrieve data decoded from symbol as a String.
+     */
+    public String getData() {
+        return (new String(data, UTF_8));
+    }
+
+    /**
+     * Retrieve raw data bytes decoded from symbol.
+     */
+    public byte[] getDataBytes() {
+        return (data.clone());
+    }
+
+    /**
+     * Retrieve a symbol confidence metric.
+     */
+    public int getQuality() {
+        return (quality);
+    }
+
+    /**
+     * Retrieve current cache count, see {@link Symbol#getCount()}.
+     */
+    public int getCount() {
+        return (count);
+    }
+
+    /**
+     * Retrieve general axis-aligned, orientation of decoded symbol.
+     */
+    public int getOrientation() {
+        return (orientation);
+    }
+
+    /**
+     * Retrieve the number of points in the location polygon.
+     */
+    public int getLocationSize() {
+        return (location.length / 2);
+    }
+
+    public int[] getLocationPoint(int idx) {
+        int[] p = new int[2];
+        p[0] = location[idx * 2];
+        p[1] = location[idx * 2 + 1];
+        return (p);
+    }
+
+    /**
+     * Retrieve an approximate, axis-aligned bounding box for the
+     * symbol.
+     */
+    public int[] getBounds() {
+        if (location.length == 0)
+            return (null);
+
+        int xmin = Integer.MAX_VALUE;
+        int xmax = Integer.MIN_VALUE;
+        int ymin = Integer.MAX_VALUE;
+        int ymax = Integer.MIN_VALUE;
+        for (int i = 0; i < location.length; i += 2) {
+            int x = location[i];
+            if (xmin > x) xmin = x;
+            if (xmax < x) xmax = x;
+
+            int y = location[i + 1];
+            if (ymin > y) ymin = y;
+            if (ymax < y) ymax = y;
+        }
+        int[] bounds = new int[4];
+        bounds[0] = xmin;
+        bounds[1] = ymin;
+        bounds[2] = xmax - xmin;
+        bounds[3] = ymax - ymin;
+        return (bounds);
+    }
+}
@@ -22,6 +22,7 @@
  *------------------------------------------------------------------------*/
 #include <inttypes.h>
 #include <assert.h>
+#include <string.h>
 #include <zbar.h>
 #include <jni.h>
 
@@ -630,6 +631,76 @@ Java_net_sourceforge_zbar_ImageScanner_getResults(JNIEnv *env,
     return ((intptr_t) zsyms);
 }
 
+static inline uint8_t *
+put_int(uint8_t *p,
+        int32_t v) {
+    uint32_t u = (uint32_t) v;
+    p[0] = (uint8_t) u;
+    p[1] = (uint8_t) (u >> 8);
+    p[2] = (uint8_t) (u >> 16);
+    p[3] = (uint8_t) (u >> 24);
+    return (p + 4);
+}
+
+/* all results of the last scan in one array, see SymbolResult.unpack:
+ * count, then per symbol type, quality, count, orientation, number of
+ * location points, x and y of each point, data length and data bytes,
+ * ints little endian
+ */
+JNIEXPORT jbyteArray JNICALL
+Java_net_sourceforge_zbar_ImageScanner_getResultsPacked(JNIEnv *env,
+                                                        jobject obj,
+                                                        jlong peer) {
+    const zbar_symbol_set_t *zsyms =
+            zbar_image_scanner_get_results(PEER_CAST(peer));
+    const zbar_symbol_t *zsym;
+    jsize size = 4;
+    int32_t n = 0;
+
+    if (zsyms) {
+        for (zsym = zbar_symbol_set_first_symbol(zsyms); zsym;
+             zsym = zbar_symbol_next(zsym), n++)
+            size += 4 * 6 + 8 * zbar_symbol_get_loc_size(zsym) +
+                    zbar_symbol_get_data_length(zsym);
+    }
+
+    jbyteArray packed = (*env)->NewByteArray(env, size);
+    if (!packed)
+        return (NULL);
+
+    /* no JNI calls until the array is released */
+    uint8_t *p = (*env)->GetPrimitiveArrayCritical(env, packed, NULL);
+    if (!p)
+        return (NULL);
+
+    p = put_int(p, n);
+    if (zsyms) {
+        for (zsym = zbar_symbol_set_first_symbol(zsyms); zsym;
+             zsym = zbar_symbol_next(zsym)) {
+            unsigned i, loc = zbar_symbol_get_loc_size(zsym);
+            unsigned datalen = zbar_symbol_get_data_length(zsym);
+
+            p = put_int(p, zbar_symbol_get_type(zsym));
+            p = put_int(p, zbar_symbol_get_quality(zsym));
+            p = put_int(p, zbar_symbol_get_count(zsym));
+            p = put_int(p, zbar_symbol_get_orientation(zsym));
+            p = put_int(p, loc);
+            for (i = 0; i < loc; i++) {
+                p = put_int(p, zbar_symbol_get_loc_x(zsym, i));
+                p = put_int(p, zbar_symbol_get_loc_y(zsym, i));
+            }
+            p = put_int(p, datalen);
+            if (datalen) {
+                memcpy(p, zbar_symbol_get_data(zsym), datalen);
+                p += datalen;
+            }
+        }
+    }
+
+    (*env)->ReleasePrimitiveArrayCritical(env, packed, p - size, 0);
+    return (packed);
+}
+
 JNIEXPORT jint JNICALL
 Java_net_sourceforge_zbar_ImageScanner_scanImage(JNIEnv *env,
                                                  jobject obj,
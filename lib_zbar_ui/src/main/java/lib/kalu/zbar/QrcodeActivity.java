@@ -25,7 +25,7 @@ import androidx.core.app.ActivityCompat;
 import net.sourceforge.zbar.Format;
 import net.sourceforge.zbar.Image;
 import net.sourceforge.zbar.ImageScanner;
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 import net.sourceforge.zbar.SymbolSet;
 
 import java.io.ByteArrayOutputStream;
@@ -257,7 +257,7 @@ public final class QrcodeActivity extends AppCompatActivity implements OnCameraS
     }
 
     @Override
-    public void onResult(Symbol result) {
+    public void onResult(SymbolResult result) {
 
         // 声音
         boolean beep = getIntent().getBooleanExtra(INTENT_BEEP, true);
@@ -6,9 +6,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.camera.core.ImageProxy;
 
-import net.sourceforge.zbar.ImageScanner;
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 
+import lib.kalu.frame.FrameCrop;
 import lib.kalu.zbar.util.LogUtil;
 
 /**
@@ -18,7 +18,7 @@ import lib.kalu.zbar.util.LogUtil;
 public interface AnalyzerBaseImpl {
 
     @Nullable
-    Symbol analyzeImage(@NonNull Context context, @NonNull ImageProxy imageProxy, int orientation);
+    SymbolResult analyzeImage(@NonNull Context context, @NonNull ImageProxy imageProxy, int orientation);
 
     /**
      * @param context
@@ -32,7 +32,7 @@ public interface AnalyzerBaseImpl {
      * @return
      */
     @Nullable
-    Symbol analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
+    SymbolResult analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
 
     /**
      * @param context
@@ -45,14 +45,14 @@ public interface AnalyzerBaseImpl {
      * @param originalHeight
      * @return
      */
-    Symbol analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
+    SymbolResult analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
 
-    Symbol decodeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight);
+    SymbolResult decodeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight);
 
-    Symbol decodeFull(@NonNull Context context, @NonNull byte[] original, int originalWidth, int originalHeight);
+    SymbolResult decodeFull(@NonNull Context context, @NonNull byte[] original, int originalWidth, int originalHeight);
 
-    @Nullable
-    ImageScanner createReader();
+    @NonNull
+    ZbarSession createReader();
 
     /**
      * 默认全屏扫描
@@ -64,58 +64,28 @@ public interface AnalyzerBaseImpl {
     default byte[] crop(@NonNull byte[] original, @NonNull int originalWidth, @NonNull int originalHeight, int cropWidth, int cropHeight, int cropLeft, int cropTop, int orientation, boolean isGM, boolean isXX) {
         LogUtil.log("crop => orientation = " + (orientation == Configuration.ORIENTATION_PORTRAIT ? "竖屏" : "横屏") + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight);
 
-        int yMin = cropTop;
-        if (yMin < 0) {
-            yMin = 0;
-        }
-        int yMax = yMin + cropHeight;
-        if (yMin > originalHeight) {
-            yMin = originalHeight;
-        }
-        int xMin = cropLeft;
-        if (xMin < 0) {
-            xMin = 0;
-        }
-        int xMax = cropLeft + cropWidth;
-        if (xMax > originalWidth) {
-            xMax = originalWidth;
-        }
-
-        byte[] crop = new byte[cropWidth * cropHeight];
-        short random = 0;
-        if (isXX) {
-            random = (short) (Math.random() * 4 + 3);
-        }
-
-        for (int y = yMin; y < yMax; y++) {
-            for (int x = xMin; x < xMax; x++) {
-
-                int indexOriginal = x + y * originalWidth;
-                int indexData;
-                if (orientation == Configuration.ORIENTATION_PORTRAIT) {
-                    indexData = (x - xMin) * cropHeight + cropHeight - (y - cropTop) - 1;
-                } else {
-                    indexData = (x - xMin) + (y - cropTop) * cropWidth;
+        // 图像增强：每帧生成 256 项查表，裁剪、旋转时逐像素查表
+        byte[] table = null;
+        if (isGM || isXX) {
+            short random = 0;
+            if (isXX) {
+                random = (short) (Math.random() * 4 + 3);
+            }
+            table = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                byte a = (byte) i;
+                if (isGM) {
+                    a = (byte) (255 * Math.pow(i / 255f, 4f));
                 }
-
-                if (isGM && isXX) {
-                    byte a = original[indexOriginal];
-                    byte b = (byte) (255 * Math.pow((a & 0xff) / 255f, 4f));
-                    byte c = (byte) (b * random);
-                    crop[indexData] = c;
-                } else if (isGM) {
-                    byte a = original[indexOriginal];
-                    byte b = (byte) (255 * Math.pow((a & 0xff) / 255f, 4f));
-                    crop[indexData] = b;
-                } else if (isXX) {
-                    byte a = original[indexOriginal];
-                    byte c = (byte) (a * random);
-                    crop[indexData] = c;
-                } else {
-                    crop[indexData] = original[indexOriginal];
+                if (isXX) {
+                    a = (byte) (a * random);
                 }
+                table[i] = a;
             }
         }
-        return crop;
+
+        // 分块裁剪、旋转，输出缓冲在分析线程内复用
+        int rotation = orientation == Configuration.ORIENTATION_PORTRAIT ? 90 : 0;
+        return FrameCrop.crop(original, originalWidth, cropLeft, cropTop, cropWidth, cropHeight, rotation, table, null);
     }
 }
@@ -6,7 +6,7 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 
 import lib.kalu.zbar.util.LogUtil;
 
@@ -17,7 +17,7 @@ import lib.kalu.zbar.util.LogUtil;
 interface AnalyzerDataImpl extends AnalyzerImageImpl {
     @Nullable
     @Override
-    default Symbol analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    default SymbolResult analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
 
         LogUtil.log("analyzeData => cropWidth = " + cropWidth + ", cropHeight = " + cropHeight + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight);
         return analyzeRect(context, crop, cropWidth, cropHeight, cropLeft, cropTop, original, originalWidth, originalHeight);
@@ -10,7 +10,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.camera.core.ImageProxy;
 
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 
 import lib.kalu.zbar.util.LogUtil;
 
@@ -22,7 +22,7 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
 
     @Nullable
     @Override
-    default Symbol analyzeImage(@NonNull Context context, @NonNull ImageProxy imageProxy, int orientation) {
+    default SymbolResult analyzeImage(@NonNull Context context, @NonNull ImageProxy imageProxy, int orientation) {
         LogUtil.log("analyzeImage => format =  " + imageProxy.getFormat() + ", orientation = " + (orientation == Configuration.ORIENTATION_PORTRAIT ? "竖屏" : "横屏"));
 
         if (imageProxy.getFormat() != ImageFormat.YUV_420_888)
@@ -3,13 +3,8 @@ package lib.kalu.zbar.analyze;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import net.sourceforge.zbar.Format;
-import net.sourceforge.zbar.Image;
-import net.sourceforge.zbar.ImageScanner;
-import net.sourceforge.zbar.Symbol;
-import net.sourceforge.zbar.SymbolSet;
+import net.sourceforge.zbar.SymbolResult;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -34,89 +29,23 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
     }
 
     @Override
-    public Symbol decodeRect(@NonNull @NotNull Context context, @NonNull @NotNull byte[] crop, int cropWidth, int cropHeight) {
-
-        Image zbar = new Image(cropWidth, cropHeight, Format.Y800);
-        zbar.setData(crop);
-        zbar.setCrop(0, 0, cropWidth, cropHeight);
-
-        ImageScanner reader = createReader();
-        int code = reader.scanImage(zbar);
-        if (code == 0) {
-            LogUtil.log("decodeRect[faul] =>");
-            release(zbar, null, null);
-            return null;
-        }
-
-        SymbolSet symbolSet = reader.getResults();
-        for (Symbol sym : symbolSet) {
-            if (sym.getType() == Symbol.QRCODE && null != sym.getData() && sym.getData().length() > 0) {
-                LogUtil.log("decodeRect[succ] => " + sym.getData());
-                release(zbar, symbolSet, reader);
-                return sym;
-            }
-        }
-
-        LogUtil.log("decodeRect[faul] =>");
-        release(zbar, symbolSet, null);
-        return null;
+    public SymbolResult decodeRect(@NonNull @NotNull Context context, @NonNull @NotNull byte[] crop, int cropWidth, int cropHeight) {
+        SymbolResult symbol = createReader().scan(crop, cropWidth, cropHeight, 0, 0, cropWidth, cropHeight, true);
+        LogUtil.log("decodeRect[" + (null == symbol ? "fail" : "succ") + "] =>");
+        return symbol;
     }
 
     @Override
-    public Symbol decodeFull(@NonNull @NotNull Context context, @NonNull @NotNull byte[] original, int originalWidth, int originalHeight) {
-
-        Image zbar = new Image(originalWidth, originalHeight, Format.Y800);
-        zbar.setData(original);
-        zbar.setCrop(0, 0, originalWidth, originalHeight);
-
-        ImageScanner reader = createReader();
-        int code = reader.scanImage(zbar);
-        if (code == 0) {
-            LogUtil.log("decodeFull[faul] =>");
-            release(zbar, null, null);
-            return null;
-        }
-
-        SymbolSet symbolSet = reader.getResults();
-        for (Symbol sym : symbolSet) {
-            if (sym.getType() == Symbol.QRCODE && null != sym.getData() && sym.getData().length() > 0) {
-                LogUtil.log("decodeFull[succ] => " + sym.getData());
-                release(zbar, symbolSet, reader);
-                return sym;
-            }
-        }
-
-        LogUtil.log("decodeFull[fail] =>");
-        release(zbar, symbolSet, null);
-        return null;
-    }
-
-    private void release(@Nullable Image image, @Nullable SymbolSet symbols, @Nullable ImageScanner scanner) {
-
-        if (null != image) {
-            image.destroy();
-        }
-
-        if (null != symbols) {
-
-            for (Symbol symbol : symbols) {
-                if (null != symbol) {
-                    symbol.destroy();
-                }
-            }
-
-            symbols.destroy();
-        }
-
-        if (null != scanner) {
-            scanner.destroy();
-        }
+    public SymbolResult decodeFull(@NonNull @NotNull Context context, @NonNull @NotNull byte[] original, int originalWidth, int originalHeight) {
+        SymbolResult symbol = createReader().scan(original, originalWidth, originalHeight, 0, 0, originalWidth, originalHeight, true);
+        LogUtil.log("decodeFull[" + (null == symbol ? "fail" : "succ") + "] =>");
+        return symbol;
     }
 
-    @Nullable
+    @NonNull
     @Override
-    public ImageScanner createReader() {
-        return ImageScanner.getInstance();
+    public ZbarSession createReader() {
+        return ZbarSession.getSession();
     }
 
     @Override
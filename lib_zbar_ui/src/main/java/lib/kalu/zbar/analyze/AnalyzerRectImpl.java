@@ -6,7 +6,7 @@ import androidx.annotation.NonNull;
 
 import net.sourceforge.zbar.Image;
 import net.sourceforge.zbar.ImageScanner;
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 import net.sourceforge.zbar.SymbolSet;
 
 import lib.kalu.zbar.util.LogUtil;
@@ -18,8 +18,8 @@ import lib.kalu.zbar.util.LogUtil;
 interface AnalyzerRectImpl extends AnalyzerDataImpl {
 
     @Override
-    default Symbol analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
-        Symbol symbolR = decodeRect(context, crop, cropWidth, cropHeight);
+    default SymbolResult analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
+        SymbolResult symbolR = decodeRect(context, crop, cropWidth, cropHeight);
         if (null != symbolR)
             return symbolR;
 
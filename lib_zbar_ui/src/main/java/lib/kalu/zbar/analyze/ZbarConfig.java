@@ -0,0 +1,100 @@
+package lib.kalu.zbar.analyze;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.sourceforge.zbar.Config;
+import net.sourceforge.zbar.ImageScanner;
+import net.sourceforge.zbar.Symbol;
+
+/**
+ * @description: zbar 识别配置：识别哪些码制、扫描线密度
+ * <p>
+ * 密度即扫描线间隔（Config.X_DENSITY / Y_DENSITY），1 逐行逐列扫描最慢，越大越快但小码、远码越容易漏
+ * 相机逐帧识别从 sparse 起步，连续 misses 次未识别才加密一级（间隔减半），直到 dense；识别成功回到 sparse
+ * @date: 2021-06-23 14:10
+ */
+public final class ZbarConfig {
+
+    /**
+     * 只识别二维码，不跑一维码逐行解码
+     */
+    public static final ZbarConfig QRCODE = new ZbarConfig(new int[]{Symbol.QRCODE}, 4, 1, 3);
+
+    /**
+     * 商品一维码
+     */
+    public static final ZbarConfig RETAIL = new ZbarConfig(new int[]{Symbol.EAN13, Symbol.EAN8, Symbol.UPCA, Symbol.UPCE, Symbol.ISBN10, Symbol.ISBN13}, 2, 1, 3);
+
+    /**
+     * 全部码制，始终逐行扫描
+     */
+    public static final ZbarConfig ALL = new ZbarConfig(null, 1, 1, 1);
+
+    @Nullable
+    private final int[] mSymbologies;
+    private final int mSparse;
+    private final int mDense;
+    private final int mMisses;
+
+    /**
+     * @param symbologies Symbol.QRCODE 等，null 全部码制
+     * @param sparse      起步扫描线间隔
+     * @param dense       最密扫描线间隔，不大于 sparse
+     * @param misses      连续未识别多少次后加密一级
+     */
+    public ZbarConfig(@Nullable int[] symbologies, int sparse, int dense, int misses) {
+        if (dense < 1 || sparse < dense)
+            throw new IllegalArgumentException("density must satisfy 1 <= dense <= sparse: dense = " + dense + ", sparse = " + sparse);
+        if (misses < 1)
+            throw new IllegalArgumentException("misses must be at least 1: " + misses);
+        mSymbologies = null == symbologies ? null : symbologies.clone();
+        mSparse = sparse;
+        mDense = dense;
+        mMisses = misses;
+    }
+
+    public int getSparse() {
+        return mSparse;
+    }
+
+    public int getDense() {
+        return mDense;
+    }
+
+    public int getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * @return 识别结果是否属于本配置的码制
+     */
+    public boolean accept(int type) {
+        if (null == mSymbologies)
+            return type > Symbol.PARTIAL;
+        for (int symbology : mSymbologies) {
+            if (symbology == type)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 启用本配置的码制，其余全部关闭
+     */
+    void applySymbologies(@NonNull ImageScanner scanner) {
+        if (null == mSymbologies) {
+            scanner.setConfig(0, Config.ENABLE, 1);
+            return;
+        }
+        scanner.setConfig(0, Config.ENABLE, 0);
+        for (int symbology : mSymbologies) {
+            scanner.setConfig(symbology, Config.ENABLE, 1);
+        }
+    }
+
+    static void applyDensity(@NonNull ImageScanner scanner, int density) {
+        scanner.setConfig(0, Config.X_DENSITY, density);
+        scanner.setConfig(0, Config.Y_DENSITY, density);
+    }
+}
@@ -0,0 +1,157 @@
+package lib.kalu.zbar.analyze;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import net.sourceforge.zbar.Format;
+import net.sourceforge.zbar.Image;
+import net.sourceforge.zbar.ImageScanner;
+import net.sourceforge.zbar.SymbolResult;
+
+import lib.kalu.zbar.util.LogUtil;
+
+/**
+ * @description: zbar 识别会话：持有唯一的 ImageScanner 与一个复用的 Image，逐帧只替换数据
+ * <p>
+ * ImageScanner 只有单例，destroy 后 peer 置 0 不能再用，所以会话从不销毁它，只在 release 时释放 Image、清空缓存
+ * 返回的 SymbolResult 是纯 Java 对象，会话释放后仍可读取
+ * 相机逐帧识别按 {@link ZbarConfig} 自适应扫描线密度
+ * @date: 2021-06-23 10:20
+ */
+public final class ZbarSession {
+
+    private final ImageScanner mScanner;
+    @Nullable
+    private Image mImage;
+    private int mWidth;
+    private int mHeight;
+    private boolean mCache;
+    @NonNull
+    private ZbarConfig mConfig = ZbarConfig.QRCODE;
+    // 当前扫描线间隔、连续未识别次数
+    private int mDensity;
+    private int mMisses;
+
+    private ZbarSession() {
+        mScanner = ImageScanner.getInstance();
+        mScanner.enableCache(false);
+        mConfig.applySymbologies(mScanner);
+        setDensity(mConfig.getSparse());
+    }
+
+    private static class Holder {
+        private static final ZbarSession instance = new ZbarSession();
+    }
+
+    public static ZbarSession getSession() {
+        return Holder.instance;
+    }
+
+    /**
+     * 切换识别的码制、扫描线密度，默认 {@link ZbarConfig#QRCODE}
+     */
+    public synchronized void setConfig(@NonNull ZbarConfig config) {
+        if (config == mConfig)
+            return;
+        mConfig = config;
+        mConfig.applySymbologies(mScanner);
+        mMisses = 0;
+        setDensity(mConfig.getSparse());
+    }
+
+    @NonNull
+    public synchronized ZbarConfig getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * @param data       灰度图像，逐行排列
+     * @param width      图像宽
+     * @param height     图像高
+     * @param left       识别区域
+     * @param top        识别区域
+     * @param cropWidth  识别区域
+     * @param cropHeight 识别区域
+     * @param cache      true 相机逐帧识别，开启帧间缓存，连续几帧一致才返回；false 单张图片
+     * @return 二维码，没有返回 null
+     */
+    @Nullable
+    public synchronized SymbolResult scan(@NonNull byte[] data, int width, int height, int left, int top, int cropWidth, int cropHeight, boolean cache) {
+
+        // 切换会清空缓存，只在相机、单张图片之间切换时调用
+        if (cache != mCache) {
+            mScanner.enableCache(cache);
+            mCache = cache;
+        }
+
+        if (null == mImage) {
+            mImage = new Image(Format.Y800);
+            mWidth = 0;
+            mHeight = 0;
+        }
+        if (width != mWidth || height != mHeight) {
+            mImage.setSize(width, height);
+            mWidth = width;
+            mHeight = height;
+        }
+        mImage.setCrop(left, top, cropWidth, cropHeight);
+        mImage.setData(data);
+
+        // 单张图片只有一次机会，按最密扫描
+        int density = mDensity;
+        if (!cache) {
+            setDensity(mConfig.getDense());
+        }
+
+        // 全部结果一次 native 调用拷出，不再逐个 Symbol 取值、销毁
+        SymbolResult result = null;
+        if (mScanner.scanImage(mImage) > 0) {
+            for (SymbolResult symbol : mScanner.getResultArray()) {
+                // 缓存开启时 count < 0 表示尚未确认
+                if (mConfig.accept(symbol.getType()) && symbol.getCount() >= 0 && symbol.getData().length() > 0) {
+                    result = symbol;
+                    break;
+                }
+            }
+        }
+
+        if (!cache) {
+            setDensity(density);
+        } else if (null != result) {
+            mMisses = 0;
+            setDensity(mConfig.getSparse());
+        } else if (++mMisses >= mConfig.getMisses() && mDensity > mConfig.getDense()) {
+            mMisses = 0;
+            setDensity(Math.max(mConfig.getDense(), mDensity / 2));
+        }
+
+        LogUtil.log("scan => cache = " + cache + ", density = " + mDensity + ", result = " + (null == result ? null : result.getData()));
+        return result;
+    }
+
+    private void setDensity(int density) {
+        if (density == mDensity)
+            return;
+        ZbarConfig.applyDensity(mScanner, density);
+        mDensity = density;
+    }
+
+    /**
+     * 释放复用的 Image、清空帧间缓存，下次 scan 重新创建
+     */
+    public synchronized void release() {
+
+        if (null != mImage) {
+            mImage.destroy();
+            mImage = null;
+        }
+
+        if (mCache) {
+            mScanner.enableCache(false);
+            mCache = false;
+        }
+
+        mMisses = 0;
+        setDensity(mConfig.getSparse());
+    }
+}
@@ -27,12 +27,13 @@ import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.FragmentActivity;
 
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import lib.kalu.zbar.analyze.AnalyzerQrcode;
+import lib.kalu.zbar.analyze.ZbarSession;
 import lib.kalu.zbar.impl.ICameraImpl;
 import lib.kalu.zbar.listener.OnCameraStatusChangeListener;
 import lib.kalu.zbar.sensor.LightSensorEventManager;
@@ -241,7 +242,7 @@ public final class CameraManager implements ICameraImpl {
 
         Context context = activity.getApplicationContext();
         AnalyzerQrcode analyzerQrcode = AnalyzerQrcode.getAnalyzer();
-        Symbol symbol = analyzerQrcode.analyzeImage(context, image, context.getResources().getConfiguration().orientation);
+        SymbolResult symbol = analyzerQrcode.analyzeImage(context, image, context.getResources().getConfiguration().orientation);
         if (null == symbol)
             return false;
 
@@ -268,7 +269,7 @@ public final class CameraManager implements ICameraImpl {
         return this;
     }
 
-    private boolean handleAutoZoom(@NonNull Activity activity, @Nullable Symbol result, float distance) {
+    private boolean handleAutoZoom(@NonNull Activity activity, @Nullable SymbolResult result, float distance) {
 
         Context context = activity.getApplicationContext();
         DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
@@ -400,6 +401,9 @@ public final class CameraManager implements ICameraImpl {
         // 光线传感器
         LightSensorEventManager.build().unregister();
 
+        // zbar 会话
+        ZbarSession.getSession().release();
+
         try {
             ListenableFuture<ProcessCameraProvider> instance = ProcessCameraProvider.getInstance(context);
             ProcessCameraProvider provider = instance.get();
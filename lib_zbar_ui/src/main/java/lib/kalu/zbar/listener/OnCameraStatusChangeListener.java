@@ -3,7 +3,7 @@ package lib.kalu.zbar.listener;
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 
-import net.sourceforge.zbar.Symbol;
+import net.sourceforge.zbar.SymbolResult;
 
 /**
  * @description:
@@ -17,7 +17,7 @@ public interface OnCameraStatusChangeListener {
      *
      * @param result
      */
-    void onResult(@NonNull Symbol result);
+    void onResult(@NonNull SymbolResult result);
 
     /**
      * 光线传感器
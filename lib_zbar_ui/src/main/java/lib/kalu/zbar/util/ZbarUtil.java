@@ -7,14 +7,12 @@ import android.net.Uri;
 
 import androidx.annotation.NonNull;
 
-import net.sourceforge.zbar.Format;
-import net.sourceforge.zbar.Image;
-import net.sourceforge.zbar.ImageScanner;
-import net.sourceforge.zbar.Symbol;
-import net.sourceforge.zbar.SymbolSet;
+import net.sourceforge.zbar.SymbolResult;
 
 import java.io.InputStream;
 
+import lib.kalu.zbar.analyze.ZbarSession;
+
 /**
  * @description:
  * @date: 2021-06-03 14:20
@@ -48,44 +46,7 @@ public final class ZbarUtil {
             bitmap.recycle();
         }
 
-        Image zbar = new Image(width, height, Format.Y800);
-        zbar.setData(bytes);
-        zbar.setCrop(0, 0, width, height);
-
-        String result = null;
-        SymbolSet symbolSet = null;
-        ImageScanner scanner = ImageScanner.getInstance();
-
-        int code = scanner.scanImage(zbar);
-        if (code != 0) {
-            symbolSet = scanner.getResults();
-            for (Symbol sym : symbolSet) {
-                if (sym.getType() == Symbol.QRCODE && null != sym.getData() && sym.getData().length() > 0) {
-                    result = sym.getData();
-                    break;
-                }
-            }
-        }
-
-        if (null != zbar) {
-            zbar.destroy();
-        }
-
-        if (null != symbolSet) {
-
-            for (Symbol symbol : symbolSet) {
-                if (null != symbol) {
-                    symbol.destroy();
-                }
-            }
-
-            symbolSet.destroy();
-        }
-
-        if (null != scanner) {
-            scanner.destroy();
-        }
-
-        return result;
+        SymbolResult symbol = ZbarSession.getSession().scan(bytes, width, height, 0, 0, width, height, false);
+        return null == symbol ? null : symbol.getData();
     }
 }
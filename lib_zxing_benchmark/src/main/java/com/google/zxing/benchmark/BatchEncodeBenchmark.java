@@ -0,0 +1,107 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.exception.WriterException;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.BatchEncoder;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 批量编码基准：1000 条 20-200 字节的内容，每模块 4 像素、静区 4 模块，分数为每秒码数
+ * <ul>
+ * <li>loop: 逐条 QRCodeWriter.encode，每条新建 BitMatrix、逐模块 setRegion</li>
+ * <li>batch: BatchEncoder，parallelism 个工作线程，工作区与图像复用，按序交给 sink</li>
+ * </ul>
+ * @date: 2021-06-19 10:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchEncodeBenchmark {
+
+    private static final int PAYLOADS = 1000;
+    private static final int MODULE_SIZE = 4;
+    private static final int QUIET_ZONE = 4;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    private List<String> payloads;
+    private int[] sizes;
+    private BatchEncoder batchEncoder;
+    private Map<EncodeHintType, Object> hints;
+
+    @Setup(Level.Trial)
+    public void setup() throws WriterException {
+        Random random = new Random(PAYLOADS);
+        payloads = new ArrayList<>(PAYLOADS);
+        for (int i = 0; i < PAYLOADS; i++) {
+            int length = 20 + random.nextInt(181);
+            StringBuilder builder = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            payloads.add(builder.toString());
+        }
+        // 按最终尺寸请求 QRCodeWriter，放大倍数才与 BatchEncoder 相同
+        sizes = new int[PAYLOADS];
+        for (int i = 0; i < PAYLOADS; i++) {
+            sizes[i] = (Encoder.encode(payloads.get(i), ErrorCorrectionLevel.M).getMatrix().getWidth() + 2 * QUIET_ZONE) * MODULE_SIZE;
+        }
+        batchEncoder = new BatchEncoder(ErrorCorrectionLevel.M, null, MODULE_SIZE, QUIET_ZONE, parallelism);
+        hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.MARGIN, QUIET_ZONE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOADS)
+    public long loop() throws WriterException {
+        QRCodeWriter writer = new QRCodeWriter();
+        long checksum = 0;
+        for (int i = 0; i < PAYLOADS; i++) {
+            checksum += writer.encode(payloads.get(i), sizes[i], sizes[i], hints).getWidth();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYLOADS)
+    public long batch() throws IOException {
+        final long[] checksum = new long[1];
+        batchEncoder.encode(payloads, new BatchEncoder.Sink() {
+            @Override
+            public void accept(int index, String contents, QRCode code, BitMatrix image) {
+                checksum[0] += image.getWidth();
+            }
+        });
+        return checksum[0];
+    }
+}
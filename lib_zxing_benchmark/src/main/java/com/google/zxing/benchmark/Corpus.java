@@ -0,0 +1,90 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @description: 基准测试用的灰度帧语料（gzip 压缩的 PGM/P5），由 {@link CorpusGenerator} 生成并随源码提交
+ * @date: 2021-06-08 10:12
+ */
+public final class Corpus {
+
+    /**
+     * 语料中的二维码内容
+     */
+    public static final String PAYLOAD = "https://github.com/153437803/zxing_lite?frame=benchmark&ticket=0123456789ABCDEF0123456789ABCDEF";
+
+    /**
+     * 语料中的二维码纠错等级
+     */
+    public static final ErrorCorrectionLevel EC_LEVEL = ErrorCorrectionLevel.M;
+
+    /**
+     * 语料分辨率，对应 corpus/qrcode_{resolution}.pgm.gz
+     */
+    public static final String[] RESOLUTIONS = {"640x480", "1280x720", "1920x1080"};
+
+    private Corpus() {
+    }
+
+    public static String fileName(String resolution) {
+        return "qrcode_" + resolution + ".pgm.gz";
+    }
+
+    public static Frame load(String resolution) throws IOException {
+        InputStream in = Corpus.class.getResourceAsStream("/corpus/" + fileName(resolution));
+        if (in == null) {
+            throw new IOException("Missing corpus frame: " + resolution);
+        }
+        try (DataInputStream data = new DataInputStream(new GZIPInputStream(in))) {
+            if (!"P5".equals(readToken(data))) {
+                throw new IOException("Not a binary PGM: " + resolution);
+            }
+            int width = Integer.parseInt(readToken(data));
+            int height = Integer.parseInt(readToken(data));
+            int maxValue = Integer.parseInt(readToken(data));
+            if (maxValue != 255) {
+                throw new IOException("Unsupported PGM max value: " + maxValue);
+            }
+            byte[] luminances = new byte[width * height];
+            data.readFully(luminances);
+            return new Frame(luminances, width, height);
+        }
+    }
+
+    private static String readToken(DataInputStream data) throws IOException {
+        ByteArrayOutputStream token = new ByteArrayOutputStream();
+        int c;
+        while ((c = data.read()) != -1) {
+            if (Character.isWhitespace(c)) {
+                if (token.size() > 0) {
+                    break;
+                }
+            } else {
+                token.write(c);
+            }
+        }
+        return token.toString("US-ASCII");
+    }
+
+    /**
+     * 单帧 Y 平面（无行填充）
+     */
+    public static final class Frame {
+
+        public final byte[] luminances;
+        public final int width;
+        public final int height;
+
+        Frame(byte[] luminances, int width, int height) {
+            this.luminances = luminances;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @description: 生成基准测试语料：模拟相机预览的 Y 平面（光照渐变、轻微旋转、噪声、模糊）
+ * @date: 2021-06-08 10:12
+ */
+public final class CorpusGenerator {
+
+    private static final long SEED = 0x5EED_2021L;
+
+    /**
+     * 二维码边长占短边的比例，与 AnalyzerQrcode.ratio() 的扫描框一致
+     */
+    private static final float CODE_RATIO = 0.45F;
+    private static final double ROTATION = Math.toRadians(7);
+    private static final int NOISE = 6;
+
+    private CorpusGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(args.length > 0 ? args[0] : "src/main/resources/corpus");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        for (String resolution : Corpus.RESOLUTIONS) {
+            String[] size = resolution.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            byte[] frame = render(width, height);
+            File file = new File(dir, Corpus.fileName(resolution));
+            try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+                out.write(("P5\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(frame);
+            }
+            System.out.println(file + " (" + file.length() + " bytes)");
+        }
+    }
+
+    static byte[] render(int width, int height) throws Exception {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, Corpus.EC_LEVEL);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 2);
+        int codeSize = (int) (Math.min(width, height) * CODE_RATIO);
+        BitMatrix code = new QRCodeWriter().encode(Corpus.PAYLOAD, codeSize, codeSize, hints);
+        int codeWidth = code.getWidth();
+        int codeHeight = code.getHeight();
+
+        Random random = new Random(SEED ^ ((long) width << 32 | height));
+        float cos = (float) Math.cos(ROTATION);
+        float sin = (float) Math.sin(ROTATION);
+        float centerX = width / 2f;
+        float centerY = height / 2f;
+
+        int[] plane = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // 左上暗、右下亮的光照渐变
+                float light = 0.75f + 0.35f * ((float) x / width + (float) y / height) / 2f;
+
+                // 反向旋转到二维码坐标系
+                float dx = x - centerX;
+                float dy = y - centerY;
+                int codeX = (int) (cos * dx + sin * dy + codeWidth / 2f);
+                int codeY = (int) (-sin * dx + cos * dy + codeHeight / 2f);
+
+                int value;
+                if (codeX >= 0 && codeX < codeWidth && codeY >= 0 && codeY < codeHeight) {
+                    value = code.get(codeX, codeY) ? 40 : 200;
+                } else {
+                    value = 150 + (((x >> 5) + (y >> 5)) & 1) * 20;
+                }
+                value = (int) (value * light) + random.nextInt(NOISE * 2 + 1) - NOISE;
+                plane[y * width + x] = value;
+            }
+        }
+
+        // 3x3 均值模糊，模拟对焦误差
+        byte[] frame = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int j = -1; j <= 1; j++) {
+                    int row = Math.min(Math.max(y + j, 0), height - 1) * width;
+                    for (int i = -1; i <= 1; i++) {
+                        sum += plane[row + Math.min(Math.max(x + i, 0), width - 1)];
+                    }
+                }
+                frame[y * width + x] = (byte) Math.min(Math.max(sum / 9, 0), 255);
+            }
+        }
+        return frame;
+    }
+}
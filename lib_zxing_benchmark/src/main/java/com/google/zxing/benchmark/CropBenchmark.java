@@ -0,0 +1,87 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.source.ByteBufferLuminanceSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import lib.kalu.frame.FrameCrop;
+
+/**
+ * @description: 整帧裁剪 + 旋转基准（不做图像增强）
+ * <ul>
+ * <li>loop: 旧实现，逐像素计算目标下标，竖屏时按列跨行写入</li>
+ * <li>luminanceSource: ByteBufferLuminanceSource.getMatrix，按列跨行读取</li>
+ * <li>tiled: FrameCrop 分块，输出缓冲复用</li>
+ * </ul>
+ * @date: 2021-06-11 10:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CropBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    @Param({"90", "0"})
+    public int rotation;
+
+    private Corpus.Frame frame;
+    private ByteBuffer buffer;
+    private byte[] out;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        frame = Corpus.load(resolution);
+        buffer = ByteBuffer.allocateDirect(frame.luminances.length);
+        buffer.put(frame.luminances);
+        out = new byte[frame.luminances.length];
+    }
+
+    @Benchmark
+    public byte[] loop() {
+        byte[] original = frame.luminances;
+        int width = frame.width;
+        int height = frame.height;
+        byte[] crop = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int indexData;
+                if (rotation == 90) {
+                    indexData = x * height + height - y - 1;
+                } else {
+                    indexData = x + y * width;
+                }
+                crop[indexData] = original[x + y * width];
+            }
+        }
+        return crop;
+    }
+
+    @Benchmark
+    public byte[] luminanceSource() {
+        return new ByteBufferLuminanceSource(buffer, frame.width, frame.height, frame.width, 1, 0, 0, frame.width, frame.height, rotation, out).getMatrix();
+    }
+
+    @Benchmark
+    public byte[] tiled() {
+        return FrameCrop.crop(buffer, frame.width, 1, 0, 0, frame.width, frame.height, rotation, null, out);
+    }
+}
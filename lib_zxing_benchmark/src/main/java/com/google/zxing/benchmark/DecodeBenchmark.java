@@ -0,0 +1,91 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.google.zxing.common.FrameBufferPool;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.source.ByteBufferLuminanceSource;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 端到端解码基准：一帧 Y 平面 -> HybridBinarizer -> Reader.decode
+ * <p>
+ * Throughput 给出 ops/s，SampleTime 给出 p99 延迟，配合 -prof gc 得到 gc.alloc.rate.norm（bytes/op）
+ * @date: 2021-06-08 10:12
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private Corpus.Frame frame;
+    private ByteBuffer buffer;
+    private QRCodeReader qrCodeReader;
+    private MultiFormatReader multiFormatReader;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        frame = Corpus.load(resolution);
+        buffer = ByteBuffer.allocateDirect(frame.luminances.length);
+        buffer.put(frame.luminances);
+        qrCodeReader = new QRCodeReader();
+        multiFormatReader = new MultiFormatReader();
+
+        // 语料损坏时尽早失败，而不是测出一组 NotFoundException 的耗时
+        Result result = qrCodeReader.decode(bitmap());
+        if (!Corpus.PAYLOAD.equals(result.getText())) {
+            throw new IllegalStateException("Unexpected corpus payload: " + result.getText());
+        }
+    }
+
+    private BinaryBitmap bitmap() {
+        return new BinaryBitmap(new HybridBinarizer(new PlanarYUVLuminanceSource(frame.luminances, frame.width, frame.height, 0, 0, frame.width, frame.height)));
+    }
+
+    @Benchmark
+    public Result qrCodeReader() throws Exception {
+        return qrCodeReader.decode(bitmap());
+    }
+
+    /**
+     * 与 qrCodeReader 相同，但在 FrameBufferPool 作用域内解码，对比 bytes/op
+     */
+    @Benchmark
+    public Result qrCodeReaderPooled() throws Exception {
+        FrameBufferPool pool = FrameBufferPool.begin(frame.width, frame.height);
+        try {
+            return qrCodeReader.decode(new BinaryBitmap(new HybridBinarizer(new ByteBufferLuminanceSource(buffer, frame.width, frame.height, frame.width, 1))));
+        } finally {
+            pool.end();
+        }
+    }
+
+    @Benchmark
+    public Result multiFormatReader() throws Exception {
+        return multiFormatReader.decode(bitmap());
+    }
+}
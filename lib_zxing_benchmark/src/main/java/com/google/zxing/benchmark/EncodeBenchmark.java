@@ -0,0 +1,89 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.exception.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 编码吞吐基准：内容按字节模式填满指定版本（纠错等级 M）
+ * <ul>
+ * <li>encode: Encoder.encode，8 种掩码中选惩罚最小者</li>
+ * <li>fixedMask: 通过 QR_MASK_PATTERN 指定掩码，不做掩码选择，二者之差即掩码选择耗时</li>
+ * </ul>
+ * @date: 2021-06-18 09:50
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodeBenchmark {
+
+    private static final ErrorCorrectionLevel EC_LEVEL = ErrorCorrectionLevel.M;
+
+    @Param({"1", "5", "10", "20", "30", "40"})
+    public int version;
+
+    private String content;
+    private Map<EncodeHintType, Object> hints;
+    private Map<EncodeHintType, Object> fixedMaskHints;
+
+    @Setup(Level.Trial)
+    public void setup() throws WriterException {
+        hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.QR_VERSION, version);
+
+        // 小写字母强制字节模式，从数据码字数往下找能放进该版本的最长内容
+        Random random = new Random(version);
+        Version qrVersion = Version.getVersionForNumber(version);
+        int length = qrVersion.getTotalCodewords() - qrVersion.getECBlocksForLevel(EC_LEVEL).getTotalECCodewords();
+        while (true) {
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            try {
+                Encoder.encode(builder.toString(), EC_LEVEL, hints);
+                content = builder.toString();
+                break;
+            } catch (WriterException e) {
+                length--;
+            }
+        }
+
+        fixedMaskHints = new EnumMap<>(hints);
+        fixedMaskHints.put(EncodeHintType.QR_MASK_PATTERN, Encoder.encode(content, EC_LEVEL, hints).getMaskPattern());
+    }
+
+    @Benchmark
+    public QRCode encode() throws WriterException {
+        return Encoder.encode(content, EC_LEVEL, hints);
+    }
+
+    @Benchmark
+    public QRCode fixedMask() throws WriterException {
+        return Encoder.encode(content, EC_LEVEL, fixedMaskHints);
+    }
+}
@@ -0,0 +1,105 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.common.FrameBufferPool;
+import com.google.zxing.source.ByteBufferLuminanceSource;
+import com.google.zxing.source.LuminancePreprocessor;
+import com.google.zxing.source.LuminanceSourceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 图像增强基准：竖屏（旋转 90°）整帧读取 + 增强
+ * <ul>
+ * <li>pow: 旧实现，逐像素 Math.pow + 随机线性增强</li>
+ * <li>table: LuminancePreprocessor 生成查表，读取时一并查表（含每帧建表、直方图统计的耗时）</li>
+ * </ul>
+ * @date: 2021-06-10 09:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private Corpus.Frame frame;
+    private ByteBuffer buffer;
+    private LuminanceSourceImpl rect;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        frame = Corpus.load(resolution);
+        buffer = ByteBuffer.allocateDirect(frame.luminances.length);
+        buffer.put(frame.luminances);
+        rect = new ByteBufferLuminanceSource(buffer, frame.width, frame.height, frame.width, 1, 0, 0, frame.width, frame.height, 90, null);
+    }
+
+    @State(Scope.Thread)
+    public static class Table {
+
+        @Param({"GAMMA_LINEAR", "GAMMA", "CONTRAST", "EQUALIZE"})
+        public String preprocessor;
+
+        LuminancePreprocessor value;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            value = (LuminancePreprocessor) LuminancePreprocessor.class.getField(preprocessor).get(null);
+        }
+    }
+
+    /**
+     * 旧实现：逐行读取后逐像素 Math.pow（伽马 + 线性增强）
+     */
+    @Benchmark
+    public byte[] pow() {
+        FrameBufferPool pool = FrameBufferPool.begin(frame.width, frame.height);
+        try {
+            int width = rect.getWidth();
+            int height = rect.getHeight();
+            byte[] crop = pool.borrowBytes(width * height);
+            short random = (short) (Math.random() * 4 + 3);
+            byte[] row = pool.borrowBytes(width);
+            for (int y = 0; y < height; y++) {
+                row = rect.getRow(y, row);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    byte b = (byte) (255 * Math.pow((row[x] & 0xff) / 255f, 4f));
+                    crop[offset + x] = (byte) (b * random);
+                }
+            }
+            return crop;
+        } finally {
+            pool.end();
+        }
+    }
+
+    @Benchmark
+    public byte[] table(Table table) {
+        FrameBufferPool pool = FrameBufferPool.begin(frame.width, frame.height);
+        try {
+            byte[] lut = table.value.table(rect);
+            return new ByteBufferLuminanceSource(buffer, frame.width, frame.height, frame.width, 1, 0, 0, frame.width, frame.height, 90, null, lut).getMatrix();
+        } finally {
+            pool.end();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonEncoder;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: Reed-Solomon 纠错基准：每次操作对版本 1-40 各纠错一个数据块（第一组块长）
+ * <ul>
+ * <li>errors: none 无错误（只算校验子），quarter / half 注入纠错能力 1/4、1/2 的错误</li>
+ * <li>api: decode(int[], int)，无错误时不分配，有错误时每块新建工作区</li>
+ * <li>scratch: decode(int[], int, int, Scratch)，工作区与码字缓冲复用</li>
+ * </ul>
+ * @date: 2021-06-17 10:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReedSolomonBenchmark {
+
+    @Param({"L", "M", "Q", "H"})
+    public String ecLevel;
+
+    @Param({"none", "quarter", "half"})
+    public String errors;
+
+    private ReedSolomonDecoder rsDecoder;
+    private ReedSolomonDecoder.Scratch rsScratch;
+    private int[][] received;
+    private int[][] work;
+    private int[] buffer;
+    private int[] ecCodewords;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rsDecoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
+        rsScratch = new ReedSolomonDecoder.Scratch();
+        ReedSolomonEncoder encoder = new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+        ErrorCorrectionLevel level = ErrorCorrectionLevel.valueOf(ecLevel);
+        Random random = new Random(level.ordinal());
+
+        received = new int[40][];
+        work = new int[40][];
+        ecCodewords = new int[40];
+        int longest = 0;
+        for (int v = 1; v <= 40; v++) {
+            Version.ECBlocks ecBlocks = Version.getVersionForNumber(v).getECBlocksForLevel(level);
+            int ecPerBlock = ecBlocks.getECCodewordsPerBlock();
+            int dataCodewords = ecBlocks.getECBlocks()[0].getDataCodewords();
+            int[] block = new int[dataCodewords + ecPerBlock];
+            for (int j = 0; j < dataCodewords; j++) {
+                block[j] = random.nextInt(256);
+            }
+            encoder.encode(block, ecPerBlock);
+
+            int count = "half".equals(errors) ? ecPerBlock / 2 : "quarter".equals(errors) ? ecPerBlock / 4 : 0;
+            boolean[] hit = new boolean[block.length];
+            for (int e = 0; e < count; e++) {
+                int position;
+                do {
+                    position = random.nextInt(block.length);
+                } while (hit[position]);
+                hit[position] = true;
+                block[position] ^= 1 + random.nextInt(255);
+            }
+
+            received[v - 1] = block;
+            work[v - 1] = new int[block.length];
+            ecCodewords[v - 1] = ecPerBlock;
+            longest = Math.max(longest, block.length);
+        }
+        buffer = new int[longest];
+    }
+
+    @Benchmark
+    public int[][] api() throws Exception {
+        for (int i = 0; i < received.length; i++) {
+            System.arraycopy(received[i], 0, work[i], 0, received[i].length);
+            rsDecoder.decode(work[i], ecCodewords[i]);
+        }
+        return work;
+    }
+
+    @Benchmark
+    public int[] scratch() throws Exception {
+        for (int i = 0; i < received.length; i++) {
+            System.arraycopy(received[i], 0, buffer, 0, received[i].length);
+            rsDecoder.decode(buffer, received[i].length, ecCodewords[i], rsScratch);
+        }
+        return buffer;
+    }
+}
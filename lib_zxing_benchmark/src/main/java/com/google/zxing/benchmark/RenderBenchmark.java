@@ -0,0 +1,102 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.exception.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCodeRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 二维码渲染基准：放大到约 1000x1000 像素、四边 MARGIN 像素边距，只计渲染不计编码
+ * <ul>
+ * <li>bitMatrixGet: 原 QrcodePlusWriter 路径，逐模块 setRegion 生成 BitMatrix，再逐像素 get(x, y) 填 int[]</li>
+ * <li>argb: QRCodeRenderer.toArgb，按模块行整段填充再整行复制</li>
+ * <li>packed: QRCodeRenderer.toPacked，1 位打包行</li>
+ * </ul>
+ * @date: 2021-06-21 10:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    private static final int SIZE = 1000;
+    private static final int MARGIN = 20;
+
+    @Param({"1", "10", "40"})
+    public int version;
+
+    private ByteMatrix matrix;
+    private int multiple;
+    private int[] pixels;
+    private byte[] packed;
+
+    @Setup(Level.Trial)
+    public void setup() throws WriterException {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.QR_VERSION, version);
+        matrix = Encoder.encode("0123456789", ErrorCorrectionLevel.M, hints).getMatrix();
+        multiple = SIZE / matrix.getWidth();
+        int width = QRCodeRenderer.getWidth(matrix, multiple, MARGIN, MARGIN);
+        pixels = new int[width * width];
+        packed = new byte[(width + 7) / 8 * width];
+    }
+
+    @Benchmark
+    public int[] bitMatrixGet() {
+        int inputWidth = matrix.getWidth();
+        int outputWidth = inputWidth * multiple + 2 * MARGIN;
+        BitMatrix output = new BitMatrix(outputWidth, outputWidth);
+        for (int inputY = 0, outputY = MARGIN; inputY < inputWidth; inputY++, outputY += multiple) {
+            for (int inputX = 0, outputX = MARGIN; inputX < inputWidth; inputX++, outputX += multiple) {
+                if (matrix.get(inputX, inputY) == 1) {
+                    output.setRegion(outputX, outputY, multiple, multiple);
+                }
+            }
+        }
+        int[] out = new int[outputWidth * outputWidth];
+        for (int y = 0; y < outputWidth; y++) {
+            for (int x = 0; x < outputWidth; x++) {
+                out[y * outputWidth + x] = output.get(x, y) ? 0xff000000 : 0xffffffff;
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int[] argb() {
+        return QRCodeRenderer.toArgb(matrix, multiple, MARGIN, MARGIN, MARGIN, MARGIN, 0xff000000, 0xffffffff, null);
+    }
+
+    @Benchmark
+    public int[] argbReuse() {
+        return QRCodeRenderer.toArgb(matrix, multiple, MARGIN, MARGIN, MARGIN, MARGIN, 0xff000000, 0xffffffff, pixels);
+    }
+
+    @Benchmark
+    public byte[] packed() {
+        return QRCodeRenderer.toPacked(matrix, multiple, MARGIN, MARGIN, MARGIN, MARGIN, packed);
+    }
+}
@@ -0,0 +1,168 @@
+package com.google.zxing.benchmark;
+
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.DecoderResult;
+import com.google.zxing.common.DetectorResult;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonEncoder;
+import com.google.zxing.exception.FormatException;
+import com.google.zxing.exception.NotFoundException;
+import com.google.zxing.qrcode.decoder.Decoder;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.detector.Detector;
+import com.google.zxing.qrcode.detector.FinderPattern;
+import com.google.zxing.qrcode.detector.FinderPatternInfo;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description: 分阶段解码基准，每个阶段的输入都在 setup 中由上一阶段预先算好
+ * <ul>
+ * <li>binarize: HybridBinarizer.getBlackMatrix</li>
+ * <li>detect: Detector.detect（定位 + 采样）</li>
+ * <li>sample: 已知定位点时的对齐点查找、透视变换与网格采样</li>
+ * <li>rsCorrect: 按语料版本/纠错等级分块，每块注入 1/4 纠错能力的错误后做 Reed-Solomon 纠错</li>
+ * <li>decodeBits: Decoder.decode（复制采样矩阵、读取码字、无错误时的校验子检查、比特流解析）</li>
+ * </ul>
+ * @date: 2021-06-08 10:12
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    private PlanarYUVLuminanceSource source;
+    private BitMatrix blackMatrix;
+    private FinderPatternInfo finderPatternInfo;
+    private BitMatrix bits;
+
+    private ReedSolomonDecoder rsDecoder;
+    private int[][] received;
+    private int[][] scratch;
+    private int[] ecCodewords;
+
+    private Decoder decoder;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus.Frame frame = Corpus.load(resolution);
+        source = new PlanarYUVLuminanceSource(frame.luminances, frame.width, frame.height, 0, 0, frame.width, frame.height);
+        blackMatrix = new HybridBinarizer(source).getBlackMatrix();
+
+        DetectorResult detectorResult = new Detector(blackMatrix).detect();
+        ResultPoint[] points = detectorResult.getPoints();
+        finderPatternInfo = new FinderPatternInfo(new FinderPattern[]{(FinderPattern) points[0], (FinderPattern) points[1], (FinderPattern) points[2]});
+        bits = detectorResult.getBits();
+
+        decoder = new Decoder();
+        DecoderResult decoderResult = decoder.decode(bits.clone());
+        if (!Corpus.PAYLOAD.equals(decoderResult.getText())) {
+            throw new IllegalStateException("Unexpected corpus payload: " + decoderResult.getText());
+        }
+
+        setupReedSolomon(Version.getProvisionalVersionForDimension(bits.getHeight()));
+    }
+
+    private void setupReedSolomon(Version version) {
+        rsDecoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
+        ReedSolomonEncoder encoder = new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+        Version.ECBlocks ecBlocks = version.getECBlocksForLevel(Corpus.EC_LEVEL);
+        int ecPerBlock = ecBlocks.getECCodewordsPerBlock();
+        Random random = new Random(version.getVersionNumber());
+
+        List<int[]> blocks = new ArrayList<>();
+        for (Version.ECB ecb : ecBlocks.getECBlocks()) {
+            for (int i = 0; i < ecb.getCount(); i++) {
+                int[] block = new int[ecb.getDataCodewords() + ecPerBlock];
+                for (int j = 0; j < ecb.getDataCodewords(); j++) {
+                    block[j] = random.nextInt(256);
+                }
+                encoder.encode(block, ecPerBlock);
+                for (int e = 0; e < ecPerBlock / 4; e++) {
+                    int position = random.nextInt(block.length);
+                    block[position] ^= 1 + random.nextInt(255);
+                }
+                blocks.add(block);
+            }
+        }
+        received = blocks.toArray(new int[0][]);
+        scratch = new int[received.length][];
+        ecCodewords = new int[received.length];
+        for (int i = 0; i < received.length; i++) {
+            scratch[i] = new int[received[i].length];
+            ecCodewords[i] = ecPerBlock;
+        }
+    }
+
+    @Benchmark
+    public BitMatrix binarize() throws NotFoundException {
+        return new HybridBinarizer(source).getBlackMatrix();
+    }
+
+    @Benchmark
+    public DetectorResult detect() throws NotFoundException, FormatException {
+        return new Detector(blackMatrix).detect();
+    }
+
+    @Benchmark
+    public DetectorResult sample() throws NotFoundException, FormatException {
+        return new SampleDetector(blackMatrix).sample(finderPatternInfo);
+    }
+
+    @Benchmark
+    public int[][] rsCorrect() throws Exception {
+        for (int i = 0; i < received.length; i++) {
+            System.arraycopy(received[i], 0, scratch[i], 0, received[i].length);
+            rsDecoder.decode(scratch[i], ecCodewords[i]);
+        }
+        return scratch;
+    }
+
+    /**
+     * BitMatrixParser 会原地去掩码，所以每次都在副本上解码
+     */
+    @Benchmark
+    public DecoderResult decodeBits() throws Exception {
+        return decoder.decode(bits.clone());
+    }
+
+    /**
+     * 暴露 {@link Detector#processFinderPatternInfo(FinderPatternInfo)}，以便单独测量采样阶段
+     */
+    private static final class SampleDetector extends Detector {
+
+        SampleDetector(BitMatrix image) {
+            super(image);
+        }
+
+        DetectorResult sample(FinderPatternInfo info) throws NotFoundException, FormatException {
+            return processFinderPatternInfo(info);
+        }
+    }
+}
@@ -65,6 +65,28 @@ public final class BitMatrix implements Cloneable {
         bits = new int[rowSize * height];
     }
 
+    /**
+     * Creates an empty {@code BitMatrix} whose storage is borrowed from the calling thread's
+     * {@link FrameBufferPool} when a frame scope is open, so it must not outlive that scope.
+     *
+     * @param width  bit matrix width
+     * @param height bit matrix height
+     * @return an empty matrix
+     */
+    static BitMatrix createPooled(int width, int height) {
+        FrameBufferPool pool = FrameBufferPool.current();
+        if (pool == null) {
+            return new BitMatrix(width, height);
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Both dimensions must be greater than 0");
+        }
+        int rowSize = (width + 31) / 32;
+        int[] bits = pool.borrowInts(rowSize * height);
+        Arrays.fill(bits, 0);
+        return new BitMatrix(width, height, rowSize, bits);
+    }
+
     private BitMatrix(int width, int height, int rowSize, int[] bits) {
         this.width = width;
         this.height = height;
@@ -48,10 +48,25 @@ public final class DefaultGridSampler extends GridSampler {
                                 int dimensionX,
                                 int dimensionY,
                                 PerspectiveTransform transform) throws NotFoundException {
+        return sampleGrid(image, dimensionX, dimensionY, transform, null);
+    }
+
+    @Override
+    public BitMatrix sampleGrid(BitMatrix image,
+                                int dimensionX,
+                                int dimensionY,
+                                PerspectiveTransform transform,
+                                BitMatrix reuse) throws NotFoundException {
         if (dimensionX <= 0 || dimensionY <= 0) {
             throw NotFoundException.getNotFoundInstance();
         }
-        BitMatrix bits = new BitMatrix(dimensionX, dimensionY);
+        BitMatrix bits;
+        if (reuse != null && reuse.getWidth() == dimensionX && reuse.getHeight() == dimensionY) {
+            bits = reuse;
+            bits.clear();
+        } else {
+            bits = new BitMatrix(dimensionX, dimensionY);
+        }
         float[] points = new float[2 * dimensionX];
         for (int y = 0; y < dimensionY; y++) {
             int max = points.length;
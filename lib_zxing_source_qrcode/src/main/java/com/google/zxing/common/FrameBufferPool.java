@@ -0,0 +1,255 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A per-thread pool of the large scratch arrays needed to decode one camera frame: the cropped
+ * luminance plane, the binarizer's luminance row, histogram buckets and block black points, and the
+ * storage behind the binarized {@link BitMatrix}.</p>
+ *
+ * <p>A frame is decoded between {@link #begin(int, int)} and {@link #end()} on the same thread. Inside
+ * that scope, {@link #current()} returns the pool and library code borrows from it; outside of it
+ * {@link #current()} returns null and callers simply allocate. {@link #end()} takes every array
+ * borrowed during the frame back, so nothing borrowed may be used after it, including the
+ * {@link BitMatrix} cached by a binarizer. Decoded {@link com.google.zxing.Result}s never reference
+ * pooled storage.</p>
+ *
+ * <p>Arrays are matched by exact length, which makes every frame after the first a hit as long as the
+ * analysis resolution does not change. Retained storage is bounded to {@link #CAPACITY_FRAMES} times
+ * the frame size. Arrays that do not fit are dropped at {@link #end()}. {@link #clear()} drops the storage
+ * retained by every thread's pool, so it can be called from whichever thread tears the camera down.</p>
+ */
+public final class FrameBufferPool {
+
+    /**
+     * Retained storage, in multiples of one luminance frame.
+     */
+    private static final int CAPACITY_FRAMES = 3;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong DROPS = new AtomicLong();
+
+    /**
+     * Bumped by {@link #clear()}; a frame scope opened before the bump retains nothing at its {@link #end()}.
+     */
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    /**
+     * Every thread's pool, so {@link #clear()} can reach them. A pool goes away with its thread.
+     */
+    private static final List<WeakReference<FrameBufferPool>> ALL = new ArrayList<>();
+
+    private static final ThreadLocal<FrameBufferPool> POOLS = new ThreadLocal<FrameBufferPool>() {
+        @Override
+        protected FrameBufferPool initialValue() {
+            FrameBufferPool pool = new FrameBufferPool();
+            synchronized (ALL) {
+                ALL.add(new WeakReference<>(pool));
+            }
+            return pool;
+        }
+    };
+
+    private final List<byte[]> freeBytes = new ArrayList<>();
+    private final List<byte[]> borrowedBytes = new ArrayList<>();
+    private final List<int[]> freeInts = new ArrayList<>();
+    private final List<int[]> borrowedInts = new ArrayList<>();
+
+    private long capacity;
+    private long retained;
+    private int depth;
+    private int generation;
+
+    private FrameBufferPool() {
+    }
+
+    /**
+     * Opens a frame scope on the calling thread. Scopes nest; only the outermost {@link #end()}
+     * returns the borrowed arrays.
+     *
+     * @param frameWidth  analysis frame width, used to bound retained storage
+     * @param frameHeight analysis frame height, used to bound retained storage
+     * @return the calling thread's pool
+     */
+    public static FrameBufferPool begin(int frameWidth, int frameHeight) {
+        FrameBufferPool pool = POOLS.get();
+        if (pool.depth++ == 0) {
+            synchronized (pool) {
+                pool.generation = GENERATION.get();
+                pool.resize((long) frameWidth * frameHeight * CAPACITY_FRAMES);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return the calling thread's pool if a frame scope is open, null otherwise
+     */
+    public static FrameBufferPool current() {
+        FrameBufferPool pool = POOLS.get();
+        return pool.depth > 0 ? pool : null;
+    }
+
+    /**
+     * Closes the frame scope opened by {@link #begin(int, int)} and takes back everything borrowed in it.
+     */
+    public synchronized void end() {
+        if (depth == 0) {
+            throw new IllegalStateException("FrameBufferPool.end() without begin()");
+        }
+        if (--depth > 0) {
+            return;
+        }
+        if (generation != GENERATION.get()) {
+            // Cleared while this frame was being decoded.
+            borrowedBytes.clear();
+            borrowedInts.clear();
+            return;
+        }
+        for (byte[] array : borrowedBytes) {
+            if (retained + array.length <= capacity) {
+                freeBytes.add(array);
+                retained += array.length;
+            } else {
+                DROPS.incrementAndGet();
+            }
+        }
+        borrowedBytes.clear();
+        for (int[] array : borrowedInts) {
+            if (retained + 4L * array.length <= capacity) {
+                freeInts.add(array);
+                retained += 4L * array.length;
+            } else {
+                DROPS.incrementAndGet();
+            }
+        }
+        borrowedInts.clear();
+    }
+
+    /**
+     * @param length exact length required
+     * @return an array of {@code length} bytes with undefined content
+     */
+    public synchronized byte[] borrowBytes(int length) {
+        byte[] array = null;
+        for (int i = freeBytes.size() - 1; i >= 0; i--) {
+            if (freeBytes.get(i).length == length) {
+                array = freeBytes.remove(i);
+                retained -= length;
+                break;
+            }
+        }
+        if (array == null) {
+            MISSES.incrementAndGet();
+            array = new byte[length];
+        } else {
+            HITS.incrementAndGet();
+        }
+        borrowedBytes.add(array);
+        return array;
+    }
+
+    /**
+     * @param length exact length required
+     * @return an array of {@code length} ints with undefined content
+     */
+    public synchronized int[] borrowInts(int length) {
+        int[] array = null;
+        for (int i = freeInts.size() - 1; i >= 0; i--) {
+            if (freeInts.get(i).length == length) {
+                array = freeInts.remove(i);
+                retained -= 4L * length;
+                break;
+            }
+        }
+        if (array == null) {
+            MISSES.incrementAndGet();
+            array = new int[length];
+        } else {
+            HITS.incrementAndGet();
+        }
+        borrowedInts.add(array);
+        return array;
+    }
+
+    /**
+     * Drops everything retained by every thread's pool, e.g. when the camera is released. Arrays borrowed
+     * by a frame still being decoded are not taken back at its {@link #end()}.
+     */
+    public static void clear() {
+        GENERATION.incrementAndGet();
+        synchronized (ALL) {
+            for (Iterator<WeakReference<FrameBufferPool>> it = ALL.iterator(); it.hasNext(); ) {
+                FrameBufferPool pool = it.next().get();
+                if (pool == null) {
+                    it.remove();
+                    continue;
+                }
+                synchronized (pool) {
+                    pool.freeBytes.clear();
+                    pool.freeInts.clear();
+                    pool.retained = 0;
+                }
+            }
+        }
+    }
+
+    private void resize(long capacity) {
+        this.capacity = capacity;
+        if (retained > capacity) {
+            // The analysis resolution changed; the retained sizes will not match any more.
+            freeBytes.clear();
+            freeInts.clear();
+            retained = 0;
+        }
+    }
+
+    /**
+     * @return number of borrows served from a pool, across all threads
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * @return number of borrows that had to allocate, across all threads
+     */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * @return number of arrays not retained because a pool was full, across all threads
+     */
+    public static long getDropCount() {
+        return DROPS.get();
+    }
+
+    public static void resetCounters() {
+        HITS.set(0);
+        MISSES.set(0);
+        DROPS.set(0);
+    }
+}
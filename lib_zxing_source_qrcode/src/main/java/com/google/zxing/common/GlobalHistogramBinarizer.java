@@ -44,7 +44,8 @@ public class GlobalHistogramBinarizer extends Binarizer {
     public GlobalHistogramBinarizer(LuminanceSourceImpl source) {
         super(source);
         luminances = EMPTY;
-        buckets = new int[LUMINANCE_BUCKETS];
+        FrameBufferPool pool = FrameBufferPool.current();
+        buckets = pool != null ? pool.borrowInts(LUMINANCE_BUCKETS) : new int[LUMINANCE_BUCKETS];
     }
 
     // Applies simple sharpening to the row data to improve performance of the 1D Readers.
@@ -95,7 +96,7 @@ public class GlobalHistogramBinarizer extends Binarizer {
         LuminanceSourceImpl source = getLuminanceSource();
         int width = source.getWidth();
         int height = source.getHeight();
-        BitMatrix matrix = new BitMatrix(width, height);
+        BitMatrix matrix = BitMatrix.createPooled(width, height);
 
         // Quickly calculates the histogram by sampling four rows from the image. This proved to be
         // more robust on the blackbox tests than sampling a diagonal as we used to do.
@@ -136,7 +137,8 @@ public class GlobalHistogramBinarizer extends Binarizer {
 
     private void initArrays(int luminanceSize) {
         if (luminances.length < luminanceSize) {
-            luminances = new byte[luminanceSize];
+            FrameBufferPool pool = FrameBufferPool.current();
+            luminances = pool != null ? pool.borrowBytes(luminanceSize) : new byte[luminanceSize];
         }
         for (int x = 0; x < LUMINANCE_BUCKETS; x++) {
             buckets[x] = 0;
@@ -101,6 +101,23 @@ public abstract class GridSampler {
                                          int dimensionY,
                                          PerspectiveTransform transform) throws NotFoundException;
 
+    /**
+     * Like {@link #sampleGrid(BitMatrix, int, int, PerspectiveTransform)}, but may clear and sample
+     * into {@code reuse} when it has the requested dimensions instead of allocating a new matrix.
+     * The default implementation ignores {@code reuse}.
+     *
+     * @param reuse matrix from a previous call, or null
+     * @return {@code reuse} or a new {@link BitMatrix}
+     * @throws NotFoundException if image can't be sampled
+     */
+    public BitMatrix sampleGrid(BitMatrix image,
+                                int dimensionX,
+                                int dimensionY,
+                                PerspectiveTransform transform,
+                                BitMatrix reuse) throws NotFoundException {
+        return sampleGrid(image, dimensionX, dimensionY, transform);
+    }
+
     /**
      * <p>Checks a set of points that have been transformed to sample points on an image against
      * the image's dimensions to see if the point are even within the image.</p>
@@ -76,9 +76,9 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
             if ((height & BLOCK_SIZE_MASK) != 0) {
                 subHeight++;
             }
-            int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
+            int[] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
 
-            BitMatrix newMatrix = new BitMatrix(width, height);
+            BitMatrix newMatrix = BitMatrix.createPooled(width, height);
             calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, newMatrix);
             matrix = newMatrix;
         } else {
@@ -103,7 +103,7 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
                                                    int subHeight,
                                                    int width,
                                                    int height,
-                                                   int[][] blackPoints,
+                                                   int[] blackPoints,
                                                    BitMatrix matrix) {
         int maxYOffset = height - BLOCK_SIZE;
         int maxXOffset = width - BLOCK_SIZE;
@@ -121,8 +121,8 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
                 int left = cap(x, subWidth - 3);
                 int sum = 0;
                 for (int z = -2; z <= 2; z++) {
-                    int[] blackRow = blackPoints[top + z];
-                    sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
+                    int blackRow = (top + z) * subWidth + left;
+                    sum += blackPoints[blackRow - 2] + blackPoints[blackRow - 1] + blackPoints[blackRow] + blackPoints[blackRow + 1] + blackPoints[blackRow + 2];
                 }
                 int average = sum / 25;
                 thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
@@ -158,14 +158,17 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
      * See the following thread for a discussion of this algorithm:
      * http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
      */
-    private static int[][] calculateBlackPoints(byte[] luminances,
+    private static int[] calculateBlackPoints(byte[] luminances,
                                                 int subWidth,
                                                 int subHeight,
                                                 int width,
                                                 int height) {
         int maxYOffset = height - BLOCK_SIZE;
         int maxXOffset = width - BLOCK_SIZE;
-        int[][] blackPoints = new int[subHeight][subWidth];
+        // Black points are stored row-major in a flat array so that it can be borrowed from the pool.
+        // Every entry is written before it is read, so a recycled array needs no clearing.
+        FrameBufferPool pool = FrameBufferPool.current();
+        int[] blackPoints = pool != null ? pool.borrowInts(subWidth * subHeight) : new int[subWidth * subHeight];
         for (int y = 0; y < subHeight; y++) {
             int yoffset = y << BLOCK_SIZE_POWER;
             if (yoffset > maxYOffset) {
@@ -222,13 +225,13 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
 
                         // The (min < bp) is arbitrary but works better than other heuristics that were tried.
                         int averageNeighborBlackPoint =
-                                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+                                (blackPoints[(y - 1) * subWidth + x] + (2 * blackPoints[y * subWidth + x - 1]) + blackPoints[(y - 1) * subWidth + x - 1]) / 4;
                         if (min < averageNeighborBlackPoint) {
                             average = averageNeighborBlackPoint;
                         }
                     }
                 }
-                blackPoints[y][x] = average;
+                blackPoints[y * subWidth + x] = average;
             }
         }
         return blackPoints;
@@ -34,6 +34,11 @@ package com.google.zxing.common.reedsolomon;
  * <p>Much credit is due to William Rucklidge since portions of this code are an indirect
  * port of his C++ Reed-Solomon implementation.</p>
  *
+ * <p>Polynomials are kept in primitive arrays owned by a {@link Scratch}, lowest degree first,
+ * with their degree tracked separately (-1 for the zero polynomial). A received word whose
+ * syndromes are all zero is accepted without allocating anything. Instances are stateless and
+ * may be shared; a {@link Scratch} may not.</p>
+ *
  * @author Sean Owen
  * @author William Rucklidge
  * @author sanfordsquires
@@ -41,9 +46,21 @@ package com.google.zxing.common.reedsolomon;
 public final class ReedSolomonDecoder {
 
     private final GenericGF field;
+    // exp table repeated twice, so a product needs no modulo: a * b = exp[log a + log b]
+    private final int[] expTable;
+    private final int[] logTable;
 
     public ReedSolomonDecoder(GenericGF field) {
         this.field = field;
+        int size = field.getSize();
+        this.expTable = new int[2 * size];
+        this.logTable = new int[size];
+        for (int i = 0; i < 2 * size; i++) {
+            expTable[i] = field.exp(i % (size - 1));
+        }
+        for (int i = 1; i < size; i++) {
+            logTable[i] = field.log(i);
+        }
     }
 
     /**
@@ -51,105 +68,176 @@ public final class ReedSolomonDecoder {
      * codewords. Really, this means it uses Reed-Solomon to detect and correct errors, in-place,
      * in the input.</p>
      *
+     * <p>Scratch storage is only allocated when the word has errors. Callers decoding many words
+     * should use {@link #decode(int[], int, int, Scratch)}.</p>
+     *
      * @param received data and error-correction codewords
      * @param twoS     number of error-correction codewords available
      * @throws ReedSolomonException if decoding fails for any reason
      */
     public void decode(int[] received, int twoS) throws ReedSolomonException {
-        GenericGFPoly poly = new GenericGFPoly(field, received);
-        int[] syndromeCoefficients = new int[twoS];
-        boolean noError = true;
+        decode(received, received.length, twoS, null);
+    }
+
+    /**
+     * <p>Decodes the first {@code length} codewords of {@code received} in-place, working in
+     * {@code scratch}.</p>
+     *
+     * @param received data and error-correction codewords, followed by unused entries
+     * @param length   number of codewords in {@code received}
+     * @param twoS     number of error-correction codewords available
+     * @param scratch  working storage, or null to allocate one if the word has errors
+     * @throws ReedSolomonException if decoding fails for any reason
+     */
+    public void decode(int[] received, int length, int twoS, Scratch scratch) throws ReedSolomonException {
+        if (length <= 0 || length > received.length) {
+            throw new IllegalArgumentException("Bad codeword count: " + length);
+        }
+
+        // Syndromes S_i = received(a^(i + base)); storage is only touched once one is non-zero
+        int[] syndrome = null;
         for (int i = 0; i < twoS; i++) {
-            int eval = poly.evaluateAt(field.exp(i + field.getGeneratorBase()));
-            syndromeCoefficients[syndromeCoefficients.length - 1 - i] = eval;
-            if (eval != 0) {
-                noError = false;
+            int eval = evaluateReceived(received, length, field.exp(i + field.getGeneratorBase()));
+            if (eval == 0 && syndrome == null) {
+                continue;
             }
+            if (syndrome == null) {
+                if (scratch == null) {
+                    scratch = new Scratch();
+                }
+                scratch.ensure(twoS);
+                syndrome = scratch.syndrome;
+                for (int j = 0; j < i; j++) {
+                    syndrome[j] = 0;
+                }
+            }
+            syndrome[i] = eval;
         }
-        if (noError) {
+        if (syndrome == null) {
             return;
         }
-        GenericGFPoly syndrome = new GenericGFPoly(field, syndromeCoefficients);
-        GenericGFPoly[] sigmaOmega =
-                runEuclideanAlgorithm(field.buildMonomial(twoS, 1), syndrome, twoS);
-        GenericGFPoly sigma = sigmaOmega[0];
-        GenericGFPoly omega = sigmaOmega[1];
-        int[] errorLocations = findErrorLocations(sigma);
-        int[] errorMagnitudes = findErrorMagnitudes(omega, errorLocations);
-        for (int i = 0; i < errorLocations.length; i++) {
-            int position = received.length - 1 - field.log(errorLocations[i]);
+
+        int numErrors = runEuclideanAlgorithm(syndrome, twoS, scratch);
+        findErrorLocations(scratch.sigma, numErrors, scratch.errorLocations);
+        findErrorMagnitudes(scratch.omega, scratch.omegaDegree, scratch.errorLocations, numErrors, scratch.errorMagnitudes);
+        for (int i = 0; i < numErrors; i++) {
+            int position = length - 1 - field.log(scratch.errorLocations[i]);
             if (position < 0) {
                 throw new ReedSolomonException("Bad error location");
             }
-            received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
+            received[position] = GenericGF.addOrSubtract(received[position], scratch.errorMagnitudes[i]);
         }
     }
 
-    private GenericGFPoly[] runEuclideanAlgorithm(GenericGFPoly a, GenericGFPoly b, int R)
-            throws ReedSolomonException {
-        // Assume a's degree is >= b's
-        if (a.getDegree() < b.getDegree()) {
-            GenericGFPoly temp = a;
-            a = b;
-            b = temp;
-        }
+    /**
+     * Runs the Euclidean algorithm on x^R and the syndrome polynomial. Leaves the normalized error
+     * locator in {@code scratch.sigma} and the error evaluator in {@code scratch.omega}.
+     *
+     * @return degree of the error locator, i.e. the number of errors
+     */
+    private int runEuclideanAlgorithm(int[] syndrome, int R, Scratch scratch) throws ReedSolomonException {
+        int[] rLast = scratch.r0;
+        int[] r = scratch.r1;
+        int[] rSpare = scratch.r2;
+        int[] tLast = scratch.t0;
+        int[] t = scratch.t1;
+        int[] tSpare = scratch.t2;
+        int[] q = scratch.q;
 
-        GenericGFPoly rLast = a;
-        GenericGFPoly r = b;
-        GenericGFPoly tLast = field.getZero();
-        GenericGFPoly t = field.getOne();
+        // rLast = x^R, r = syndrome, tLast = 0, t = 1
+        clear(rLast, R);
+        rLast[R] = 1;
+        int rLastDegree = R;
+        System.arraycopy(syndrome, 0, r, 0, R);
+        int rDegree = degree(r, R - 1);
+        int tLastDegree = -1;
+        t[0] = 1;
+        int tDegree = 0;
 
-        // Run Euclidean algorithm until r's degree is less than R/2
-        while (r.getDegree() >= R / 2) {
-            GenericGFPoly rLastLast = rLast;
-            GenericGFPoly tLastLast = tLast;
-            rLast = r;
-            tLast = t;
-
-            // Divide rLastLast by rLast, with quotient in q and remainder in r
-            if (rLast.isZero()) {
+        // Run Euclidean algorithm until r's degree is less than R/2 (the zero polynomial counts as degree 0)
+        while (Math.max(rDegree, 0) >= R / 2) {
+            if (rDegree < 0) {
                 // Oops, Euclidean algorithm already terminated?
                 throw new ReedSolomonException("r_{i-1} was zero");
             }
-            r = rLastLast;
-            GenericGFPoly q = field.getZero();
-            int denominatorLeadingTerm = rLast.getCoefficient(rLast.getDegree());
-            int dltInverse = field.inverse(denominatorLeadingTerm);
-            while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
-                int degreeDiff = r.getDegree() - rLast.getDegree();
-                int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
-                q = q.addOrSubtract(field.buildMonomial(degreeDiff, scale));
-                r = r.addOrSubtract(rLast.multiplyByMonomial(degreeDiff, scale));
-            }
 
-            t = q.multiply(tLast).addOrSubtract(tLastLast);
+            // Divide rLast by r: quotient in q, remainder in rSpare
+            System.arraycopy(rLast, 0, rSpare, 0, rLastDegree + 1);
+            int remainderDegree = rLastDegree;
+            int qDegree = remainderDegree - rDegree;
+            clear(q, qDegree);
+            int dltInverse = field.inverse(r[rDegree]);
+            while (remainderDegree >= rDegree) {
+                int degreeDiff = remainderDegree - rDegree;
+                int scale = multiply(rSpare[remainderDegree], dltInverse);
+                q[degreeDiff] ^= scale;
+                for (int i = 0; i <= rDegree; i++) {
+                    rSpare[i + degreeDiff] ^= multiply(r[i], scale);
+                }
+                remainderDegree = degree(rSpare, remainderDegree - 1);
+            }
 
-            if (r.getDegree() >= rLast.getDegree()) {
-                throw new IllegalStateException("Division algorithm failed to reduce polynomial?");
+            // t = q * t + tLast, in tSpare
+            int productDegree = tDegree < 0 ? -1 : qDegree + tDegree;
+            int newTDegree = Math.max(productDegree, tLastDegree);
+            clear(tSpare, newTDegree);
+            for (int i = 0; i <= tLastDegree; i++) {
+                tSpare[i] = tLast[i];
             }
+            for (int i = 0; i <= qDegree; i++) {
+                int qi = q[i];
+                if (qi == 0) {
+                    continue;
+                }
+                for (int j = 0; j <= tDegree; j++) {
+                    tSpare[i + j] ^= multiply(qi, t[j]);
+                }
+            }
+            newTDegree = degree(tSpare, newTDegree);
+
+            // rLast, r <- r, remainder; tLast, t <- t, tSpare
+            int[] temp = rLast;
+            rLast = r;
+            rLastDegree = rDegree;
+            r = rSpare;
+            rDegree = remainderDegree;
+            rSpare = temp;
+
+            temp = tLast;
+            tLast = t;
+            tLastDegree = tDegree;
+            t = tSpare;
+            tDegree = newTDegree;
+            tSpare = temp;
         }
 
-        int sigmaTildeAtZero = t.getCoefficient(0);
+        int sigmaTildeAtZero = tDegree < 0 ? 0 : t[0];
         if (sigmaTildeAtZero == 0) {
             throw new ReedSolomonException("sigmaTilde(0) was zero");
         }
 
         int inverse = field.inverse(sigmaTildeAtZero);
-        GenericGFPoly sigma = t.multiply(inverse);
-        GenericGFPoly omega = r.multiply(inverse);
-        return new GenericGFPoly[]{sigma, omega};
+        int[] sigma = scratch.sigma;
+        for (int i = 0; i <= tDegree; i++) {
+            sigma[i] = multiply(t[i], inverse);
+        }
+        int[] omega = scratch.omega;
+        for (int i = 0; i <= rDegree; i++) {
+            omega[i] = multiply(r[i], inverse);
+        }
+        scratch.omegaDegree = rDegree;
+        return tDegree;
     }
 
-    private int[] findErrorLocations(GenericGFPoly errorLocator) throws ReedSolomonException {
+    private void findErrorLocations(int[] errorLocator, int numErrors, int[] result) throws ReedSolomonException {
         // This is a direct application of Chien's search
-        int numErrors = errorLocator.getDegree();
         if (numErrors == 1) { // shortcut
-            return new int[]{errorLocator.getCoefficient(1)};
+            result[0] = errorLocator[1];
+            return;
         }
-        int[] result = new int[numErrors];
         int e = 0;
         for (int i = 1; i < field.getSize() && e < numErrors; i++) {
-            if (errorLocator.evaluateAt(i) == 0) {
+            if (evaluate(errorLocator, numErrors, i) == 0) {
                 result[e] = field.inverse(i);
                 e++;
             }
@@ -157,13 +245,10 @@ public final class ReedSolomonDecoder {
         if (e != numErrors) {
             throw new ReedSolomonException("Error locator degree does not match number of roots");
         }
-        return result;
     }
 
-    private int[] findErrorMagnitudes(GenericGFPoly errorEvaluator, int[] errorLocations) {
+    private void findErrorMagnitudes(int[] errorEvaluator, int errorEvaluatorDegree, int[] errorLocations, int s, int[] result) {
         // This is directly applying Forney's Formula
-        int s = errorLocations.length;
-        int[] result = new int[s];
         for (int i = 0; i < s; i++) {
             int xiInverse = field.inverse(errorLocations[i]);
             int denominator = 1;
@@ -173,18 +258,112 @@ public final class ReedSolomonDecoder {
                     //    GenericGF.addOrSubtract(1, field.multiply(errorLocations[j], xiInverse)));
                     // Above should work but fails on some Apple and Linux JDKs due to a Hotspot bug.
                     // Below is a funny-looking workaround from Steven Parkes
-                    int term = field.multiply(errorLocations[j], xiInverse);
+                    int term = multiply(errorLocations[j], xiInverse);
                     int termPlus1 = (term & 0x1) == 0 ? term | 1 : term & ~1;
-                    denominator = field.multiply(denominator, termPlus1);
+                    denominator = multiply(denominator, termPlus1);
                 }
             }
-            result[i] = field.multiply(errorEvaluator.evaluateAt(xiInverse),
+            result[i] = multiply(evaluate(errorEvaluator, errorEvaluatorDegree, xiInverse),
                     field.inverse(denominator));
             if (field.getGeneratorBase() != 0) {
-                result[i] = field.multiply(result[i], xiInverse);
+                result[i] = multiply(result[i], xiInverse);
             }
         }
+    }
+
+    private int multiply(int a, int b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return expTable[logTable[a] + logTable[b]];
+    }
+
+    /**
+     * @return the received word, highest degree first, evaluated at {@code a}
+     */
+    private int evaluateReceived(int[] received, int length, int a) {
+        int logA = logTable[a];
+        int result = received[0];
+        for (int i = 1; i < length; i++) {
+            int product = result == 0 ? 0 : expTable[logA + logTable[result]];
+            result = GenericGF.addOrSubtract(product, received[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the polynomial, lowest degree first, evaluated at {@code a}
+     */
+    private int evaluate(int[] coefficients, int degree, int a) {
+        if (degree < 0) {
+            return 0;
+        }
+        int result = coefficients[degree];
+        for (int i = degree - 1; i >= 0; i--) {
+            result = GenericGF.addOrSubtract(multiply(a, result), coefficients[i]);
+        }
         return result;
     }
 
+    /**
+     * @return degree of the polynomial whose degree is at most {@code from}, -1 if it is zero
+     */
+    private static int degree(int[] coefficients, int from) {
+        int degree = from;
+        while (degree >= 0 && coefficients[degree] == 0) {
+            degree--;
+        }
+        return degree;
+    }
+
+    private static void clear(int[] coefficients, int degree) {
+        for (int i = 0; i <= degree; i++) {
+            coefficients[i] = 0;
+        }
+    }
+
+    /**
+     * <p>Working storage for {@link #decode(int[], int, int, Scratch)}. Grows to the largest
+     * number of error-correction codewords seen and is then reused without allocating. Not
+     * thread-safe; keep one per thread or per decoder instance.</p>
+     */
+    public static final class Scratch {
+
+        private int capacity = -1;
+        private int[] syndrome;
+        private int[] r0;
+        private int[] r1;
+        private int[] r2;
+        private int[] t0;
+        private int[] t1;
+        private int[] t2;
+        private int[] q;
+        private int[] sigma;
+        private int[] omega;
+        private int omegaDegree;
+        private int[] errorLocations;
+        private int[] errorMagnitudes;
+
+        void ensure(int twoS) {
+            if (twoS <= capacity) {
+                return;
+            }
+            // Polynomials in the Euclidean algorithm have degree at most twoS
+            int size = twoS + 1;
+            syndrome = new int[twoS];
+            r0 = new int[size];
+            r1 = new int[size];
+            r2 = new int[size];
+            t0 = new int[size];
+            t1 = new int[size];
+            t2 = new int[size];
+            q = new int[size];
+            sigma = new int[size];
+            omega = new int[size];
+            errorLocations = new int[size];
+            errorMagnitudes = new int[size];
+            capacity = twoS;
+        }
+    }
+
 }
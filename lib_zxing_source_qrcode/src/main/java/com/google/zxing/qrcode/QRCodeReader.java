@@ -33,6 +33,7 @@ import com.google.zxing.common.DetectorResult;
 import com.google.zxing.qrcode.decoder.Decoder;
 import com.google.zxing.qrcode.decoder.QRCodeDecoderMetaData;
 import com.google.zxing.qrcode.detector.Detector;
+import com.google.zxing.qrcode.detector.DetectorScratch;
 
 import java.util.List;
 import java.util.Map;
@@ -40,11 +41,15 @@ import java.util.Map;
 /**
  * This implementation can detect and decode QR Codes in an image.
  *
+ * <p>An instance keeps detector and decoder scratch state between calls. It is cheap to reuse on
+ * one thread but must not be shared between threads; keep one reader per thread instead.</p>
+ *
  * @author Sean Owen
  */
 public class QRCodeReader implements Reader {
 
     private final Decoder decoder = new Decoder();
+    private final DetectorScratch detectorScratch = new DetectorScratch();
 
     protected final Decoder getDecoder() {
         return decoder;
@@ -58,7 +63,7 @@ public class QRCodeReader implements Reader {
     @Override
     public final Result decode(@NonNull BinaryBitmap image, @Nullable Map<DecodeHintType, ?> hints) throws NotFoundException, ChecksumException, FormatException {
 
-        DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect(hints);
+        DetectorResult detectorResult = new Detector(image.getBlackMatrix(), detectorScratch).detect(hints);
         DecoderResult decoderResult = decoder.decode(detectorResult.getBits(), hints);
         ResultPoint[] points = detectorResult.getPoints();
 
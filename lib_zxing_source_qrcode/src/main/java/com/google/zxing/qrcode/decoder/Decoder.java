@@ -31,11 +31,16 @@ import java.util.Map;
  * <p>The main class which implements QR Code decoding -- as opposed to locating and extracting
  * the QR Code from an image.</p>
  *
+ * <p>Keeps its codeword buffer and Reed-Solomon scratch between calls, so an instance must not be
+ * used by two threads at once.</p>
+ *
  * @author Sean Owen
  */
 public final class Decoder {
 
     private final ReedSolomonDecoder rsDecoder;
+    private final ReedSolomonDecoder.Scratch rsScratch = new ReedSolomonDecoder.Scratch();
+    private int[] codewordsInts = new int[0];
 
     public Decoder() {
         rsDecoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
@@ -169,13 +174,16 @@ public final class Decoder {
      */
     private void correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
         int numCodewords = codewordBytes.length;
-        // First read into an array of ints
-        int[] codewordsInts = new int[numCodewords];
+        // First read into an array of ints, kept at the longest block seen
+        if (codewordsInts.length < numCodewords) {
+            codewordsInts = new int[numCodewords];
+        }
+        int[] codewordsInts = this.codewordsInts;
         for (int i = 0; i < numCodewords; i++) {
             codewordsInts[i] = codewordBytes[i] & 0xFF;
         }
         try {
-            rsDecoder.decode(codewordsInts, codewordBytes.length - numDataCodewords);
+            rsDecoder.decode(codewordsInts, numCodewords, numCodewords - numDataCodewords, rsScratch);
         } catch (ReedSolomonException ignored) {
             throw ChecksumException.getChecksumInstance();
         }
@@ -39,10 +39,20 @@ import java.util.Map;
 public class Detector {
 
     private final BitMatrix image;
+    private final DetectorScratch scratch;
     private ResultPointCallback resultPointCallback;
 
     public Detector(BitMatrix image) {
+        this(image, null);
+    }
+
+    /**
+     * @param image   image to search
+     * @param scratch state to reuse from the previous detection, or null to allocate
+     */
+    public Detector(BitMatrix image, DetectorScratch scratch) {
         this.image = image;
+        this.scratch = scratch;
     }
 
     protected final BitMatrix getImage() {
@@ -77,7 +87,9 @@ public class Detector {
         resultPointCallback = hints == null ? null :
                 (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
 
-        FinderPatternFinder finder = new FinderPatternFinder(image, resultPointCallback);
+        FinderPatternFinder finder = scratch == null ?
+                new FinderPatternFinder(image, resultPointCallback) :
+                new FinderPatternFinder(image, resultPointCallback, scratch);
         FinderPatternInfo info = finder.find(hints);
 
         return processFinderPatternInfo(info);
@@ -183,12 +195,16 @@ public class Detector {
                 bottomLeft.getY());
     }
 
-    private static BitMatrix sampleGrid(BitMatrix image,
-                                        PerspectiveTransform transform,
-                                        int dimension) throws NotFoundException {
+    private BitMatrix sampleGrid(BitMatrix image,
+                                 PerspectiveTransform transform,
+                                 int dimension) throws NotFoundException {
 
         GridSampler sampler = GridSampler.getInstance();
-        return sampler.sampleGrid(image, dimension, dimension, transform);
+        if (scratch == null) {
+            return sampler.sampleGrid(image, dimension, dimension, transform);
+        }
+        scratch.bits = sampler.sampleGrid(image, dimension, dimension, transform, scratch.bits);
+        return scratch.bits;
     }
 
     /**
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Working state a {@link Detector} carries from one image to the next: the finder pattern
+ * candidate list, the run-length counters, and the module grid sampled from the image.</p>
+ *
+ * <p>Not thread-safe; keep one per thread. The {@link BitMatrix} in a
+ * {@link com.google.zxing.common.DetectorResult} produced with a scratch is overwritten by the
+ * next detection that samples a grid of the same dimension.</p>
+ */
+public final class DetectorScratch {
+
+    final List<FinderPattern> possibleCenters = new ArrayList<>();
+    final int[] stateCount = new int[5];
+    final int[] crossCheckStateCount = new int[5];
+    BitMatrix bits;
+
+}
@@ -47,6 +47,7 @@ public class FinderPatternFinder {
     private final BitMatrix image;
     private final List<FinderPattern> possibleCenters;
     private boolean hasSkipped;
+    private final int[] stateCount;
     private final int[] crossCheckStateCount;
     private final ResultPointCallback resultPointCallback;
 
@@ -62,10 +63,24 @@ public class FinderPatternFinder {
     public FinderPatternFinder(BitMatrix image, ResultPointCallback resultPointCallback) {
         this.image = image;
         this.possibleCenters = new ArrayList<>();
+        this.stateCount = new int[5];
         this.crossCheckStateCount = new int[5];
         this.resultPointCallback = resultPointCallback;
     }
 
+    /**
+     * Creates a finder that works in the candidate list and counters of {@code scratch}, which
+     * must not be in use by another finder.
+     */
+    FinderPatternFinder(BitMatrix image, ResultPointCallback resultPointCallback, DetectorScratch scratch) {
+        this.image = image;
+        this.possibleCenters = scratch.possibleCenters;
+        this.possibleCenters.clear();
+        this.stateCount = scratch.stateCount;
+        this.crossCheckStateCount = scratch.crossCheckStateCount;
+        this.resultPointCallback = resultPointCallback;
+    }
+
     protected final BitMatrix getImage() {
         return image;
     }
@@ -91,7 +106,7 @@ public class FinderPatternFinder {
         }
 
         boolean done = false;
-        int[] stateCount = new int[5];
+        int[] stateCount = this.stateCount;
         for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
             // Get a row of black/white values
             doClearCounts(stateCount);
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.exception.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>Encodes and renders a sequence of payloads in parallel, handing the images to a {@link Sink}
+ * in input order.</p>
+ *
+ * <p>Each call runs one long-lived loop per worker on a fork-join pool. A worker takes the next
+ * payload, encodes it with its own {@link Encoder.Scratch}, renders it into its own
+ * {@link BitMatrix}, then waits for its turn and passes the image to the sink. Scratch and images
+ * are therefore reused for the whole batch, at most one image per worker is in flight, and the
+ * sink is called by one thread at a time. Payloads are read lazily, so the input can be longer
+ * than fits in memory.</p>
+ *
+ * <p>Dark modules are rendered as set bits, {@code moduleSize} pixels square, inside a light quiet
+ * zone of {@code quietZone} modules, the same layout as {@link com.google.zxing.qrcode.QRCodeWriter}
+ * at an exact multiple, by {@link QRCodeRenderer#toBitMatrix}.</p>
+ */
+public final class BatchEncoder {
+
+    private final ErrorCorrectionLevel ecLevel;
+    private final Map<EncodeHintType, ?> hints;
+    private final int moduleSize;
+    private final int quietZone;
+    private final int parallelism;
+
+    /**
+     * @param ecLevel     error correction level
+     * @param hints       encode hints, may be null; {@link EncodeHintType#MARGIN} is ignored in
+     *                    favour of quietZone
+     * @param moduleSize  pixels per module
+     * @param quietZone   light margin on each side, in modules
+     * @param parallelism number of workers
+     */
+    public BatchEncoder(ErrorCorrectionLevel ecLevel,
+                        Map<EncodeHintType, ?> hints,
+                        int moduleSize,
+                        int quietZone,
+                        int parallelism) {
+        if (ecLevel == null) {
+            throw new IllegalArgumentException("ecLevel must not be null");
+        }
+        if (moduleSize < 1) {
+            throw new IllegalArgumentException("moduleSize must be at least 1: " + moduleSize);
+        }
+        if (quietZone < 0) {
+            throw new IllegalArgumentException("quietZone must be nonnegative: " + quietZone);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.ecLevel = ecLevel;
+        this.hints = hints;
+        this.moduleSize = moduleSize;
+        this.quietZone = quietZone;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Encodes every payload and returns once the sink has seen all of them. Payloads that cannot be
+     * encoded are reported to {@link Sink#fail} and counted, and do not stop the batch.
+     *
+     * @param payloads read once, from a single thread at a time
+     * @param sink     called in payload order
+     * @return counts and timing of the batch
+     * @throws IOException if the sink fails; the remaining payloads are not encoded
+     */
+    public Stats encode(Iterable<String> payloads, Sink sink) throws IOException {
+        long start = System.nanoTime();
+        Batch batch = new Batch(payloads.iterator(), sink);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<?>> workers = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(pool.submit(new Worker(batch)));
+            }
+            for (ForkJoinTask<?> worker : workers) {
+                worker.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (batch.error instanceof IOException) {
+            throw (IOException) batch.error;
+        }
+        if (batch.error instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("batch interrupted after " + batch.turn + " payloads");
+        }
+        return new Stats(batch.encoded, batch.failed, System.nanoTime() - start);
+    }
+
+    /**
+     * State shared by the workers of one call; guarded by itself.
+     */
+    private static final class Batch {
+
+        private final Iterator<String> payloads;
+        private final Sink sink;
+        private int next;
+        private int turn;
+        private int encoded;
+        private int failed;
+        private Throwable error;
+
+        private Batch(Iterator<String> payloads, Sink sink) {
+            this.payloads = payloads;
+            this.sink = sink;
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final Batch batch;
+        private final Encoder.Scratch scratch = new Encoder.Scratch();
+        private BitMatrix image;
+        private BitArray row;
+
+        private Worker(Batch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    int index;
+                    String contents;
+                    synchronized (batch) {
+                        if (batch.error != null || !batch.payloads.hasNext()) {
+                            return;
+                        }
+                        index = batch.next++;
+                        contents = batch.payloads.next();
+                    }
+
+                    QRCode code = null;
+                    WriterException failure = null;
+                    try {
+                        code = Encoder.encode(contents, ecLevel, hints, scratch);
+                        int margin = quietZone * moduleSize;
+                        image = QRCodeRenderer.toBitMatrix(code.getMatrix(), moduleSize, margin, margin, margin, margin, image, row);
+                        if (row == null || row.getSize() != image.getWidth()) {
+                            row = new BitArray(image.getWidth());
+                        }
+                    } catch (WriterException e) {
+                        failure = e;
+                    } catch (IllegalArgumentException e) {
+                        // Unsupported character set and similar hint problems
+                        failure = new WriterException(e);
+                    }
+
+                    synchronized (batch) {
+                        while (batch.turn != index && batch.error == null) {
+                            batch.wait();
+                        }
+                        if (batch.error != null) {
+                            return;
+                        }
+                    }
+
+                    // Only the worker holding the turn gets here, so the sink is never called concurrently
+                    try {
+                        if (failure == null) {
+                            batch.sink.accept(index, contents, code, image);
+                        } else {
+                            batch.sink.fail(index, contents, failure);
+                        }
+                    } finally {
+                        synchronized (batch) {
+                            if (failure == null) {
+                                batch.encoded++;
+                            } else {
+                                batch.failed++;
+                            }
+                            batch.turn++;
+                            batch.notifyAll();
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                synchronized (batch) {
+                    if (batch.error == null) {
+                        batch.error = e;
+                    }
+                    batch.notifyAll();
+                }
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the results of {@link #encode(Iterable, Sink)} in payload order, one call at a time.
+     */
+    public interface Sink {
+
+        /**
+         * @param index    position of the payload in the input
+         * @param contents the payload
+         * @param code     the encoded symbol; its matrix is only valid during this call
+         * @param image    the rendered symbol, set bits dark; only valid during this call
+         */
+        void accept(int index, String contents, QRCode code, BitMatrix image) throws IOException;
+
+        /**
+         * @param index    position of the payload in the input
+         * @param contents the payload
+         * @param cause    why the payload could not be encoded
+         */
+        default void fail(int index, String contents, WriterException cause) throws IOException {
+        }
+    }
+
+    /**
+     * A sink writing every image as a binary PBM (P4) bitmap, one after another: a text header
+     * followed by the rows packed 8 pixels per byte, most significant bit first, 1 dark. Failed
+     * payloads are skipped.
+     *
+     * @param out not closed by the sink
+     */
+    public static Sink pbm(final OutputStream out) {
+        return new Sink() {
+
+            private byte[] packed = new byte[0];
+            private BitArray row;
+
+            @Override
+            public void accept(int index, String contents, QRCode code, BitMatrix image) throws IOException {
+                int width = image.getWidth();
+                int height = image.getHeight();
+                int rowBytes = (width + 7) / 8;
+                if (packed.length < rowBytes) {
+                    packed = new byte[rowBytes];
+                }
+                out.write(("P4\n" + width + ' ' + height + '\n').getBytes(StandardCharsets.US_ASCII));
+                for (int y = 0; y < height; y++) {
+                    row = image.getRow(y, row);
+                    int[] words = row.getBitArray();
+                    for (int i = 0; i < rowBytes; i++) {
+                        // BitArray is least significant bit first, PBM most significant bit first
+                        packed[i] = (byte) (Integer.reverse(words[i >> 2] >>> ((i & 3) << 3)) >>> 24);
+                    }
+                    out.write(packed, 0, rowBytes);
+                }
+            }
+        };
+    }
+
+    /**
+     * Outcome of one {@link #encode(Iterable, Sink)} call.
+     */
+    public static final class Stats {
+
+        private final int encoded;
+        private final int failed;
+        private final long elapsedNanos;
+
+        Stats(int encoded, int failed, long elapsedNanos) {
+            this.encoded = encoded;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getEncoded() {
+            return encoded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return codes encoded and handed to the sink per second of wall time
+         */
+        public double getCodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : encoded * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "encoded = " + encoded + ", failed = " + failed + ", codes/s = " + String.format("%.1f", getCodesPerSecond());
+        }
+    }
+}
@@ -52,15 +52,6 @@ public final class Encoder {
     private Encoder() {
     }
 
-    // The mask penalty calculation is complicated.  See Table 21 of JISX0510:2004 (p.45) for details.
-    // Basically it applies four rules and summate all penalties.
-    private static int calculateMaskPenalty(ByteMatrix matrix) {
-        return MaskUtil.applyMaskPenaltyRule1(matrix)
-                + MaskUtil.applyMaskPenaltyRule2(matrix)
-                + MaskUtil.applyMaskPenaltyRule3(matrix)
-                + MaskUtil.applyMaskPenaltyRule4(matrix);
-    }
-
     /**
      * @param content text to encode
      * @param ecLevel error correction level to use
@@ -75,6 +66,19 @@ public final class Encoder {
     public static QRCode encode(String content,
                                 ErrorCorrectionLevel ecLevel,
                                 Map<EncodeHintType, ?> hints) throws WriterException {
+        return encode(content, ecLevel, hints, null);
+    }
+
+    /**
+     * @param scratch working buffers to reuse across calls on one thread, or null to allocate them.
+     *                With a scratch, the returned code's matrix belongs to the scratch and is
+     *                overwritten by the next encode of the same dimension
+     * @see #encode(String, ErrorCorrectionLevel, Map)
+     */
+    public static QRCode encode(String content,
+                                ErrorCorrectionLevel ecLevel,
+                                Map<EncodeHintType, ?> hints,
+                                Scratch scratch) throws WriterException {
 
         // Determine what character encoding has been specified by the caller, if any
         String encoding = DEFAULT_BYTE_MODE_ENCODING;
@@ -154,7 +158,7 @@ public final class Encoder {
 
         //  Choose the mask pattern and set to "qrCode".
         int dimension = version.getDimensionForVersion();
-        ByteMatrix matrix = new ByteMatrix(dimension, dimension);
+        ByteMatrix matrix = scratch == null ? new ByteMatrix(dimension, dimension) : scratch.matrix(dimension);
 
         // Enable manual selection of the pattern to be used via hint
         int maskPattern = -1;
@@ -164,7 +168,7 @@ public final class Encoder {
         }
 
         if (maskPattern == -1) {
-            maskPattern = chooseMaskPattern(finalBits, ecLevel, version, matrix);
+            maskPattern = chooseMaskPattern(finalBits, ecLevel, version, matrix, scratch);
         }
         qrCode.setMaskPattern(maskPattern);
 
@@ -270,20 +274,10 @@ public final class Encoder {
     private static int chooseMaskPattern(BitArray bits,
                                          ErrorCorrectionLevel ecLevel,
                                          Version version,
-                                         ByteMatrix matrix) throws WriterException {
-
-        int minPenalty = Integer.MAX_VALUE;  // Lower penalty is better.
-        int bestMaskPattern = -1;
-        // We try all mask patterns to choose the best one.
-        for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
-            MatrixUtil.buildMatrix(bits, ecLevel, version, maskPattern, matrix);
-            int penalty = calculateMaskPenalty(matrix);
-            if (penalty < minPenalty) {
-                minPenalty = penalty;
-                bestMaskPattern = maskPattern;
-            }
-        }
-        return bestMaskPattern;
+                                         ByteMatrix matrix,
+                                         Scratch scratch) throws WriterException {
+        // We try all mask patterns to choose the best one, laying the symbol out only once.
+        return MaskSelector.chooseMaskPattern(bits, ecLevel, version, matrix, scratch == null ? null : scratch.masks);
     }
 
     private static Version chooseVersion(int numInputBits, ErrorCorrectionLevel ecLevel) throws WriterException {
@@ -627,4 +621,21 @@ public final class Encoder {
         bits.appendBits(eci.getValue(), 8);
     }
 
+    /**
+     * Reusable matrix and mask selection buffers for {@link #encode(String, ErrorCorrectionLevel, Map, Scratch)}.
+     * Not thread-safe: keep one per thread.
+     */
+    public static final class Scratch {
+
+        private final MaskSelector.Scratch masks = new MaskSelector.Scratch();
+        private ByteMatrix matrix;
+
+        ByteMatrix matrix(int dimension) {
+            if (matrix == null || matrix.getWidth() != dimension) {
+                matrix = new ByteMatrix(dimension, dimension);
+            }
+            return matrix;
+        }
+    }
+
 }
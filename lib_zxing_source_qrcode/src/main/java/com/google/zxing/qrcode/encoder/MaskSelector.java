@@ -0,0 +1,297 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.exception.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+import java.util.Arrays;
+
+/**
+ * <p>Chooses the mask pattern with the lowest penalty, scoring the same four rules as
+ * {@link MaskUtil} (Table 21 of JISX0510:2004) but without rebuilding the symbol for every mask.</p>
+ *
+ * <p>Function patterns, version information and the unmasked data bits are laid out once. Each mask
+ * then only rewrites the type information and flips the data modules, using a precomputed 12x12
+ * tile of the mask. Rows and columns of the masked symbol are then packed into bits, and all four
+ * rules are evaluated in one pass over them with word-wide shifts, ANDs and bit counts: runs,
+ * 2x2 blocks and 1:1:3:1:1 patterns are found 64 modules at a time instead of module by module.</p>
+ *
+ * <p>Penalties, and therefore the chosen mask, are identical to scoring each
+ * {@link MatrixUtil#buildMatrix} result with {@link MaskUtil}.</p>
+ */
+final class MaskSelector {
+
+    // Lines are packed into WORDS longs, module x at bit x + PAD, so modules x - 4 .. x + 10 of any
+    // line (dimension <= 177) are bit x of one of SHIFTS right shifts
+    private static final int PAD = 4;
+    private static final int WORDS = 3;
+    private static final int SHIFTS = 15;
+
+    // Mask bits repeat every 12 modules in both directions (lcm of the periods 2, 3 and 4)
+    private static final int TILE = 12;
+    private static final byte[][][] MASK_TILES = new byte[QRCode.NUM_MASK_PATTERNS][TILE][TILE];
+
+    static {
+        for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+            for (int y = 0; y < TILE; y++) {
+                for (int x = 0; x < TILE; x++) {
+                    MASK_TILES[maskPattern][y][x] = (byte) (MaskUtil.getDataMaskBit(maskPattern, x, y) ? 1 : 0);
+                }
+            }
+        }
+    }
+
+    private MaskSelector() {
+    }
+
+    /**
+     * @param matrix  square matrix of the symbol's dimension; left holding an unspecified layout
+     * @param scratch working buffers to reuse, or null to allocate them
+     * @return the mask pattern with the lowest penalty, the lowest index on ties
+     */
+    static int chooseMaskPattern(BitArray bits,
+                                 ErrorCorrectionLevel ecLevel,
+                                 Version version,
+                                 ByteMatrix matrix,
+                                 Scratch scratch) throws WriterException {
+        int dimension = matrix.getWidth();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        scratch.ensure(dimension);
+        byte[][] array = matrix.getArray();
+
+        // Lay out everything but the type information once, and remember which modules hold data
+        MatrixUtil.clearMatrix(matrix);
+        MatrixUtil.embedBasicPatterns(version, matrix);
+        MatrixUtil.embedTypeInfo(ecLevel, 0, matrix);
+        MatrixUtil.maybeEmbedVersionInfo(version, matrix);
+        byte[] dataModules = scratch.dataModules;
+        for (int y = 0; y < dimension; y++) {
+            byte[] row = array[y];
+            for (int x = 0; x < dimension; x++) {
+                dataModules[y * dimension + x] = (byte) (row[x] == -1 ? 1 : 0);
+            }
+        }
+        MatrixUtil.embedDataBits(bits, -1, matrix);
+
+        byte[] cells = scratch.cells;
+        long[] rows = scratch.rows;
+        long[] columns = scratch.columns;
+        long[] shifts = scratch.shifts;
+        int minPenalty = Integer.MAX_VALUE;
+        int bestMaskPattern = -1;
+        for (int maskPattern = 0; maskPattern < QRCode.NUM_MASK_PATTERNS; maskPattern++) {
+            MatrixUtil.embedTypeInfo(ecLevel, maskPattern, matrix);
+            applyMask(array, dataModules, MASK_TILES[maskPattern], dimension, cells);
+            int penalty = penalty(cells, dimension, rows, columns, shifts);
+            if (penalty < minPenalty) {
+                minPenalty = penalty;
+                bestMaskPattern = maskPattern;
+            }
+        }
+        return bestMaskPattern;
+    }
+
+    /**
+     * Flips the data modules under the mask tile.
+     */
+    private static void applyMask(byte[][] array, byte[] dataModules, byte[][] tile, int dimension, byte[] cells) {
+        for (int y = 0; y < dimension; y++) {
+            byte[] row = array[y];
+            byte[] tileRow = tile[y % TILE];
+            int offset = y * dimension;
+            for (int x = 0; x < dimension; x++) {
+                cells[offset + x] = (byte) (row[x] ^ (dataModules[offset + x] & tileRow[x % TILE]));
+            }
+        }
+    }
+
+    /**
+     * Sum of the four penalty rules over a square symbol of 0/1 cells, row-major.
+     *
+     * @param rows    scratch of at least dimension * WORDS
+     * @param columns scratch of at least dimension * WORDS
+     * @param shifts  scratch of at least SHIFTS * WORDS
+     */
+    static int penalty(byte[] cells, int dimension, long[] rows, long[] columns, long[] shifts) {
+        // Pack rows and columns into bits, module x at bit x + PAD; the padding reads as light
+        Arrays.fill(rows, 0, dimension * WORDS, 0L);
+        Arrays.fill(columns, 0, dimension * WORDS, 0L);
+        int dark = 0;
+        for (int y = 0; y < dimension; y++) {
+            int offset = y * dimension;
+            int j = y + PAD;
+            for (int x = 0; x < dimension; x++) {
+                long bit = cells[offset + x];
+                dark += (int) bit;
+                int i = x + PAD;
+                rows[y * WORDS + (i >>> 6)] |= bit << i;
+                columns[x * WORDS + (j >>> 6)] |= bit << j;
+            }
+        }
+
+        int rule1 = 0;
+        int blocks = 0;
+        int finderLike = 0;
+        long above0 = 0;
+        long above1 = 0;
+        long above2 = 0;
+        long aboveNext0 = 0;
+        long aboveNext1 = 0;
+        long aboveNext2 = 0;
+        for (int y = 0; y < dimension; y++) {
+            shift(rows, y * WORDS, shifts);
+            rule1 += runPenalty(shifts, dimension);
+            finderLike += countFinderLike(shifts, dimension);
+
+            // Rule 2 between this row and the one above: here[x] == here[x+1] == above[x] == above[x+1]
+            long here0 = shifts[PAD * WORDS];
+            long here1 = shifts[PAD * WORDS + 1];
+            long here2 = shifts[PAD * WORDS + 2];
+            long hereNext0 = shifts[(PAD + 1) * WORDS];
+            long hereNext1 = shifts[(PAD + 1) * WORDS + 1];
+            long hereNext2 = shifts[(PAD + 1) * WORDS + 2];
+            if (y > 0) {
+                blocks += Long.bitCount(~(here0 ^ above0) & ~(hereNext0 ^ aboveNext0) & ~(here0 ^ hereNext0) & valid(dimension - 1, 0))
+                        + Long.bitCount(~(here1 ^ above1) & ~(hereNext1 ^ aboveNext1) & ~(here1 ^ hereNext1) & valid(dimension - 1, 1))
+                        + Long.bitCount(~(here2 ^ above2) & ~(hereNext2 ^ aboveNext2) & ~(here2 ^ hereNext2) & valid(dimension - 1, 2));
+            }
+            above0 = here0;
+            above1 = here1;
+            above2 = here2;
+            aboveNext0 = hereNext0;
+            aboveNext1 = hereNext1;
+            aboveNext2 = hereNext2;
+
+            shift(columns, y * WORDS, shifts);
+            rule1 += runPenalty(shifts, dimension);
+            finderLike += countFinderLike(shifts, dimension);
+        }
+
+        int total = dimension * dimension;
+        int fivePercentVariances = Math.abs(dark * 2 - total) * 10 / total;
+        return rule1 + MaskUtil.N2 * blocks + MaskUtil.N3 * finderLike + MaskUtil.N4 * fivePercentVariances;
+    }
+
+    /**
+     * shifts[s * WORDS + w] = word w of the line shifted right by s, for s in [0, SHIFTS). Bit x of
+     * shift PAD + d is then module x + d.
+     */
+    private static void shift(long[] lines, int offset, long[] shifts) {
+        long r0 = lines[offset];
+        long r1 = lines[offset + 1];
+        long r2 = lines[offset + 2];
+        shifts[0] = r0;
+        shifts[1] = r1;
+        shifts[2] = r2;
+        for (int s = 1; s < SHIFTS; s++) {
+            shifts[s * WORDS] = (r0 >>> s) | (r1 << (64 - s));
+            shifts[s * WORDS + 1] = (r1 >>> s) | (r2 << (64 - s));
+            shifts[s * WORDS + 2] = r2 >>> s;
+        }
+    }
+
+    /**
+     * Rule 1 for one line: a run of n >= 5 same-colored modules costs N1 + (n - 5) = n - 2. With
+     * e[x] = (module x == module x+1), such a run holds n - 4 windows of four set e bits, plus one
+     * window start per run.
+     */
+    private static int runPenalty(long[] shifts, int dimension) {
+        int m = PAD * WORDS;
+        int n = (PAD + 1) * WORDS;
+        long e0 = ~(shifts[m] ^ shifts[n]) & valid(dimension - 1, 0);
+        long e1 = ~(shifts[m + 1] ^ shifts[n + 1]) & valid(dimension - 1, 1);
+        long e2 = ~(shifts[m + 2] ^ shifts[n + 2]) & valid(dimension - 1, 2);
+        long k0 = e0 & shr(e0, e1, 1) & shr(e0, e1, 2) & shr(e0, e1, 3);
+        long k1 = e1 & shr(e1, e2, 1) & shr(e1, e2, 2) & shr(e1, e2, 3);
+        long k2 = e2 & (e2 >>> 1) & (e2 >>> 2) & (e2 >>> 3);
+        long s0 = k0 & ~(k0 << 1);
+        long s1 = k1 & ~((k1 << 1) | (k0 >>> 63));
+        long s2 = k2 & ~((k2 << 1) | (k1 >>> 63));
+        return Long.bitCount(k0) + Long.bitCount(k1) + Long.bitCount(k2)
+                + 2 * (Long.bitCount(s0) + Long.bitCount(s1) + Long.bitCount(s2));
+    }
+
+    /**
+     * Rule 3 for one line: positions x where modules x .. x+6 read 1011101 and either the 4 modules
+     * before or the 4 after are light, modules outside the line counting as light.
+     */
+    private static int countFinderLike(long[] shifts, int dimension) {
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long pattern = at(shifts, 0, w) & ~at(shifts, 1, w) & at(shifts, 2, w) & at(shifts, 3, w)
+                    & at(shifts, 4, w) & ~at(shifts, 5, w) & at(shifts, 6, w) & valid(dimension - 6, w);
+            if (pattern == 0) {
+                continue;
+            }
+            long before = ~(at(shifts, -1, w) | at(shifts, -2, w) | at(shifts, -3, w) | at(shifts, -4, w));
+            long after = ~(at(shifts, 7, w) | at(shifts, 8, w) | at(shifts, 9, w) | at(shifts, 10, w));
+            count += Long.bitCount(pattern & (before | after));
+        }
+        return count;
+    }
+
+    /**
+     * @return word w of the line whose bit x is module x + d
+     */
+    private static long at(long[] shifts, int d, int w) {
+        return shifts[(PAD + d) * WORDS + w];
+    }
+
+    private static long shr(long low, long high, int s) {
+        return (low >>> s) | (high << (64 - s));
+    }
+
+    /**
+     * @return word w of the mask with bits [0, n) set
+     */
+    private static long valid(int n, int w) {
+        int low = w << 6;
+        if (n <= low) {
+            return 0L;
+        }
+        if (n >= low + 64) {
+            return -1L;
+        }
+        return (1L << (n - low)) - 1;
+    }
+
+    /**
+     * Working buffers of {@link #chooseMaskPattern}, sized for the largest symbol seen so far.
+     */
+    static final class Scratch {
+
+        byte[] dataModules = new byte[0];
+        byte[] cells = new byte[0];
+        long[] rows = new long[0];
+        long[] columns = new long[0];
+        final long[] shifts = new long[SHIFTS * WORDS];
+
+        void ensure(int dimension) {
+            if (cells.length < dimension * dimension) {
+                dataModules = new byte[dimension * dimension];
+                cells = new byte[dimension * dimension];
+                rows = new long[dimension * WORDS];
+                columns = new long[dimension * WORDS];
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.encoder;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Renders an encoded {@link QRCode#getMatrix() matrix} straight to pixels, each module
+ * {@code multiple} pixels square, inside the given margins in pixels.</p>
+ *
+ * <p>Output is produced a pixel row at a time: the first pixel row of a module row is filled one
+ * run of same-colored modules at a time, then copied to the other {@code multiple - 1} rows. The
+ * cost is a few fills and copies per module row rather than a lookup per pixel.</p>
+ *
+ * <p>Output size is {@code dimension * multiple + left + right} by
+ * {@code dimension * multiple + top + bottom}, see {@link #getWidth} and {@link #getHeight}.</p>
+ */
+public final class QRCodeRenderer {
+
+    private QRCodeRenderer() {
+    }
+
+    public static int getWidth(ByteMatrix input, int multiple, int left, int right) {
+        return input.getWidth() * multiple + left + right;
+    }
+
+    public static int getHeight(ByteMatrix input, int multiple, int top, int bottom) {
+        return input.getHeight() * multiple + top + bottom;
+    }
+
+    /**
+     * @param dark  color of dark modules, e.g. 0xFF000000
+     * @param light color of light modules and margins, e.g. 0xFFFFFFFF
+     * @param out   row-major pixels to reuse, or null; a new array is allocated when too small
+     * @return row-major pixels, width {@link #getWidth} and stride equal to the width
+     */
+    public static int[] toArgb(ByteMatrix input, int multiple, int left, int top, int right, int bottom,
+                               int dark, int light, int[] out) {
+        checkArguments(multiple, left, top, right, bottom);
+        int width = getWidth(input, multiple, left, right);
+        int height = getHeight(input, multiple, top, bottom);
+        if (out == null || out.length < width * height) {
+            out = new int[width * height];
+        }
+
+        Arrays.fill(out, 0, top * width, light);
+        byte[][] array = input.getArray();
+        for (int y = 0; y < array.length; y++) {
+            int offset = (top + y * multiple) * width;
+            fillRow(array[y], multiple, left, right, dark, light, out, offset);
+            for (int i = 1; i < multiple; i++) {
+                System.arraycopy(out, offset, out, offset + i * width, width);
+            }
+        }
+        Arrays.fill(out, (height - bottom) * width, height * width, light);
+        return out;
+    }
+
+    /**
+     * Writes the pixels of {@link #toArgb(ByteMatrix, int, int, int, int, int, int, int, int[])} to
+     * out, starting at its position and advancing it by width * height. Colors are written as
+     * given, so for {@code Bitmap.copyPixelsFromBuffer} pass them in the bitmap's memory order.
+     */
+    public static void putArgb(ByteMatrix input, int multiple, int left, int top, int right, int bottom,
+                               int dark, int light, IntBuffer out) {
+        checkArguments(multiple, left, top, right, bottom);
+        int width = getWidth(input, multiple, left, right);
+        int height = getHeight(input, multiple, top, bottom);
+        if (out.remaining() < width * height) {
+            throw new IllegalArgumentException("buffer holds " + out.remaining() + " pixels, need " + width * height);
+        }
+
+        int[] row = new int[width];
+        Arrays.fill(row, light);
+        for (int y = 0; y < top; y++) {
+            out.put(row);
+        }
+        byte[][] array = input.getArray();
+        for (byte[] modules : array) {
+            fillRow(modules, multiple, left, right, dark, light, row, 0);
+            for (int i = 0; i < multiple; i++) {
+                out.put(row);
+            }
+        }
+        Arrays.fill(row, light);
+        for (int y = 0; y < bottom; y++) {
+            out.put(row);
+        }
+    }
+
+    /**
+     * @param out packed rows to reuse, or null; a new array is allocated when too small
+     * @return 1-bit rows of {@code (width + 7) / 8} bytes, 8 pixels per byte, most significant bit
+     * first, 1 dark, trailing bits of each row 0
+     */
+    public static byte[] toPacked(ByteMatrix input, int multiple, int left, int top, int right, int bottom, byte[] out) {
+        checkArguments(multiple, left, top, right, bottom);
+        int width = getWidth(input, multiple, left, right);
+        int height = getHeight(input, multiple, top, bottom);
+        int rowBytes = (width + 7) / 8;
+        if (out == null || out.length < rowBytes * height) {
+            out = new byte[rowBytes * height];
+        }
+
+        Arrays.fill(out, 0, top * rowBytes, (byte) 0);
+        byte[][] array = input.getArray();
+        for (int y = 0; y < array.length; y++) {
+            byte[] modules = array[y];
+            int offset = (top + y * multiple) * rowBytes;
+            Arrays.fill(out, offset, offset + rowBytes, (byte) 0);
+            int x = 0;
+            while (x < modules.length) {
+                int end = runEnd(modules, x);
+                if (modules[x] == 1) {
+                    setBits(out, offset, left + x * multiple, left + end * multiple);
+                }
+                x = end;
+            }
+            for (int i = 1; i < multiple; i++) {
+                System.arraycopy(out, offset, out, offset + i * rowBytes, rowBytes);
+            }
+        }
+        Arrays.fill(out, (height - bottom) * rowBytes, height * rowBytes, (byte) 0);
+        return out;
+    }
+
+    /**
+     * @param reuse matrix to reuse when its size matches, or null
+     * @param row   row buffer to reuse, or null
+     * @return the rendered matrix, set bits dark
+     */
+    public static BitMatrix toBitMatrix(ByteMatrix input, int multiple, int left, int top, int right, int bottom,
+                                        BitMatrix reuse, BitArray row) {
+        checkArguments(multiple, left, top, right, bottom);
+        int width = getWidth(input, multiple, left, right);
+        int height = getHeight(input, multiple, top, bottom);
+        BitMatrix output;
+        if (reuse != null && reuse.getWidth() == width && reuse.getHeight() == height) {
+            output = reuse;
+            output.clear();
+        } else {
+            output = new BitMatrix(width, height);
+        }
+        if (row == null || row.getSize() != width) {
+            row = new BitArray(width);
+        }
+
+        byte[][] array = input.getArray();
+        for (int y = 0; y < array.length; y++) {
+            byte[] modules = array[y];
+            row.clear();
+            int x = 0;
+            while (x < modules.length) {
+                int end = runEnd(modules, x);
+                if (modules[x] == 1) {
+                    row.setRange(left + x * multiple, left + end * multiple);
+                }
+                x = end;
+            }
+            for (int i = 0, outputY = top + y * multiple; i < multiple; i++) {
+                output.setRow(outputY + i, row);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Fills one pixel row, margins included, starting at offset.
+     */
+    private static void fillRow(byte[] modules, int multiple, int left, int right,
+                                int dark, int light, int[] out, int offset) {
+        Arrays.fill(out, offset, offset + left, light);
+        int p = offset + left;
+        int x = 0;
+        while (x < modules.length) {
+            int end = runEnd(modules, x);
+            int next = p + (end - x) * multiple;
+            Arrays.fill(out, p, next, modules[x] == 1 ? dark : light);
+            p = next;
+            x = end;
+        }
+        Arrays.fill(out, p, p + right, light);
+    }
+
+    /**
+     * @return the end, exclusive, of the run of modules equal to modules[x]
+     */
+    private static int runEnd(byte[] modules, int x) {
+        byte value = modules[x];
+        int end = x + 1;
+        while (end < modules.length && modules[end] == value) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Sets bits [from, to) of the packed row at offset, most significant bit first.
+     */
+    private static void setBits(byte[] out, int offset, int from, int to) {
+        int first = from >> 3;
+        int last = (to - 1) >> 3;
+        int head = 0xFF >>> (from & 7);
+        int tail = 0xFF << (7 - ((to - 1) & 7));
+        if (first == last) {
+            out[offset + first] |= (byte) (head & tail);
+            return;
+        }
+        out[offset + first] |= (byte) head;
+        Arrays.fill(out, offset + first + 1, offset + last, (byte) 0xFF);
+        out[offset + last] |= (byte) tail;
+    }
+
+    private static void checkArguments(int multiple, int left, int top, int right, int bottom) {
+        if (multiple < 1) {
+            throw new IllegalArgumentException("multiple must be at least 1: " + multiple);
+        }
+        if (left < 0 || top < 0 || right < 0 || bottom < 0) {
+            throw new IllegalArgumentException("margins must be nonnegative");
+        }
+    }
+}
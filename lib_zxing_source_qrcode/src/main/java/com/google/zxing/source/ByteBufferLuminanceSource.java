@@ -0,0 +1,290 @@
+/*
+ * Copyright 2009 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.source;
+
+import com.google.zxing.common.FrameBufferPool;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * This object extends LuminanceSource around a luminance plane held in a {@link ByteBuffer}, such as
+ * the Y plane of a camera YUV_420_888 frame. Pixels are read straight from the buffer honoring its
+ * row stride and pixel stride, so no copy of the frame is made up front.
+ * <p>
+ * A crop rectangle (in buffer coordinates) and a clockwise rotation of 0, 90, 180 or 270 degrees
+ * are applied lazily while reading: {@link #getWidth()} and {@link #getHeight()} describe the
+ * cropped and rotated image, and {@link #getRow(int, byte[])} walks the buffer along the rotated row.
+ * An optional 256-entry table, see {@link LuminancePreprocessor}, is applied in the same pass.
+ * <p>
+ * The buffer must not be released or rewritten while this source is in use. The caller's buffer
+ * position and limit are never touched. Like the binarizers, an instance is not thread-safe.
+ */
+public final class ByteBufferLuminanceSource extends LuminanceSourceBase {
+
+    private final ByteBuffer buffer;
+    private final int dataWidth;
+    private final int dataHeight;
+    private final int rowStride;
+    private final int pixelStride;
+    private final int left;
+    private final int top;
+    private final int cropWidth;
+    private final int cropHeight;
+    private final int rotation;
+    private final byte[] matrix;
+    private final byte[] table;
+
+    public ByteBufferLuminanceSource(ByteBuffer buffer,
+                                     int dataWidth,
+                                     int dataHeight,
+                                     int rowStride,
+                                     int pixelStride) {
+        this(buffer, dataWidth, dataHeight, rowStride, pixelStride, 0, 0, dataWidth, dataHeight, 0, null);
+    }
+
+    public ByteBufferLuminanceSource(ByteBuffer buffer,
+                                     int dataWidth,
+                                     int dataHeight,
+                                     int rowStride,
+                                     int pixelStride,
+                                     int left,
+                                     int top,
+                                     int cropWidth,
+                                     int cropHeight,
+                                     int rotation,
+                                     byte[] matrix) {
+        this(buffer, dataWidth, dataHeight, rowStride, pixelStride, left, top, cropWidth, cropHeight, rotation, matrix, null);
+    }
+
+    /**
+     * @param buffer      luminance plane, typically a direct buffer owned by the camera
+     * @param dataWidth   width of the plane in pixels
+     * @param dataHeight  height of the plane in pixels
+     * @param rowStride   distance in bytes between the starts of two consecutive rows
+     * @param pixelStride distance in bytes between two consecutive pixels of a row
+     * @param left        crop rectangle left, in buffer coordinates
+     * @param top         crop rectangle top, in buffer coordinates
+     * @param cropWidth   crop rectangle width, in buffer coordinates
+     * @param cropHeight  crop rectangle height, in buffer coordinates
+     * @param rotation    clockwise rotation applied after cropping: 0, 90, 180 or 270
+     * @param matrix      optional caller-owned array of at least cropWidth * cropHeight bytes that
+     *                    {@link #getMatrix()} fills instead of allocating; may be null, in which case
+     *                    the array is borrowed from the current {@link FrameBufferPool} scope, if any
+     * @param table       optional 256-entry table mapping every luminance read from the buffer; may be
+     *                    null for identity
+     */
+    public ByteBufferLuminanceSource(ByteBuffer buffer,
+                                     int dataWidth,
+                                     int dataHeight,
+                                     int rowStride,
+                                     int pixelStride,
+                                     int left,
+                                     int top,
+                                     int cropWidth,
+                                     int cropHeight,
+                                     int rotation,
+                                     byte[] matrix,
+                                     byte[] table) {
+        super(rotation == 90 || rotation == 270 ? cropHeight : cropWidth,
+                rotation == 90 || rotation == 270 ? cropWidth : cropHeight);
+
+        if (rotation != 0 && rotation != 90 && rotation != 180 && rotation != 270) {
+            throw new IllegalArgumentException("Rotation must be 0, 90, 180 or 270: " + rotation);
+        }
+        if (left < 0 || top < 0 || left + cropWidth > dataWidth || top + cropHeight > dataHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+        if (rowStride < dataWidth * pixelStride - (pixelStride - 1)) {
+            throw new IllegalArgumentException("Row stride is smaller than the row: " + rowStride);
+        }
+        if (matrix != null && matrix.length < cropWidth * cropHeight) {
+            throw new IllegalArgumentException("Matrix buffer is too small: " + matrix.length);
+        }
+        if (table != null && table.length != 256) {
+            throw new IllegalArgumentException("Table must have 256 entries: " + table.length);
+        }
+
+        // A private view, so bulk reads can move its position without touching the caller's buffer.
+        this.buffer = buffer.duplicate();
+        this.dataWidth = dataWidth;
+        this.dataHeight = dataHeight;
+        this.rowStride = rowStride;
+        this.pixelStride = pixelStride;
+        this.left = left;
+        this.top = top;
+        this.cropWidth = cropWidth;
+        this.cropHeight = cropHeight;
+        this.rotation = rotation;
+        this.matrix = matrix;
+        this.table = table;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        readRow(y, row, 0);
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        int width = getWidth();
+        int height = getHeight();
+        byte[] result = matrix;
+        if (result == null) {
+            FrameBufferPool pool = FrameBufferPool.current();
+            result = pool != null ? pool.borrowBytes(width * height) : new byte[width * height];
+        }
+        for (int y = 0; y < height; y++) {
+            readRow(y, result, y * width);
+        }
+        return result;
+    }
+
+    /**
+     * Copies rotated row {@code y} into {@code out} starting at {@code offset}. Every rotation is a
+     * start index in the buffer plus a constant step per output pixel.
+     */
+    private void readRow(int y, byte[] out, int offset) {
+        int start;
+        int step;
+        switch (rotation) {
+            case 90:
+                start = (top + cropHeight - 1) * rowStride + (left + y) * pixelStride;
+                step = -rowStride;
+                break;
+            case 180:
+                start = (top + cropHeight - 1 - y) * rowStride + (left + cropWidth - 1) * pixelStride;
+                step = -pixelStride;
+                break;
+            case 270:
+                start = top * rowStride + (left + cropWidth - 1 - y) * pixelStride;
+                step = rowStride;
+                break;
+            default:
+                start = (top + y) * rowStride + left * pixelStride;
+                step = pixelStride;
+                break;
+        }
+
+        int width = getWidth();
+        if (step == 1) {
+            // The Buffer cast keeps the call binary compatible with Java 8 / older Android runtimes.
+            ((Buffer) buffer).position(start);
+            buffer.get(out, offset, width);
+            if (table != null) {
+                // Mapped in place while the row is still in cache.
+                for (int x = offset, end = offset + width; x < end; x++) {
+                    out[x] = table[out[x] & 0xFF];
+                }
+            }
+            return;
+        }
+        if (table != null) {
+            for (int x = 0, index = start; x < width; x++, index += step) {
+                out[offset + x] = table[buffer.get(index) & 0xFF];
+            }
+            return;
+        }
+        for (int x = 0, index = start; x < width; x++, index += step) {
+            out[offset + x] = buffer.get(index);
+        }
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    /**
+     * The rectangle is given in the coordinates of this (rotated) source and mapped back onto the
+     * buffer, so the result shares the buffer and keeps the same rotation.
+     */
+    @Override
+    public LuminanceSourceImpl crop(int left, int top, int width, int height) {
+        int newLeft;
+        int newTop;
+        int newWidth;
+        int newHeight;
+        switch (rotation) {
+            case 90:
+                newLeft = this.left + top;
+                newTop = this.top + cropHeight - left - width;
+                newWidth = height;
+                newHeight = width;
+                break;
+            case 180:
+                newLeft = this.left + cropWidth - left - width;
+                newTop = this.top + cropHeight - top - height;
+                newWidth = width;
+                newHeight = height;
+                break;
+            case 270:
+                newLeft = this.left + cropWidth - top - height;
+                newTop = this.top + left;
+                newWidth = height;
+                newHeight = width;
+                break;
+            default:
+                newLeft = this.left + left;
+                newTop = this.top + top;
+                newWidth = width;
+                newHeight = height;
+                break;
+        }
+        return new ByteBufferLuminanceSource(buffer,
+                dataWidth,
+                dataHeight,
+                rowStride,
+                pixelStride,
+                newLeft,
+                newTop,
+                newWidth,
+                newHeight,
+                rotation,
+                null,
+                table);
+    }
+
+    @Override
+    public boolean isRotateSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSourceImpl rotateCounterClockwise() {
+        return new ByteBufferLuminanceSource(buffer,
+                dataWidth,
+                dataHeight,
+                rowStride,
+                pixelStride,
+                left,
+                top,
+                cropWidth,
+                cropHeight,
+                (rotation + 270) % 360,
+                null,
+                table);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.source;
+
+import com.google.zxing.common.FrameBufferPool;
+
+/**
+ * <p>A per-pixel luminance transform expressed as a 256-entry lookup table. The table is built once
+ * per frame (or once for all frames, for static curves) and applied while the pixels are copied out
+ * of the camera buffer, see {@link ByteBufferLuminanceSource}, so the transform costs one table load
+ * per pixel instead of any floating point math or branching.</p>
+ *
+ * <p>Adaptive transforms ({@link #CONTRAST}, {@link #EQUALIZE}) build their table from a histogram of
+ * every {@link #SAMPLE_STEP}th row of the frame.</p>
+ */
+public abstract class LuminancePreprocessor {
+
+    private static final int SAMPLE_STEP = 4;
+
+    /**
+     * Leaves luminance untouched; {@link #table(LuminanceSourceImpl)} returns null.
+     */
+    public static final LuminancePreprocessor NONE = new LuminancePreprocessor() {
+        @Override
+        public byte[] table(LuminanceSourceImpl source) {
+            return null;
+        }
+    };
+
+    /**
+     * Gamma 4 curve, darkens mid tones to pull stylised codes out of busy backgrounds.
+     */
+    public static final LuminancePreprocessor GAMMA = gamma(4f);
+
+    /**
+     * Gamma 4 followed by a random 3x-6x linear gain per frame, wrapping on overflow. This is the
+     * historical behaviour of the camera analyzers, kept bit-exact.
+     */
+    public static final LuminancePreprocessor GAMMA_LINEAR = new LuminancePreprocessor() {
+
+        private final byte[][] tables = new byte[4][];
+
+        {
+            for (int gain = 3; gain <= 6; gain++) {
+                byte[] table = new byte[256];
+                for (int i = 0; i < 256; i++) {
+                    byte b = (byte) (255 * Math.pow(i / 255f, 4f));
+                    table[i] = (byte) (b * gain);
+                }
+                tables[gain - 3] = table;
+            }
+        }
+
+        @Override
+        public byte[] table(LuminanceSourceImpl source) {
+            return tables[(int) (Math.random() * 4)];
+        }
+    };
+
+    /**
+     * Linear stretch of the 1st..99th percentile of the frame onto 0..255, for washed out or
+     * light-coloured codes.
+     */
+    public static final LuminancePreprocessor CONTRAST = new LuminancePreprocessor() {
+        @Override
+        public byte[] table(LuminanceSourceImpl source) {
+            int[] histogram = new int[256];
+            int total = histogram(source, histogram);
+            int low = percentile(histogram, total / 100);
+            int high = percentile(histogram, total - total / 100);
+            if (high <= low) {
+                return null;
+            }
+            byte[] table = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                int value = (i - low) * 255 / (high - low);
+                table[i] = (byte) (value < 0 ? 0 : Math.min(value, 255));
+            }
+            return table;
+        }
+    };
+
+    /**
+     * Histogram equalization of the frame.
+     */
+    public static final LuminancePreprocessor EQUALIZE = new LuminancePreprocessor() {
+        @Override
+        public byte[] table(LuminanceSourceImpl source) {
+            int[] histogram = new int[256];
+            int total = histogram(source, histogram);
+            int first = 0;
+            while (first < 255 && histogram[first] == 0) {
+                first++;
+            }
+            int range = total - histogram[first];
+            if (range <= 0) {
+                return null;
+            }
+            byte[] table = new byte[256];
+            int cumulative = 0;
+            for (int i = 0; i < 256; i++) {
+                cumulative += histogram[i];
+                int value = (int) ((long) (cumulative - histogram[first]) * 255 / range);
+                table[i] = (byte) (value < 0 ? 0 : value);
+            }
+            return table;
+        }
+    };
+
+    /**
+     * The table is built before the crop is rotated, because it is applied while the pixels are copied out
+     * and rotated. Implementations must therefore not depend on pixel orientation; the histogram-based
+     * ones do not.
+     *
+     * @param source the cropped scan rect in sensor orientation, not yet rotated
+     * @return a 256-entry table mapping input luminance to output luminance, or null for identity
+     */
+    public abstract byte[] table(LuminanceSourceImpl source);
+
+    /**
+     * @param gamma exponent applied to normalised luminance
+     * @return a static gamma curve
+     */
+    public static LuminancePreprocessor gamma(float gamma) {
+        final byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (byte) Math.round(255 * Math.pow(i / 255f, gamma));
+        }
+        return new LuminancePreprocessor() {
+            @Override
+            public byte[] table(LuminanceSourceImpl source) {
+                return table;
+            }
+        };
+    }
+
+    /**
+     * Fills {@code histogram} from every {@link #SAMPLE_STEP}th row of {@code source}.
+     *
+     * @return number of sampled pixels
+     */
+    private static int histogram(LuminanceSourceImpl source, int[] histogram) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        FrameBufferPool pool = FrameBufferPool.current();
+        byte[] row = pool != null ? pool.borrowBytes(width) : new byte[width];
+        int total = 0;
+        for (int y = SAMPLE_STEP / 2; y < height; y += SAMPLE_STEP) {
+            row = source.getRow(y, row);
+            for (int x = 0; x < width; x++) {
+                histogram[row[x] & 0xFF]++;
+            }
+            total += width;
+        }
+        return total;
+    }
+
+    /**
+     * @return smallest luminance whose cumulative count exceeds {@code count}
+     */
+    private static int percentile(int[] histogram, int count) {
+        int cumulative = 0;
+        for (int i = 0; i < 256; i++) {
+            cumulative += histogram[i];
+            if (cumulative > count) {
+                return i;
+            }
+        }
+        return 255;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.source;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Builds luminance sources from color pixels one row at a time. Unlike {@link RGBLuminanceSource},
+ * the caller never materializes an {@code int[width * height]} ARGB copy of the image: each row is
+ * read into a small row buffer and converted straight into a luminance plane that is four times
+ * smaller.
+ * <p>
+ * The plane and the row buffers belong to the factory and are reused by the next call whenever
+ * the image size allows, so a source returned by this factory is only valid until the next call on
+ * the same factory. Like the binarizers, an instance is not thread-safe.
+ * <p>
+ * Color pixels use the same cheap green-favouring average as {@link RGBLuminanceSource}, so both
+ * produce identical planes for the same image.
+ */
+public final class LuminanceSourceFactory {
+
+    /**
+     * Packed pixel layouts accepted by {@link #fromPacked} and {@link #fromBuffer}, matching the
+     * in-memory layout of the Android bitmap configs of the same name.
+     */
+    public enum PixelFormat {
+
+        /**
+         * 4 bytes per pixel in R, G, B, A byte order.
+         */
+        ARGB_8888(4),
+
+        /**
+         * 2 bytes per pixel, a little endian short with red in the top 5 bits and blue in the
+         * bottom 5 bits.
+         */
+        RGB_565(2),
+
+        /**
+         * 1 byte per pixel, taken as the luminance itself.
+         */
+        ALPHA_8(1);
+
+        private final int bytesPerPixel;
+
+        PixelFormat(int bytesPerPixel) {
+            this.bytesPerPixel = bytesPerPixel;
+        }
+
+        public int getBytesPerPixel() {
+            return bytesPerPixel;
+        }
+    }
+
+    /**
+     * Supplies one row of ARGB ints, e.g. {@code bitmap.getPixels(row, 0, width, 0, y, width, 1)}.
+     */
+    public interface ArgbRows {
+        void readRow(int y, int[] row);
+    }
+
+    /**
+     * Supplies one row of packed pixels in the {@link PixelFormat} given to {@link #fromPacked}.
+     */
+    public interface PackedRows {
+        void readRow(int y, byte[] row);
+    }
+
+    private byte[] plane;
+    private int[] argbRow;
+    private byte[] packedRow;
+
+    /**
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @param rows   reads row {@code y} into the first {@code width} entries of the given array
+     * @return a source over the factory's plane, valid until the next call on this factory
+     */
+    public LuminanceSourceBase fromArgb(int width, int height, ArgbRows rows) {
+        byte[] luminances = plane(width, height);
+        if (argbRow == null || argbRow.length < width) {
+            argbRow = new int[width];
+        }
+        int[] row = argbRow;
+        for (int y = 0, offset = 0; y < height; y++, offset += width) {
+            rows.readRow(y, row);
+            argbToLuminance(row, 0, luminances, offset, width);
+        }
+        return new PlanarYUVLuminanceSource(luminances, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * @param width  image width in pixels
+     * @param height image height in pixels
+     * @param format layout of the packed rows
+     * @param rows   reads row {@code y} into the first {@code width * bytesPerPixel} bytes
+     * @return a source over the factory's plane, valid until the next call on this factory
+     */
+    public LuminanceSourceBase fromPacked(int width, int height, PixelFormat format, PackedRows rows) {
+        byte[] luminances = plane(width, height);
+        int rowBytes = width * format.getBytesPerPixel();
+        if (packedRow == null || packedRow.length < rowBytes) {
+            packedRow = new byte[rowBytes];
+        }
+        byte[] row = packedRow;
+        for (int y = 0, offset = 0; y < height; y++, offset += width) {
+            rows.readRow(y, row);
+            packedToLuminance(row, 0, format, luminances, offset, width);
+        }
+        return new PlanarYUVLuminanceSource(luminances, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * Converts packed pixels held in a buffer, e.g. filled by {@code Bitmap.copyPixelsToBuffer} or a
+     * locked native surface. The first row starts at index 0. Rows are copied out one at a time
+     * through a duplicate, so the caller's position and limit are never touched.
+     *
+     * @param rowStride distance in bytes between the starts of two consecutive rows
+     */
+    public LuminanceSourceBase fromBuffer(ByteBuffer pixels, int width, int height, int rowStride, PixelFormat format) {
+        int rowBytes = width * format.getBytesPerPixel();
+        if (rowStride < rowBytes || (long) (height - 1) * rowStride + rowBytes > pixels.limit()) {
+            throw new IllegalArgumentException("Pixels do not fit within buffer: " + width + "x" + height
+                    + ", rowStride = " + rowStride + ", limit = " + pixels.limit());
+        }
+        final ByteBuffer source = pixels.duplicate();
+        final int stride = rowStride;
+        final int length = rowBytes;
+        return fromPacked(width, height, format, new PackedRows() {
+            @Override
+            public void readRow(int y, byte[] row) {
+                ((Buffer) source).position(y * stride);
+                source.get(row, 0, length);
+            }
+        });
+    }
+
+    private byte[] plane(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+        }
+        int size = width * height;
+        if (plane == null || plane.length < size) {
+            plane = new byte[size];
+        }
+        return plane;
+    }
+
+    /**
+     * Converts {@code width} ARGB ints starting at {@code argb[srcOffset]} into luminance bytes
+     * starting at {@code luminances[dstOffset]}.
+     */
+    public static void argbToLuminance(int[] argb, int srcOffset, byte[] luminances, int dstOffset, int width) {
+        for (int x = 0; x < width; x++) {
+            int pixel = argb[srcOffset + x];
+            int r = (pixel >> 16) & 0xff; // red
+            int g2 = (pixel >> 7) & 0x1fe; // 2 * green
+            int b = pixel & 0xff; // blue
+            luminances[dstOffset + x] = (byte) ((r + g2 + b) / 4);
+        }
+    }
+
+    /**
+     * Converts {@code width} packed pixels starting at byte {@code srcOffset} into luminance bytes
+     * starting at {@code luminances[dstOffset]}.
+     */
+    public static void packedToLuminance(byte[] pixels, int srcOffset, PixelFormat format,
+                                         byte[] luminances, int dstOffset, int width) {
+        switch (format) {
+            case ARGB_8888:
+                for (int x = 0, i = srcOffset; x < width; x++, i += 4) {
+                    int r = pixels[i] & 0xff;
+                    int g = pixels[i + 1] & 0xff;
+                    int b = pixels[i + 2] & 0xff;
+                    luminances[dstOffset + x] = (byte) ((r + 2 * g + b) / 4);
+                }
+                break;
+            case RGB_565:
+                for (int x = 0, i = srcOffset; x < width; x++, i += 2) {
+                    int pixel = (pixels[i] & 0xff) | ((pixels[i + 1] & 0xff) << 8);
+                    int r = (pixel >> 11) & 0x1f;
+                    int g = (pixel >> 5) & 0x3f;
+                    int b = pixel & 0x1f;
+                    // Widen to 8 bits by repeating the top bits, so full intensity stays 255
+                    r = (r << 3) | (r >> 2);
+                    g = (g << 2) | (g >> 4);
+                    b = (b << 3) | (b >> 2);
+                    luminances[dstOffset + x] = (byte) ((r + 2 * g + b) / 4);
+                }
+                break;
+            case ALPHA_8:
+                System.arraycopy(pixels, srcOffset, luminances, dstOffset, width);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+}
@@ -1,22 +1,24 @@
 package lib.kalu.zxing.analyze;
 
 import android.content.Context;
-import android.content.res.Configuration;
 import android.widget.ImageView;
 
 import com.google.zxing.Reader;
 import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
 import com.google.zxing.exception.ChecksumException;
 import com.google.zxing.exception.FormatException;
 import com.google.zxing.exception.NotFoundException;
 import com.google.zxing.exception.ReaderException;
+import com.google.zxing.source.LuminancePreprocessor;
+import com.google.zxing.source.LuminanceSourceImpl;
+
+import java.nio.ByteBuffer;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.camera.core.ImageProxy;
 
-import lib.kalu.zxing.util.LogUtil;
-
 /**
  * @description: 分析器
  * @date: 2021-05-07 14:56
@@ -28,34 +30,40 @@ public interface AnalyzerBaseImpl {
 
     /**
      * @param context
-     * @param crop
-     * @param cropWidth
-     * @param cropHeight
-     * @param cropLeft
-     * @param cropTop
-     * @param originalWidth
-     * @param originalHeight
+     * @param imageView
+     * @param buffer      Y平面（相机缓冲区或其拷贝）
+     * @param width       图像宽
+     * @param height      图像高
+     * @param rowStride   行跨度
+     * @param pixelStride 像素跨度
+     * @param orientation
+     * @return
+     */
+    @Nullable
+    Result analyzeFrame(@NonNull Context context, @Nullable ImageView imageView, @NonNull ByteBuffer buffer, int width, int height, int rowStride, int pixelStride, int orientation);
+
+    /**
+     * @param context
+     * @param crop     扫描框区域（已裁剪）
+     * @param rotation crop 顺时针旋转 rotation 度后为视图方向，0 表示 crop 已旋转
+     * @param original 整帧图像（未旋转）
      * @return
      */
     @Nullable
-    Result analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
+    Result analyzeData(@NonNull Context context, @NonNull LuminanceSourceImpl crop, int rotation, @NonNull LuminanceSourceImpl original);
 
     /**
      * @param context
-     * @param crop
-     * @param cropWidth
-     * @param cropHeight
-     * @param cropLeft
-     * @param cropTop
-     * @param originalWidth
-     * @param originalHeight
+     * @param crop     扫描框区域（已裁剪）
+     * @param rotation crop 顺时针旋转 rotation 度后为视图方向，0 表示 crop 已旋转
+     * @param original 整帧图像（未旋转）
      * @return
      */
-    Result analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight);
+    Result analyzeRect(@NonNull Context context, @NonNull LuminanceSourceImpl crop, int rotation, @NonNull LuminanceSourceImpl original);
 
-    Result decodeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight) throws ReaderException;
+    Result decodeRect(@NonNull Context context, @NonNull LuminanceSourceImpl crop) throws ReaderException;
 
-    Result decodeFull(@NonNull Context context, @NonNull byte[] original, int originalWidth, int originalHeight);
+    Result decodeFull(@NonNull Context context, @NonNull LuminanceSourceImpl original);
 
     @Nullable
     Reader createReader();
@@ -67,61 +75,75 @@ public interface AnalyzerBaseImpl {
      */
     float ratio();
 
-    default byte[] crop(@NonNull byte[] original, @NonNull int originalWidth, @NonNull int originalHeight, int cropWidth, int cropHeight, int cropLeft, int cropTop, int orientation, boolean isGM, boolean isXX) {
-        LogUtil.log("crop => orientation = " + (orientation == Configuration.ORIENTATION_PORTRAIT ? "竖屏" : "横屏") + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight);
+    /**
+     * 图像增强：按帧生成 256 项查找表，在读取扫描框（裁剪、旋转）的同一遍中逐像素查表
+     * <p>
+     * 默认伽马 + 线性增强，支持花式、浅色二维码识别；LuminancePreprocessor.NONE 关闭增强
+     *
+     * @return
+     */
+    default LuminancePreprocessor preprocessor() {
+        return LuminancePreprocessor.GAMMA_LINEAR;
+    }
 
-        int yMin = cropTop;
-        if (yMin < 0) {
-            yMin = 0;
-        }
-        int yMax = yMin + cropHeight;
-        if (yMin > originalHeight) {
-            yMin = originalHeight;
-        }
-        int xMin = cropLeft;
-        if (xMin < 0) {
-            xMin = 0;
-        }
-        int xMax = cropLeft + cropWidth;
-        if (xMax > originalWidth) {
-            xMax = originalWidth;
-        }
+    /**
+     * 竖屏时是否把扫描框旋转为视图方向后再识别
+     * <p>
+     * 二维码与方向无关，返回 false 时直接识别传感器方向的图像，省去一次整块旋转，只旋转识别结果的定位点
+     *
+     * @return
+     */
+    default boolean rotateFrame() {
+        return true;
+    }
 
-        byte[] crop = new byte[cropWidth * cropHeight];
-        short random = 0;
-        if (isXX) {
-            random = (short) (Math.random() * 4 + 3);
-        }
+    /**
+     * 扫描框识别与整帧识别是否并行
+     * <p>
+     * false：扫描框识别失败后再识别整帧；true：有空闲解码线程时整帧（缩小后）借用它同时识别，先成功者返回，
+     * 不额外开线程，多核设备上识别失败帧的耗时约减半；没有空闲线程时仍按顺序识别
+     *
+     * @return
+     */
+    default boolean raceFull() {
+        return false;
+    }
 
-        for (int y = yMin; y < yMax; y++) {
-            for (int x = xMin; x < xMax; x++) {
-
-                int indexOriginal = x + y * originalWidth;
-                int indexData;
-                if (orientation == Configuration.ORIENTATION_PORTRAIT) {
-                    indexData = (x - xMin) * cropHeight + cropHeight - (y - cropTop) - 1;
-                } else {
-                    indexData = (x - xMin) + (y - cropTop) * cropWidth;
-                }
-
-                if (isGM && isXX) {
-                    byte a = original[indexOriginal];
-                    byte b = (byte) (255 * Math.pow((a & 0xff) / 255f, 4f));
-                    byte c = (byte) (b * random);
-                    crop[indexData] = c;
-                } else if (isGM) {
-                    byte a = original[indexOriginal];
-                    byte b = (byte) (255 * Math.pow((a & 0xff) / 255f, 4f));
-                    crop[indexData] = b;
-                } else if (isXX) {
-                    byte a = original[indexOriginal];
-                    byte c = (byte) (a * random);
-                    crop[indexData] = c;
-                } else {
-                    crop[indexData] = original[indexOriginal];
-                }
+    /**
+     * 定位点顺时针旋转 rotation 度（原地修改）
+     *
+     * @param result
+     * @param rotation 0、90、180、270
+     * @param width    旋转前图像宽
+     * @param height   旋转前图像高
+     * @return
+     */
+    default Result rotateResult(@Nullable Result result, int rotation, int width, int height) {
+        if (null == result || rotation == 0)
+            return result;
+
+        ResultPoint[] points = result.getResultPoints();
+        if (null == points)
+            return result;
+
+        for (int i = 0; i < points.length; i++) {
+            ResultPoint point = points[i];
+            if (null == point)
+                continue;
+            float x = point.getX();
+            float y = point.getY();
+            switch (rotation) {
+                case 90:
+                    points[i] = new ResultPoint(height - y, x);
+                    break;
+                case 180:
+                    points[i] = new ResultPoint(width - x, height - y);
+                    break;
+                case 270:
+                    points[i] = new ResultPoint(y, width - x);
+                    break;
             }
         }
-        return crop;
+        return result;
     }
 }
@@ -3,6 +3,7 @@ package lib.kalu.zxing.analyze;
 import android.content.Context;
 
 import com.google.zxing.Result;
+import com.google.zxing.source.LuminanceSourceImpl;
 
 import lib.kalu.zxing.util.LogUtil;
 
@@ -18,10 +19,10 @@ import org.jetbrains.annotations.NotNull;
 interface AnalyzerDataImpl extends AnalyzerImageImpl {
     @Nullable
     @Override
-    default Result analyzeData(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    default Result analyzeData(@NonNull Context context, @NonNull LuminanceSourceImpl crop, int rotation, @NonNull LuminanceSourceImpl original) {
 
-        LogUtil.log("analyzeData => cropWidth = " + cropWidth + ", cropHeight = " + cropHeight + ", originalWidth = " + originalWidth + ", originalHeight = " + originalHeight);
-        return analyzeRect(context, crop, cropWidth, cropHeight, cropLeft, cropTop, original, originalWidth, originalHeight);
+        LogUtil.log("analyzeData => cropWidth = " + crop.getWidth() + ", cropHeight = " + crop.getHeight() + ", rotation = " + rotation + ", originalWidth = " + original.getWidth() + ", originalHeight = " + original.getHeight());
+        return analyzeRect(context, crop, rotation, original);
     }
 
     //    @Nullable
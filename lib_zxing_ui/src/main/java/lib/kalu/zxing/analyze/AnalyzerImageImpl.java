@@ -11,6 +11,10 @@ import android.view.View;
 import android.widget.ImageView;
 
 import com.google.zxing.Result;
+import com.google.zxing.common.FrameBufferPool;
+import com.google.zxing.source.ByteBufferLuminanceSource;
+import com.google.zxing.source.LuminanceSourceImpl;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
@@ -21,6 +25,7 @@ import androidx.camera.core.ImageProxy;
 
 import org.jetbrains.annotations.NotNull;
 
+import lib.kalu.frame.FrameCrop;
 import lib.kalu.zxing.util.LogUtil;
 
 /**
@@ -39,18 +44,44 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
         if (imageProxy.getFormat() != ImageFormat.YUV_420_888)
             return null;
 
-        ByteBuffer buffer = imageProxy.getPlanes()[0].getBuffer();
-        byte[] original = new byte[buffer.remaining()];
-        buffer.get(original);
-        int originalWidth = imageProxy.getWidth();
-        int originalHeight = imageProxy.getHeight();
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        return analyzeFrame(context, imageView, plane.getBuffer(), imageProxy.getWidth(), imageProxy.getHeight(), plane.getRowStride(), plane.getPixelStride(), orientation);
+    }
+
+    @Nullable
+    @Override
+    default Result analyzeFrame(@NonNull Context context, @Nullable ImageView imageView, @NonNull ByteBuffer buffer, int originalWidth, int originalHeight, int rowStride, int pixelStride, int orientation) {
+
+        // 帧缓冲池：本帧内裁剪、二值化等借用的数组在finally中统一归还
+        FrameBufferPool pool = FrameBufferPool.begin(originalWidth, originalHeight);
+        try {
+            // Y平面直接包装为LuminanceSource，按rowStride/pixelStride读取，不再整帧拷贝
+            LuminanceSourceImpl original = new ByteBufferLuminanceSource(buffer, originalWidth, originalHeight, rowStride, pixelStride);
+
+            // ratio() > 1F ? 全屏扫描 : 区域扫描
+            int cropWidth = ratio() >= 1F ? originalWidth : (int) (Math.min(originalWidth, originalHeight) * ratio());
+            int cropHeight = ratio() >= 1F ? originalHeight : cropWidth;
+            int cropLeft = ratio() >= 1F ? 0 : originalWidth / 2 - cropWidth / 2;
+            int cropTop = ratio() >= 1F ? 0 : originalHeight / 2 - cropHeight / 2;
+            // 竖屏：rotateFrame() ? 扫描框旋转后识别 : 直接识别传感器方向，结果定位点再旋转
+            boolean portrait = orientation == Configuration.ORIENTATION_PORTRAIT;
+            int rotation = portrait && rotateFrame() ? 90 : 0;
+            int pointRotation = portrait && !rotateFrame() ? 90 : 0;
+
+            // 图像增强查表：直方图与旋转无关，按源图行读取扫描框
+            LuminanceSourceImpl rect = original.crop(cropLeft, cropTop, cropWidth, cropHeight);
+            byte[] table = preprocessor().table(rect);
 
-        // ratio() > 1F ? 全屏扫描 : 区域扫描
-        int cropWidth = ratio() >= 1F ? originalWidth : (int) (Math.min(originalWidth, originalHeight) * ratio());
-        int cropHeight = ratio() >= 1F ? originalHeight : cropWidth;
-        int cropLeft = ratio() >= 1F ? 0 : originalWidth / 2 - cropWidth / 2;
-        int cropTop = ratio() >= 1F ? 0 : originalHeight / 2 - cropHeight / 2;
-        byte[] crop = crop(original, originalWidth, originalHeight, cropWidth, cropHeight, cropLeft, cropTop, orientation, true, true);
+            // 不旋转、不增强时直接读取相机缓冲区；否则分块裁剪、旋转、查表一次完成
+            LuminanceSourceImpl source;
+            if (rotation == 0 && null == table) {
+                source = rect;
+            } else {
+                byte[] crop = FrameCrop.crop(buffer, rowStride, pixelStride, cropLeft, cropTop, cropWidth, cropHeight, rotation, table, pool.borrowBytes(cropWidth * cropHeight));
+                int width = rotation == 90 ? cropHeight : cropWidth;
+                int height = rotation == 90 ? cropWidth : cropHeight;
+                source = new PlanarYUVLuminanceSource(crop, width, height, 0, 0, width, height);
+            }
 
 //        if (null != imageView && imageView.getVisibility() == View.VISIBLE) {
 //
@@ -73,6 +104,9 @@ interface AnalyzerImageImpl extends AnalyzerBaseImpl {
 //            }
 //        }
 
-        return analyzeData(context, crop, cropWidth, cropHeight, cropLeft, cropTop, original, originalWidth, originalHeight);
+            return analyzeData(context, source, pointRotation, original);
+        } finally {
+            pool.end();
+        }
     }
 }
@@ -14,7 +14,7 @@ import com.google.zxing.exception.FormatException;
 import com.google.zxing.exception.NotFoundException;
 import com.google.zxing.exception.ReaderException;
 import com.google.zxing.qrcode.QRCodeReader;
-import com.google.zxing.source.PlanarYUVLuminanceSource;
+import com.google.zxing.source.LuminanceSourceImpl;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -41,9 +41,9 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
 
 
     @Override
-    public Result decodeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight) throws ReaderException {
+    public Result decodeRect(@NonNull Context context, @NonNull LuminanceSourceImpl crop) throws ReaderException {
         try {
-            Result result = createReader().decode(new BinaryBitmap(new HybridBinarizer(new PlanarYUVLuminanceSource(crop, cropWidth, cropHeight, 0, 0, cropWidth, cropHeight))));
+            Result result = createReader().decode(new BinaryBitmap(new HybridBinarizer(crop)));
             if (null != result) {
                 LogUtil.log("decodeRect[succ] => text = " + result.getText());
                 return result;
@@ -61,9 +61,9 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
     }
 
     @Override
-    public Result decodeFull(@NonNull Context context, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    public Result decodeFull(@NonNull Context context, @NonNull LuminanceSourceImpl original) {
         try {
-            Result result = createReader().decode(new BinaryBitmap(new HybridBinarizer(new PlanarYUVLuminanceSource(original, originalWidth, originalHeight, 0, 0, originalWidth, originalHeight))));
+            Result result = createReader().decode(new BinaryBitmap(new HybridBinarizer(original)));
             if (null != result) {
                 LogUtil.log("decodeFull[succ] => text = " + result.getText());
                 return result;
@@ -88,4 +88,14 @@ public final class AnalyzerQrcode implements AnalyzerRectImpl {
         return 0.6F;
 //        return 1F;
     }
+
+    /**
+     * 四核及以上并行识别扫描框与整帧，只用解码调度器空闲的工作线程
+     *
+     * @return
+     */
+    @Override
+    public boolean raceFull() {
+        return Runtime.getRuntime().availableProcessors() >= 4;
+    }
 }
@@ -0,0 +1,213 @@
+package lib.kalu.zxing.analyze;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.FrameBufferPool;
+import com.google.zxing.source.LuminanceSourceImpl;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lib.kalu.zxing.camerax.DecodeScheduler;
+import lib.kalu.zxing.util.LogUtil;
+
+/**
+ * @description: 扫描框识别与整帧识别并行
+ * <p>
+ * 整帧任务借用解码调度器空闲的工作线程（{@link DecodeScheduler#trySubmitHelper}），不另开线程池，
+ * 总并发不超过工作线程数；没有空闲线程时不并行，调用方按顺序识别
+ * <p>
+ * 整帧在辅助线程缩小（短边 >= {@link #DOWNSCALE_MIN_SIDE} 时 2x2 取平均）拷贝到独立缓冲后再识别，调用线程不承担缩小的开销；
+ * 调用方返回前等待整帧读完，不会读到已回收的相机帧
+ * <p>
+ * 扫描框先成功时置取消标志：整帧任务在缩小前后、识别前检查，未开始识别的直接结束；已开始的识别无法打断，结果丢弃
+ * @date: 2021-06-16 11:05
+ */
+final class AnalyzerRace {
+
+    /**
+     * 短边不小于 720 时整帧缩小一半
+     */
+    private static final int DOWNSCALE_MIN_SIDE = 720;
+
+    /**
+     * 缩小时每隔多少行检查一次取消标志
+     */
+    private static final int CANCEL_CHECK_ROWS = 64;
+
+    private static final ConcurrentLinkedQueue<byte[]> FREE_BUFFERS = new ConcurrentLinkedQueue<>();
+
+    private AnalyzerRace() {
+    }
+
+    /**
+     * 一次整帧任务
+     */
+    static final class Full {
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        // 整帧读完（或放弃读取）后计数，之后调用方才能回收相机帧
+        private final CountDownLatch released = new CountDownLatch(1);
+        private Future<Result> future;
+    }
+
+    /**
+     * 调用线程：有空闲工作线程时提交整帧识别
+     *
+     * @param analyzer
+     * @param context
+     * @param original 整帧图像（未旋转），{@link #join} 返回前不能回收
+     * @return 没有空闲工作线程时返回 null，调用方顺序识别
+     */
+    @Nullable
+    static Full submitFull(@NonNull AnalyzerBaseImpl analyzer, @NonNull Context context, @NonNull LuminanceSourceImpl original) {
+
+        int scale = Math.min(original.getWidth(), original.getHeight()) >= DOWNSCALE_MIN_SIDE ? 2 : 1;
+        int width = original.getWidth() / scale;
+        int height = original.getHeight() / scale;
+
+        Full full = new Full();
+        full.future = DecodeScheduler.trySubmitHelper(new Callable<Result>() {
+            @Override
+            public Result call() {
+                FrameBufferPool pool = FrameBufferPool.begin(width, height);
+                byte[] data = null;
+                try {
+                    boolean copied = false;
+                    try {
+                        if (!full.cancelled.get()) {
+                            data = obtain(width * height);
+                            copied = downscale(original, scale, data, width, height, full.cancelled);
+                        }
+                    } finally {
+                        full.released.countDown();
+                    }
+                    if (!copied || full.cancelled.get())
+                        return null;
+                    LuminanceSourceImpl source = new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height);
+                    return scaleResult(analyzer.decodeFull(context, source), scale);
+                } finally {
+                    pool.end();
+                    if (null != data) {
+                        FREE_BUFFERS.offer(data);
+                    }
+                }
+            }
+        });
+        return null == full.future ? null : full;
+    }
+
+    /**
+     * 调用线程：扫描框识别结束后汇总，返回前等待整帧任务读完相机帧
+     *
+     * @param full 整帧任务
+     * @param rect 扫描框识别结果，null 表示失败
+     * @return
+     */
+    @Nullable
+    static Result join(@NonNull Full full, @Nullable Result rect) {
+        if (null != rect) {
+            // 扫描框先成功：整帧任务不再识别，已开始的结果丢弃
+            full.cancelled.set(true);
+            awaitReleased(full);
+            LogUtil.log("AnalyzerRace => rect");
+            return rect;
+        }
+        try {
+            Result result = full.future.get();
+            LogUtil.log("AnalyzerRace => full, succ = " + (null != result));
+            return result;
+        } catch (InterruptedException e) {
+            full.cancelled.set(true);
+            awaitReleased(full);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LogUtil.log("AnalyzerRace => " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static void awaitReleased(@NonNull Full full) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                full.released.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false 表示中途取消
+     */
+    private static boolean downscale(LuminanceSourceImpl original, int scale, byte[] out, int width, int height, AtomicBoolean cancelled) {
+        FrameBufferPool pool = FrameBufferPool.current();
+        int rowLength = original.getWidth();
+        byte[] row0 = null == pool ? new byte[rowLength] : pool.borrowBytes(rowLength);
+        if (scale == 1) {
+            for (int y = 0; y < height; y++) {
+                if (y % CANCEL_CHECK_ROWS == 0 && cancelled.get())
+                    return false;
+                row0 = original.getRow(y, row0);
+                System.arraycopy(row0, 0, out, y * width, width);
+            }
+            return true;
+        }
+
+        byte[] row1 = null == pool ? new byte[rowLength] : pool.borrowBytes(rowLength);
+        for (int y = 0; y < height; y++) {
+            if (y % CANCEL_CHECK_ROWS == 0 && cancelled.get())
+                return false;
+            row0 = original.getRow(2 * y, row0);
+            row1 = original.getRow(2 * y + 1, row1);
+            int offset = y * width;
+            for (int x = 0, i = 0; x < width; x++, i += 2) {
+                int sum = (row0[i] & 0xFF) + (row0[i + 1] & 0xFF) + (row1[i] & 0xFF) + (row1[i + 1] & 0xFF);
+                out[offset + x] = (byte) ((sum + 2) >> 2);
+            }
+        }
+        return true;
+    }
+
+    private static Result scaleResult(@Nullable Result result, int scale) {
+        if (null == result || scale == 1)
+            return result;
+
+        ResultPoint[] points = result.getResultPoints();
+        if (null == points)
+            return result;
+
+        for (int i = 0; i < points.length; i++) {
+            ResultPoint point = points[i];
+            if (null == point)
+                continue;
+            points[i] = new ResultPoint(point.getX() * scale, point.getY() * scale);
+        }
+        return result;
+    }
+
+    private static byte[] obtain(int size) {
+        byte[] data;
+        while (null != (data = FREE_BUFFERS.poll())) {
+            if (data.length == size)
+                return data;
+        }
+        return new byte[size];
+    }
+}
@@ -11,6 +11,7 @@ import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.exception.NotFoundException;
 import com.google.zxing.exception.ReaderException;
+import com.google.zxing.source.LuminanceSourceImpl;
 import com.google.zxing.source.PlanarYUVLuminanceSource;
 import com.google.zxing.Result;
 import com.google.zxing.common.GlobalHistogramBinarizer;
@@ -33,11 +34,24 @@ import lib.kalu.zxing.util.LogUtil;
 interface AnalyzerRectImpl extends AnalyzerDataImpl {
 
     @Override
-    default Result analyzeRect(@NonNull Context context, @NonNull byte[] crop, int cropWidth, int cropHeight, int cropLeft, int cropTop, @NonNull byte[] original, int originalWidth, int originalHeight) {
+    default Result analyzeRect(@NonNull Context context, @NonNull LuminanceSourceImpl crop, int rotation, @NonNull LuminanceSourceImpl original) {
+
+        // 并行：有空闲解码线程时整帧先提交，扫描框在当前线程识别
+        AnalyzerRace.Full full = raceFull() ? AnalyzerRace.submitFull(this, context, original) : null;
+        if (null != full) {
+            Result result = null;
+            try {
+                result = rotateResult(decodeRect(context, crop), rotation, crop.getWidth(), crop.getHeight());
+            } catch (Exception e) {
+            }
+            return AnalyzerRace.join(full, result);
+        }
+
         try {
-            return decodeRect(context, crop, cropWidth, cropHeight);
+            Result result = decodeRect(context, crop);
+            return rotateResult(result, rotation, crop.getWidth(), crop.getHeight());
         } catch (ReaderException e) {
-            return decodeFull(context, original, originalWidth, originalHeight);
+            return decodeFull(context, original);
         } catch (Exception e) {
             return null;
         }
@@ -11,6 +11,7 @@ import android.widget.ImageView;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.zxing.Result;
+import com.google.zxing.common.FrameBufferPool;
 import com.google.zxing.common.detector.MathUtils;
 
 import lib.kalu.zxing.analyze.AnalyzerQrcode;
@@ -38,8 +39,7 @@ import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.FragmentActivity;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * @description:
@@ -69,6 +69,8 @@ public final class CameraManager implements ICameraImpl {
 
     private final CameraConfig CAMERA_CONFIG = new CameraConfig();
 
+    private final DecodeScheduler DECODE_SCHEDULER = new DecodeScheduler();
+
     private Camera mCamera;
 
 //    private final MutableLiveData<Result> MUTABLE_LIVE_DATA = new MutableLiveData<>();
@@ -204,16 +206,38 @@ public final class CameraManager implements ICameraImpl {
                     ImageAnalysis.Builder builder = new ImageAnalysis.Builder().setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST);
                     ImageAnalysis imageAnalysis = CAMERA_CONFIG.options(builder);
 
-                    // 分析
-                    ExecutorService threadPool = Executors.newFixedThreadPool(2);
-                    imageAnalysis.setAnalyzer(threadPool, new ImageAnalysis.Analyzer() {
+                    // 分析：分发线程拷贝帧后交给解码线程，识别成功后调度器自动取消其余帧
+                    Executor dispatcher = DECODE_SCHEDULER.start(new DecodeScheduler.Callback() {
+                        @Nullable
                         @Override
-                        public void analyze(@NonNull ImageProxy image) {
-                            boolean analysis = analysis(activity, imageView, image);
-                            if (analysis) {
-                                threadPool.shutdownNow();
+                        public Result decode(@NonNull DecodeScheduler.Frame frame) {
+                            return analysis(activity, imageView, frame);
+                        }
+
+                        @Override
+                        public void onResult(@NonNull Result result) {
+                            activity.runOnUiThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    release(context);
+                                    if (null != mOnCameraStatusChangeListener) {
+                                        mOnCameraStatusChangeListener.onResult(result);
+                                    }
+                                }
+                            });
+                        }
+
+                        @Override
+                        public void onFps(float fps) {
+                            if (null != mOnCameraStatusChangeListener) {
+                                mOnCameraStatusChangeListener.onFps(fps);
                             }
-                            image.close();
+                        }
+                    });
+                    imageAnalysis.setAnalyzer(dispatcher, new ImageAnalysis.Analyzer() {
+                        @Override
+                        public void analyze(@NonNull ImageProxy image) {
+                            DECODE_SCHEDULER.submit(image);
                         }
                     });
                     if (mCamera != null) {
@@ -255,6 +279,30 @@ public final class CameraManager implements ICameraImpl {
         return true;
     }
 
+    /**
+     * 解码线程调用
+     *
+     * @param activity
+     * @param imageView
+     * @param frame
+     * @return
+     */
+    @Nullable
+    private Result analysis(@NonNull Activity activity, @Nullable ImageView imageView, @NonNull DecodeScheduler.Frame frame) {
+
+        if (null == mOnCameraStatusChangeListener)
+            return null;
+
+        boolean status = activity.getIntent().getBooleanExtra(INTENT_ZXING_STATUS, true);
+        LogUtil.log("analysis => status = " + status + ", thread = " + Thread.currentThread().getName());
+        if (!status)
+            return null;
+
+        Context context = activity.getApplicationContext();
+        AnalyzerQrcode analyzerQrcode = AnalyzerQrcode.getAnalyzer();
+        return analyzerQrcode.analyzeFrame(context, imageView, frame.getBuffer(), frame.getWidth(), frame.getHeight(), frame.getRowStride(), frame.getPixelStride(), context.getResources().getConfiguration().orientation);
+    }
+
     @Override
     public boolean isZoom() {
         return true;
@@ -400,6 +448,7 @@ public final class CameraManager implements ICameraImpl {
         // 光线传感器
         LightSensorEventManager.build().unregister();
 
+        // 先解绑用例，相机不再往分发线程送帧
         try {
             ListenableFuture<ProcessCameraProvider> instance = ProcessCameraProvider.getInstance(context);
             ProcessCameraProvider provider = instance.get();
@@ -409,6 +458,13 @@ public final class CameraManager implements ICameraImpl {
             LogUtil.log(e.getMessage(), e);
         }
 
+        // 再停解码线程
+        DECODE_SCHEDULER.shutdown();
+
+        // 帧缓冲池：解码线程已停，释放各线程保留的缓冲
+        LogUtil.log("release => pool hit = " + FrameBufferPool.getHitCount() + ", miss = " + FrameBufferPool.getMissCount() + ", drop = " + FrameBufferPool.getDropCount());
+        FrameBufferPool.clear();
+
         // 蜂鸣
 //        BeepUtil.beep();
 //        BeepUtil.release();
@@ -0,0 +1,455 @@
+package lib.kalu.zxing.camerax;
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.ImageProxy;
+
+import com.google.zxing.Result;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lib.kalu.zxing.util.LogUtil;
+
+/**
+ * @description: 解码调度器：相机帧分发到 N 个解码线程
+ * <p>
+ * STRATEGY_KEEP_ONLY_LATEST 下 CameraX 在上一帧 close 之前不会送来下一帧，
+ * 所以分发线程只拷贝 Y 平面后立即 close，解码在工作线程完成
+ * 拷贝是每帧一次整个 Y 平面的 memcpy，目标数组从 mFreeBuffers 复用（最多工作线程数 + 1 块），分辨率不变时不再分配
+ * <ul>
+ * <li>同时解码的帧数不超过工作线程数，全忙时只保留最新一帧，旧帧丢弃</li>
+ * <li>时间戳不递增、排队超过 {@link #STALE_FRAME_NS} 的帧丢弃</li>
+ * <li>识别成功后取消其余帧，本轮结果只回调一次</li>
+ * <li>每秒统计一次解码帧率</li>
+ * <li>解码线程可借用空闲的工作线程执行本帧的辅助任务（{@link #trySubmitHelper}），总并发仍不超过工作线程数</li>
+ * </ul>
+ * start / shutdown 可重复调用，线程在 start 时按需创建
+ * @date: 2021-06-15 10:30
+ */
+public final class DecodeScheduler {
+
+    /**
+     * 排队超过 200ms 的帧视为过期
+     */
+    private static final long STALE_FRAME_NS = 200_000_000L;
+
+    private static final long FPS_WINDOW_NS = 1_000_000_000L;
+
+    /**
+     * 当前解码线程所属的调度器，只在 Callback#decode 期间有值
+     */
+    private static final ThreadLocal<DecodeScheduler> CURRENT = new ThreadLocal<>();
+
+    private final int mWorkers;
+    private final Object mLock = new Object();
+    private final ArrayDeque<byte[]> mFreeBuffers = new ArrayDeque<>();
+
+    private ExecutorService mDispatcher;
+    private ExecutorService mExecutor;
+    private Callback mCallback;
+    private Frame mPending;
+    private int mInFlight;
+    private int mGeneration;
+    private boolean mCancelled = true;
+    private long mLastTimestamp;
+
+    private long mWindowStart;
+    private int mWindowCount;
+    private float mFps;
+    private long mDecodedCount;
+    private long mDroppedCount;
+
+    /**
+     * 工作线程数默认 CPU 核数 - 1（至少 1 个）
+     */
+    public DecodeScheduler() {
+        this(Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public DecodeScheduler(int workers) {
+        this.mWorkers = Math.max(1, workers);
+    }
+
+    /**
+     * 开始新一轮扫描
+     *
+     * @param callback
+     * @return 分发线程，用于 ImageAnalysis.setAnalyzer
+     */
+    @NonNull
+    public Executor start(@NonNull Callback callback) {
+        synchronized (mLock) {
+            if (null == mExecutor) {
+                mExecutor = Executors.newFixedThreadPool(mWorkers, new NamedThreadFactory("zxing-decode"));
+                mDispatcher = Executors.newSingleThreadExecutor(new NamedThreadFactory("zxing-dispatch"));
+            }
+            mGeneration++;
+            mCallback = callback;
+            mCancelled = false;
+            mLastTimestamp = Long.MIN_VALUE;
+            mWindowStart = System.nanoTime();
+            mWindowCount = 0;
+            mFps = 0;
+            LogUtil.log("DecodeScheduler => start, workers = " + mWorkers + ", generation = " + mGeneration);
+            return mDispatcher;
+        }
+    }
+
+    /**
+     * 在分发线程调用：拷贝 Y 平面并立即关闭 image
+     *
+     * @param image
+     */
+    public void submit(@NonNull ImageProxy image) {
+        Frame frame = null;
+        try {
+            long timestamp = image.getImageInfo().getTimestamp();
+            synchronized (mLock) {
+                if (mCancelled || image.getFormat() != ImageFormat.YUV_420_888)
+                    return;
+                if (timestamp <= mLastTimestamp) {
+                    mDroppedCount++;
+                    return;
+                }
+                mLastTimestamp = timestamp;
+            }
+
+            ImageProxy.PlaneProxy plane = image.getPlanes()[0];
+            ByteBuffer src = plane.getBuffer().duplicate();
+            int size = src.remaining();
+            byte[] data = obtain(size);
+            src.get(data, 0, size);
+            frame = new Frame(data, image.getWidth(), image.getHeight(), plane.getRowStride(), plane.getPixelStride(), timestamp);
+        } finally {
+            image.close();
+        }
+
+        synchronized (mLock) {
+            if (mCancelled) {
+                recycle(frame);
+                return;
+            }
+            if (mInFlight < mWorkers) {
+                mInFlight++;
+                mExecutor.execute(new Worker(frame, mGeneration));
+            } else {
+                if (null != mPending) {
+                    recycle(mPending);
+                    mDroppedCount++;
+                }
+                mPending = frame;
+            }
+        }
+    }
+
+    /**
+     * 取消排队中的帧，正在解码的帧结果丢弃
+     */
+    public void cancel() {
+        synchronized (mLock) {
+            mCancelled = true;
+            if (null != mPending) {
+                recycle(mPending);
+                mPending = null;
+            }
+        }
+    }
+
+    /**
+     * 取消并结束线程，下次 start 时重新创建
+     */
+    public void shutdown() {
+        synchronized (mLock) {
+            cancel();
+            if (null != mExecutor) {
+                mExecutor.shutdown();
+                mDispatcher.shutdown();
+                mExecutor = null;
+                mDispatcher = null;
+            }
+            mFreeBuffers.clear();
+            LogUtil.log("DecodeScheduler => shutdown, decoded = " + mDecodedCount + ", dropped = " + mDroppedCount + ", fps = " + mFps);
+        }
+    }
+
+    public int getWorkerCount() {
+        return mWorkers;
+    }
+
+    /**
+     * @return 最近一秒的解码帧率
+     */
+    public float getFps() {
+        synchronized (mLock) {
+            return mFps;
+        }
+    }
+
+    public long getDecodedCount() {
+        synchronized (mLock) {
+            return mDecodedCount;
+        }
+    }
+
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    /**
+     * 在解码线程（Callback#decode 内）调用：有空闲工作线程时占用它执行 task，与本帧解码并行
+     * <p>
+     * 不新建线程，占用期间计入同时解码数，待解码的帧会等它结束；task 开始后无法取消，调用方自行检查取消标志
+     *
+     * @return 没有空闲工作线程、不在解码线程、本轮已取消时返回 null，调用方顺序执行
+     */
+    @Nullable
+    public static <T> Future<T> trySubmitHelper(@NonNull Callable<T> task) {
+        DecodeScheduler scheduler = CURRENT.get();
+        return null == scheduler ? null : scheduler.submitHelper(task);
+    }
+
+    @Nullable
+    private <T> Future<T> submitHelper(@NonNull Callable<T> task) {
+        synchronized (mLock) {
+            if (mCancelled || null == mExecutor || mInFlight >= mWorkers)
+                return null;
+            mInFlight++;
+            FutureTask<T> future = new FutureTask<>(task);
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.run();
+                    } finally {
+                        releaseHelper();
+                    }
+                }
+            });
+            return future;
+        }
+    }
+
+    /**
+     * 辅助任务结束：有待解码的帧就接着用这个名额，否则归还
+     */
+    private void releaseHelper() {
+        synchronized (mLock) {
+            if (null != mPending && !mCancelled && null != mExecutor) {
+                Frame frame = mPending;
+                mPending = null;
+                mExecutor.execute(new Worker(frame, mGeneration));
+            } else {
+                mInFlight--;
+            }
+        }
+    }
+
+    private byte[] obtain(int size) {
+        synchronized (mLock) {
+            while (!mFreeBuffers.isEmpty()) {
+                byte[] data = mFreeBuffers.poll();
+                if (data.length == size)
+                    return data;
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * 需持有 mLock
+     */
+    private void recycle(@Nullable Frame frame) {
+        if (null != frame && mFreeBuffers.size() <= mWorkers) {
+            mFreeBuffers.push(frame.data);
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final int generation;
+        private Frame frame;
+
+        private Worker(@NonNull Frame frame, int generation) {
+            this.frame = frame;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            while (null != frame) {
+
+                Callback callback;
+                boolean stale;
+                synchronized (mLock) {
+                    callback = mCallback;
+                    stale = mCancelled || generation != mGeneration || System.nanoTime() - frame.submitTime > STALE_FRAME_NS;
+                    if (stale) {
+                        mDroppedCount++;
+                    }
+                }
+
+                Result result = null;
+                if (!stale) {
+                    CURRENT.set(DecodeScheduler.this);
+                    try {
+                        result = callback.decode(frame);
+                    } catch (Exception e) {
+                        LogUtil.log("DecodeScheduler => " + e.getMessage(), e);
+                    } finally {
+                        CURRENT.remove();
+                    }
+                }
+
+                Result deliver = null;
+                float fps = -1;
+                synchronized (mLock) {
+                    recycle(frame);
+                    frame = null;
+
+                    if (!stale) {
+                        mDecodedCount++;
+                        mWindowCount++;
+                        long now = System.nanoTime();
+                        if (now - mWindowStart >= FPS_WINDOW_NS) {
+                            mFps = mWindowCount * 1e9f / (now - mWindowStart);
+                            mWindowStart = now;
+                            mWindowCount = 0;
+                            fps = mFps;
+                        }
+                    }
+
+                    boolean current = !mCancelled && generation == mGeneration;
+                    if (null != result && current) {
+                        // 识别成功：本轮结束，取消其余帧
+                        deliver = result;
+                        cancel();
+                    } else if (current) {
+                        frame = mPending;
+                        mPending = null;
+                    }
+                    if (null == frame) {
+                        mInFlight--;
+                    }
+                }
+
+                if (fps >= 0) {
+                    LogUtil.log("DecodeScheduler => fps = " + fps);
+                    callback.onFps(fps);
+                }
+                if (null != deliver) {
+                    callback.onResult(deliver);
+                }
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Y 平面拷贝，保留原始 rowStride / pixelStride
+     */
+    public static final class Frame {
+
+        private final byte[] data;
+        private final ByteBuffer buffer;
+        private final int width;
+        private final int height;
+        private final int rowStride;
+        private final int pixelStride;
+        private final long timestamp;
+        private final long submitTime;
+
+        private Frame(byte[] data, int width, int height, int rowStride, int pixelStride, long timestamp) {
+            this.data = data;
+            this.buffer = ByteBuffer.wrap(data);
+            this.width = width;
+            this.height = height;
+            this.rowStride = rowStride;
+            this.pixelStride = pixelStride;
+            this.timestamp = timestamp;
+            this.submitTime = System.nanoTime();
+        }
+
+        @NonNull
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getRowStride() {
+            return rowStride;
+        }
+
+        public int getPixelStride() {
+            return pixelStride;
+        }
+
+        /**
+         * @return 相机时间戳（纳秒）
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    public interface Callback {
+
+        /**
+         * 工作线程调用，frame 仅在本方法内有效
+         *
+         * @param frame
+         * @return
+         */
+        @Nullable
+        Result decode(@NonNull Frame frame);
+
+        /**
+         * 工作线程调用，每次 start 最多一次
+         *
+         * @param result
+         */
+        void onResult(@NonNull Result result);
+
+        /**
+         * 工作线程调用，每秒一次
+         *
+         * @param fps
+         */
+        void onFps(float fps);
+    }
+}
@@ -26,4 +26,12 @@ public interface OnCameraStatusChangeListener {
      * @param lightLux
      */
     void onSensor(boolean dark, float lightLux);
+
+    /**
+     * 解码帧率，每秒一次（解码线程）
+     *
+     * @param fps
+     */
+    default void onFps(float fps) {
+    }
 }
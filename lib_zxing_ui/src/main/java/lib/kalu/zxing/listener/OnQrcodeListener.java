@@ -0,0 +1,19 @@
+package lib.kalu.zxing.listener;
+
+import androidx.annotation.Keep;
+import androidx.annotation.Nullable;
+
+/**
+ * @description: 异步生成二维码回调
+ * @date: 2021-06-25 15:10
+ */
+@Keep
+public interface OnQrcodeListener {
+
+    /**
+     * 主线程回调
+     *
+     * @param path 二维码 png 路径，失败、任务被拒绝时为 null
+     */
+    void onQrcode(@Nullable String path);
+}
@@ -0,0 +1,524 @@
+package lib.kalu.zxing.qrcode;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.source.LuminanceSourceImpl;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lib.kalu.zxing.util.LogUtil;
+
+/**
+ * @description: 图片识别尝试级联：二值化 × 反色 × 旋转 × 缩放
+ * <p>
+ * 每次识别按图片类别（尺寸档 + 亮度档）取出历史成功次数，成功多的组合排前面，其余保持配置顺序
+ * 前 parallelism 个组合并行识别，任一成功即取消其余；总耗时超过预算不再提交新组合
+ * 成功次数在内存中累计，Builder 传入 Context 时写入 SharedPreferences，按设备保留
+ * @date: 2021-06-25 10:40
+ */
+public final class DecodeCascade {
+
+    public enum Binarizer {
+        GLOBAL_HISTOGRAM("G"), HYBRID("H");
+
+        private final String id;
+
+        Binarizer(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 一次识别尝试
+     */
+    public static final class Attempt {
+
+        private final Binarizer mBinarizer;
+        private final boolean mInverted;
+        private final boolean mRotated;
+        private final int mScale;
+        private final String mId;
+
+        Attempt(@NonNull Binarizer binarizer, boolean inverted, boolean rotated, int scale) {
+            mBinarizer = binarizer;
+            mInverted = inverted;
+            mRotated = rotated;
+            mScale = scale;
+            mId = binarizer.id + (inverted ? "i" : "") + (rotated ? "r" : "") + scale;
+        }
+
+        @NonNull
+        public Binarizer getBinarizer() {
+            return mBinarizer;
+        }
+
+        public boolean isInverted() {
+            return mInverted;
+        }
+
+        public boolean isRotated() {
+            return mRotated;
+        }
+
+        public int getScale() {
+            return mScale;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return mId;
+        }
+    }
+
+    private static final String PREFERENCES = "lib_zxing_decode_cascade";
+    // 单个组合成功次数达到此值时整类减半，让近期结果占主导
+    private static final int DECAY = 64;
+
+    private static final class Holder {
+        private static final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "zxing-cascade-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static volatile DecodeCascade mDefault;
+
+    private final List<Attempt> mAttempts;
+    private final long mBudget;
+    private final int mParallelism;
+    @Nullable
+    private final SharedPreferences mPreferences;
+    // 图片类别 => 各组合成功次数，下标同 mAttempts
+    private final Map<String, int[]> mSuccesses = new HashMap<>();
+
+    private DecodeCascade(@NonNull Builder builder) {
+        List<Attempt> attempts = new ArrayList<>();
+        for (int scale : builder.mScales) {
+            for (boolean rotated : builder.mRotation ? new boolean[]{false, true} : new boolean[]{false}) {
+                for (boolean inverted : builder.mInversion ? new boolean[]{false, true} : new boolean[]{false}) {
+                    for (Binarizer binarizer : builder.mBinarizers) {
+                        attempts.add(new Attempt(binarizer, inverted, rotated, scale));
+                    }
+                }
+            }
+        }
+        mAttempts = Collections.unmodifiableList(attempts);
+        mBudget = builder.mBudget;
+        mParallelism = builder.mParallelism;
+        mPreferences = null == builder.mContext ? null : builder.mContext.getApplicationContext().getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 默认级联：GlobalHistogram、Hybrid × 反色 × 原图、缩小一半，不旋转（二维码定位本身不受方向影响），不持久化
+     */
+    @NonNull
+    public static DecodeCascade getDefault() {
+        if (null == mDefault) {
+            synchronized (DecodeCascade.class) {
+                if (null == mDefault) {
+                    mDefault = new Builder().build();
+                }
+            }
+        }
+        return mDefault;
+    }
+
+    /**
+     * 替换 {@link QrcodeTool#parseCodeResult} 使用的默认级联
+     */
+    public static void setDefault(@NonNull DecodeCascade cascade) {
+        synchronized (DecodeCascade.class) {
+            mDefault = cascade;
+        }
+    }
+
+    @NonNull
+    public List<Attempt> getAttempts() {
+        return mAttempts;
+    }
+
+    /**
+     * @param source 灰度图像，识别期间只读
+     * @param hints  识别参数，可为 null
+     * @return 识别结果，定位点为原图坐标；全部失败或超时返回 null
+     */
+    @Nullable
+    public Result decode(@NonNull LuminanceSourceImpl source, @Nullable Map<DecodeHintType, ?> hints) {
+
+        long deadline = System.currentTimeMillis() + mBudget;
+        String category = category(source);
+        List<Integer> order = order(category);
+        Variants variants = new Variants(source);
+
+        CompletionService<Result> service = new ExecutorCompletionService<>(Holder.executor);
+        Map<Future<Result>, Integer> running = new HashMap<>();
+        int next = 0;
+        try {
+            while (next < order.size() || !running.isEmpty()) {
+
+                // 补足并行数，超时后不再提交
+                while (running.size() < mParallelism && next < order.size() && System.currentTimeMillis() < deadline) {
+                    int index = order.get(next++);
+                    running.put(service.submit(task(variants, mAttempts.get(index), hints)), index);
+                }
+                if (running.isEmpty())
+                    break;
+
+                long wait = deadline - System.currentTimeMillis();
+                Future<Result> future = wait > 0 ? service.poll(wait, TimeUnit.MILLISECONDS) : null;
+                if (null == future) {
+                    LogUtil.log("DecodeCascade => timeout, category = " + category + ", tried = " + next);
+                    return null;
+                }
+                int index = running.remove(future);
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    // 单个尝试出错不影响其余尝试
+                    LogUtil.log("DecodeCascade => attempt = " + mAttempts.get(index) + ", " + e.getMessage(), e);
+                    result = null;
+                }
+                if (null != result) {
+                    succeed(category, index);
+                    LogUtil.log("DecodeCascade => succ, category = " + category + ", attempt = " + mAttempts.get(index));
+                    return result;
+                }
+            }
+            LogUtil.log("DecodeCascade => fail, category = " + category);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            // 未开始的直接取消，已开始的结果丢弃
+            for (Future<Result> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    @NonNull
+    private Callable<Result> task(@NonNull Variants variants, @NonNull Attempt attempt, @Nullable Map<DecodeHintType, ?> hints) {
+        return new Callable<Result>() {
+            @Override
+            public Result call() {
+                try {
+                    // 缩放、旋转图构建失败（内存不足、尺寸过小）和识别失败一样，只算这一次尝试失败
+                    LuminanceSourceImpl source = variants.get(attempt.mRotated, attempt.mScale);
+                    if (attempt.mInverted) {
+                        source = source.invert();
+                    }
+                    BinaryBitmap bitmap = new BinaryBitmap(attempt.mBinarizer == Binarizer.HYBRID ? new HybridBinarizer(source) : new GlobalHistogramBinarizer(source));
+                    // 识别失败抛异常，这里转成 null
+                    Result result = QrcodePlusReader.getQRCodeReader().decode(bitmap, hints);
+                    return variants.map(result, attempt.mRotated, attempt.mScale);
+                } catch (Exception | OutOfMemoryError e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * 图片类别：长边尺寸档 + 平均亮度档
+     */
+    @NonNull
+    private static String category(@NonNull LuminanceSourceImpl source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int side = Math.max(width, height);
+        String size = side < 640 ? "s" : (side < 1280 ? "m" : "l");
+
+        // 隔 8 行、每行隔 8 个像素取样
+        long sum = 0;
+        int count = 0;
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y += 8) {
+            row = source.getRow(y, row);
+            for (int x = 0; x < width; x += 8) {
+                sum += row[x] & 0xff;
+                count++;
+            }
+        }
+        long mean = count == 0 ? 0 : sum / count;
+        String brightness = mean < 85 ? "d" : (mean > 170 ? "b" : "n");
+        return size + brightness;
+    }
+
+    /**
+     * 成功次数降序，相同时保持配置顺序
+     */
+    @NonNull
+    private List<Integer> order(@NonNull String category) {
+        final int[] successes = successes(category).clone();
+        List<Integer> order = new ArrayList<>(mAttempts.size());
+        for (int i = 0; i < mAttempts.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int c = successes[o2] - successes[o1];
+                return c != 0 ? c : o1 - o2;
+            }
+        });
+        return order;
+    }
+
+    @NonNull
+    private synchronized int[] successes(@NonNull String category) {
+        int[] successes = mSuccesses.get(category);
+        if (null == successes) {
+            successes = new int[mAttempts.size()];
+            if (null != mPreferences) {
+                for (int i = 0; i < successes.length; i++) {
+                    successes[i] = mPreferences.getInt(category + ":" + mAttempts.get(i), 0);
+                }
+            }
+            mSuccesses.put(category, successes);
+        }
+        return successes;
+    }
+
+    private synchronized void succeed(@NonNull String category, int index) {
+        int[] successes = successes(category);
+        if (++successes[index] >= DECAY) {
+            for (int i = 0; i < successes.length; i++) {
+                successes[i] /= 2;
+            }
+        }
+        if (null != mPreferences) {
+            SharedPreferences.Editor editor = mPreferences.edit();
+            for (int i = 0; i < successes.length; i++) {
+                editor.putInt(category + ":" + mAttempts.get(i), successes[i]);
+            }
+            editor.apply();
+        }
+    }
+
+    /**
+     * 旋转、缩放后的灰度图，首次用到时生成，同一次识别内共享
+     */
+    private static final class Variants {
+
+        private final LuminanceSourceImpl mSource;
+        private final Map<String, LuminanceSourceImpl> mCache = new HashMap<>();
+
+        Variants(@NonNull LuminanceSourceImpl source) {
+            mSource = source;
+        }
+
+        @NonNull
+        synchronized LuminanceSourceImpl get(boolean rotated, int scale) {
+            if (!rotated && scale == 1)
+                return mSource;
+
+            String key = (rotated ? "r" : "") + scale;
+            LuminanceSourceImpl variant = mCache.get(key);
+            if (null == variant) {
+                variant = rotated ? rotate(get(false, scale)) : downscale(mSource, scale);
+                mCache.put(key, variant);
+            }
+            return variant;
+        }
+
+        /**
+         * 定位点映射回原图坐标
+         */
+        @Nullable
+        Result map(@Nullable Result result, boolean rotated, int scale) {
+            if (null == result || null == result.getResultPoints())
+                return result;
+
+            // 缩放后的图像宽，逆时针旋转前
+            int width = (mSource.getWidth() / scale);
+            ResultPoint[] points = result.getResultPoints();
+            for (int i = 0; i < points.length; i++) {
+                ResultPoint point = points[i];
+                if (null == point)
+                    continue;
+                float x = point.getX();
+                float y = point.getY();
+                if (rotated) {
+                    float t = x;
+                    x = width - 1 - y;
+                    y = t;
+                }
+                points[i] = new ResultPoint(x * scale, y * scale);
+            }
+            return result;
+        }
+
+        /**
+         * scale x scale 取平均
+         */
+        @NonNull
+        private static LuminanceSourceImpl downscale(@NonNull LuminanceSourceImpl source, int scale) {
+            int width = source.getWidth() / scale;
+            int height = source.getHeight() / scale;
+            byte[] data = new byte[width * height];
+            int[] sums = new int[width];
+            byte[] row = new byte[source.getWidth()];
+            int area = scale * scale;
+            for (int y = 0; y < height; y++) {
+                Arrays.fill(sums, 0);
+                for (int dy = 0; dy < scale; dy++) {
+                    row = source.getRow(y * scale + dy, row);
+                    for (int x = 0, i = 0; x < width; x++) {
+                        for (int dx = 0; dx < scale; dx++, i++) {
+                            sums[x] += row[i] & 0xff;
+                        }
+                    }
+                }
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    data[offset + x] = (byte) ((sums[x] + area / 2) / area);
+                }
+            }
+            return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height);
+        }
+
+        /**
+         * 逆时针旋转 90 度
+         */
+        @NonNull
+        private static LuminanceSourceImpl rotate(@NonNull LuminanceSourceImpl source) {
+            if (source.isRotateSupported())
+                return source.rotateCounterClockwise();
+
+            int width = source.getWidth();
+            int height = source.getHeight();
+            byte[] data = new byte[width * height];
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                row = source.getRow(y, row);
+                for (int x = 0; x < width; x++) {
+                    // 原 (x, y) => 新 (y, width - 1 - x)，新图宽为 height
+                    data[(width - 1 - x) * height + y] = row[x];
+                }
+            }
+            return new PlanarYUVLuminanceSource(data, height, width, 0, 0, height, width);
+        }
+    }
+
+    public static final class Builder {
+
+        private Binarizer[] mBinarizers = {Binarizer.GLOBAL_HISTOGRAM, Binarizer.HYBRID};
+        private boolean mInversion = true;
+        private boolean mRotation = false;
+        private int[] mScales = {1, 2};
+        private long mBudget = 1500;
+        private int mParallelism = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        @Nullable
+        private Context mContext;
+
+        /**
+         * 二值化顺序
+         */
+        public Builder setBinarizers(@NonNull Binarizer... binarizers) {
+            if (binarizers.length == 0)
+                throw new IllegalArgumentException("binarizers must not be empty");
+            mBinarizers = binarizers.clone();
+            return this;
+        }
+
+        /**
+         * 是否尝试反色（深底浅码）
+         */
+        public Builder setInversion(boolean inversion) {
+            mInversion = inversion;
+            return this;
+        }
+
+        /**
+         * 是否尝试逆时针旋转 90 度
+         */
+        public Builder setRotation(boolean rotation) {
+            mRotation = rotation;
+            return this;
+        }
+
+        /**
+         * 缩小倍数，如 1, 2：大图噪点多时缩小后更容易识别
+         */
+        public Builder setScales(@NonNull int... scales) {
+            if (scales.length == 0)
+                throw new IllegalArgumentException("scales must not be empty");
+            for (int scale : scales) {
+                if (scale < 1)
+                    throw new IllegalArgumentException("scale must be at least 1: " + scale);
+            }
+            mScales = scales.clone();
+            return this;
+        }
+
+        /**
+         * 总耗时预算（毫秒）
+         */
+        public Builder setBudget(long budget) {
+            if (budget <= 0)
+                throw new IllegalArgumentException("budget must be positive: " + budget);
+            mBudget = budget;
+            return this;
+        }
+
+        /**
+         * 同时进行的尝试数
+         */
+        public Builder setParallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+            mParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 传入后成功次数写入 SharedPreferences，重启后继续生效
+         */
+        public Builder setContext(@Nullable Context context) {
+            mContext = context;
+            return this;
+        }
+
+        @NonNull
+        public DecodeCascade build() {
+            return new DecodeCascade(this);
+        }
+    }
+}
@@ -1,18 +1,15 @@
 package lib.kalu.zxing.qrcode;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 
 import androidx.annotation.NonNull;
 
-import com.google.zxing.BinaryBitmap;
-import com.google.zxing.source.RGBLuminanceSource;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 
@@ -25,6 +22,13 @@ import lib.kalu.zxing.util.LogUtil;
 class DecodeTool {
 
     public static String decodeQrcodeFromFile(@NonNull String filePath) {
+        return decodeQrcodeFromFile(filePath, LargeImageDecoder.DEFAULT_BUDGET);
+    }
+
+    /**
+     * @param budget 内存预算（字节），大图分块、采样解码，不整图载入
+     */
+    public static String decodeQrcodeFromFile(@NonNull String filePath, int budget) {
 
         if (null == filePath || filePath.length() == 0)
             return null;
@@ -33,17 +37,14 @@ class DecodeTool {
         if (!file.exists() || !file.isFile())
             return null;
 
-//        BitmapFactory.Options options = new BitmapFactory.Options();
-//        options.inJustDecodeBounds = true;
-//        BitmapFactory.decodeFile(filePath, options);
-//        int sampleSize = options.outHeight / 400;
-//        if (sampleSize <= 0)
-//            sampleSize = 1;
-//        options.inSampleSize = sampleSize;
-//        options.inJustDecodeBounds = false;
-
-        Bitmap bitmap = BitmapFactory.decodeFile(filePath, null);
-        return decodeQrcodeFromBitmap(bitmap);
+        Result result = LargeImageDecoder.decode(new LargeImageDecoder.Opener() {
+            @NonNull
+            @Override
+            public InputStream open() throws IOException {
+                return new FileInputStream(file);
+            }
+        }, budget);
+        return decodeText(result);
     }
 
     /**
@@ -51,63 +52,48 @@ class DecodeTool {
      * @return Bitmap；
      */
     public static String decodeQrcodeFromUri(@NonNull Context context, @NonNull Uri uri) {
-
-        try {
-
-//            BitmapFactory.Options options = new BitmapFactory.Options();
-//            options.inJustDecodeBounds = true;
-//            BitmapFactory.decodeStream(context.getContentResolver().openInputStream(uri), null, options);
-//            options.inSampleSize = 2;
-//            options.inJustDecodeBounds = false;
-
-            InputStream inputStream = context.getContentResolver().openInputStream(uri);
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, null);
-            return decodeQrcodeFromBitmap(bitmap);
-        } catch (Exception e) {
-            LogUtil.log("decodeQrcodeFromUri => " + e.getMessage(), e);
-            return null;
-        }
+        return decodeQrcodeFromUri(context, uri, LargeImageDecoder.DEFAULT_BUDGET);
     }
 
     /**
-     * @param bitmap
-     * @return
+     * @param budget 内存预算（字节），大图分块、采样解码，不整图载入
      */
-    private static String decodeQrcodeFromBitmap(@NonNull Bitmap bitmap) {
+    public static String decodeQrcodeFromUri(@NonNull Context context, @NonNull Uri uri, int budget) {
 
-        if (null == bitmap || bitmap.isRecycled())
+        if (null == context || null == uri)
             return null;
 
-        try {
-            int bitmapWidth = bitmap.getWidth();
-            int bitmapHeight = bitmap.getHeight();
-            int[] pixels = new int[bitmapWidth * bitmapHeight];
-            bitmap.getPixels(pixels, 0, bitmapWidth, 0, 0, bitmapWidth, bitmapHeight);
-
-            if (null != bitmap || !bitmap.isRecycled()) {
-                bitmap.recycle();
+        Result result = LargeImageDecoder.decode(new LargeImageDecoder.Opener() {
+            @NonNull
+            @Override
+            public InputStream open() throws IOException {
+                InputStream inputStream = context.getContentResolver().openInputStream(uri);
+                if (null == inputStream)
+                    throw new IOException("openInputStream => null, uri = " + uri);
+                return inputStream;
             }
+        }, budget);
+        return decodeText(result);
+    }
 
-            RGBLuminanceSource source = new RGBLuminanceSource(bitmapWidth, bitmapHeight, pixels);
-            BinaryBitmap binaryBitmap = new BinaryBitmap(new HybridBinarizer(source));
-            Result result = QrcodePlusReader.getQRCodeReader().decode(binaryBitmap);
+    private static String decodeText(Result result) {
 
-            if (null == result)
-                return null;
+        if (null == result)
+            return null;
 
-            String text = result.getText();
-            if (null == text || text.length() == 0)
-                return null;
+        String text = result.getText();
+        if (null == text || text.length() == 0)
+            return null;
 
+        try {
             boolean ISO = Charset.forName("ISO-8859-1").newEncoder().canEncode(text);
             if (ISO) {
                 return new String(text.getBytes("ISO-8859-1"), "GB2312");
             } else {
                 return text;
             }
-
         } catch (Exception e) {
-            LogUtil.log("decodeQrcodeFromBitmap => " + e.getMessage(), e);
+            LogUtil.log("decodeText => " + e.getMessage(), e);
             return null;
         }
     }
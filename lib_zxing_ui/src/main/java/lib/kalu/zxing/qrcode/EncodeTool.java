@@ -10,8 +10,10 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.google.zxing.EncodeHintType;
-import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import com.google.zxing.qrcode.encoder.QRCodeRenderer;
 
 import java.util.Map;
 
@@ -87,15 +89,16 @@ class EncodeTool {
 
         try {
 
-            BitMatrix bitMatrix = QrcodePlusWriter.getQrcodePlusWriter().encode(text, multiple, marginLeft, marginTop, marginRight, marginBottom, level, hints);
+            QRCode code = QrcodePlusWriter.getQrcodePlusWriter().encodeQRCode(text, multiple, marginLeft, marginTop, marginRight, marginBottom, level, hints);
+            ByteMatrix input = code.getMatrix();
 
-            int matrixWidth = bitMatrix.getWidth();
-            int matrixHeight = bitMatrix.getHeight();
+            int matrixWidth = QRCodeRenderer.getWidth(input, multiple, marginLeft, marginRight);
+            int matrixHeight = QRCodeRenderer.getHeight(input, multiple, marginTop, marginBottom);
             if (matrixWidth != matrixHeight)
                 return null;
 
-            // Bitmap颜色
-            int[] pixels = new int[matrixWidth * matrixHeight];
+            // Bitmap颜色：按模块行整段填充，不逐像素查询
+            int[] pixels = QRCodeRenderer.toArgb(input, multiple, marginLeft, marginTop, marginRight, marginBottom, 0xff000000, 0xffffffff, null);
 
             // logo范围
             int minX = -1;
@@ -144,25 +147,9 @@ class EncodeTool {
                 }
             }
 
-            // 二维码合成颜色
-            for (int y = 0; y < matrixHeight; y++) {
-
-                for (int x = 0; x < matrixWidth; x++) {
-
-                    // LOGO图片
-                    if (null != scaleBitmap && x > minX && x < maxX && y > minY && y < maxY) {
-                        int pixel = scaleBitmap.getPixel(x - minX, y - minX);
-                        pixels[y * matrixHeight + x] = pixel;
-                    }
-                    // 黑色
-                    else if (bitMatrix.get(x, y)) {
-                        pixels[y * matrixHeight + x] = 0xff000000;
-                    }
-                    // 白色
-                    else {
-                        pixels[y * matrixHeight + x] = 0xffffffff;
-                    }
-                }
+            // LOGO图片：覆盖 (minX, maxX) x (minY, maxY) 开区间，一次整块读取
+            if (null != scaleBitmap && maxX - minX > 1 && maxY - minY > 1) {
+                scaleBitmap.getPixels(pixels, (minY + 1) * matrixWidth + minX + 1, matrixWidth, 1, 1, maxX - minX - 1, maxY - minY - 1);
             }
 
             if (null != scaleBitmap && !scaleBitmap.isRecycled()) {
@@ -0,0 +1,306 @@
+package lib.kalu.zxing.qrcode;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.source.LuminanceSourceFactory;
+import com.google.zxing.source.PlanarYUVLuminanceSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import lib.kalu.zxing.util.LogUtil;
+
+/**
+ * @description: 相册大图识别，峰值内存不超过预算
+ * <p>
+ * 先只读宽高，再用 BitmapRegionDecoder 按横条分块解码，逐行转成灰度平面（LuminanceSourceFactory 同一换算），不生成整图 Bitmap、int[]
+ * 粗扫：整图采样到长边 1024 以内识别一次；失败后按边缘密度挑出最像二维码的几个窗口，降低采样率细扫
+ * 预算一半给灰度平面（二值化还要额外约 1/8），四分之一给单个横条 Bitmap
+ * 格式不支持分块解码时退回 BitmapFactory 采样解码，只做粗扫
+ * @date: 2021-06-24 15:20
+ */
+final class LargeImageDecoder {
+
+    /**
+     * 默认内存预算（字节）
+     */
+    static final int DEFAULT_BUDGET = 8 * 1024 * 1024;
+
+    // 粗扫、细扫灰度平面长边上限
+    private static final int PLANE_SIZE = 1024;
+    // 细扫窗口个数
+    private static final int REFINE_REGIONS = 3;
+    // 相邻像素灰度差超过此值记为一次边缘
+    private static final int EDGE_THRESHOLD = 48;
+
+    interface Opener {
+        @NonNull
+        InputStream open() throws IOException;
+    }
+
+    private final Opener mOpener;
+    private final int mBudget;
+    @Nullable
+    private BitmapRegionDecoder mRegionDecoder;
+    private int mWidth;
+    private int mHeight;
+    // 逐行读取像素的缓冲
+    private int[] mRow;
+    // 最近一次读出的灰度平面，细扫选窗口时直接使用，不再 getMatrix 拷贝
+    @Nullable
+    private byte[] mPlane;
+    private int mPlaneWidth;
+
+    private LargeImageDecoder(@NonNull Opener opener, int budget) {
+        mOpener = opener;
+        mBudget = budget;
+    }
+
+    /**
+     * @param budget 内存预算（字节），不含压缩数据本身
+     * @return 识别结果，没有返回 null
+     */
+    @Nullable
+    static Result decode(@NonNull Opener opener, int budget) {
+        LargeImageDecoder decoder = new LargeImageDecoder(opener, Math.max(budget, 1024 * 1024));
+        try {
+            return decoder.decode();
+        } catch (Exception e) {
+            LogUtil.log("decode => " + e.getMessage(), e);
+            return null;
+        } finally {
+            decoder.release();
+        }
+    }
+
+    @Nullable
+    private Result decode() throws IOException {
+
+        // 1. 只读宽高
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        InputStream inputStream = mOpener.open();
+        try {
+            BitmapFactory.decodeStream(inputStream, null, bounds);
+        } finally {
+            inputStream.close();
+        }
+        mWidth = bounds.outWidth;
+        mHeight = bounds.outHeight;
+        if (mWidth <= 0 || mHeight <= 0)
+            return null;
+
+        inputStream = mOpener.open();
+        try {
+            mRegionDecoder = BitmapRegionDecoder.newInstance(inputStream, false);
+        } catch (IOException e) {
+            // gif 等格式不支持分块解码
+            mRegionDecoder = null;
+        } finally {
+            inputStream.close();
+        }
+
+        // 2. 粗扫
+        int sample = sampleSize(mWidth, mHeight);
+        PlanarYUVLuminanceSource coarse = null == mRegionDecoder ? readSampled(sample) : readRegion(new Rect(0, 0, mWidth, mHeight), sample);
+        LogUtil.log("decode => width = " + mWidth + ", height = " + mHeight + ", sample = " + sample + ", region = " + (null != mRegionDecoder));
+        if (null == coarse)
+            return null;
+        Result result = decode(coarse);
+        if (null != result || sample == 1 || null == mRegionDecoder)
+            return result;
+
+        // 3. 细扫：粗扫平面上 3x3 个半宽半高窗口，按边缘密度取前几个，映射回原图降低采样率
+        byte[] plane = mPlane;
+        int planeWidth = mPlaneWidth;
+        int planeHeight = coarse.getHeight();
+        int windowWidth = coarse.getWidth() / 2;
+        int windowHeight = planeHeight / 2;
+        coarse = null;
+        mPlane = null;
+
+        int[][] windows = new int[9][];
+        for (int i = 0; i < 9; i++) {
+            int left = (i % 3) * windowWidth / 2;
+            int top = (i / 3) * windowHeight / 2;
+            windows[i] = new int[]{left, top, edges(plane, planeWidth, left, top, windowWidth, windowHeight)};
+        }
+        plane = null;
+        Arrays.sort(windows, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return o2[2] - o1[2];
+            }
+        });
+
+        for (int i = 0; i < REFINE_REGIONS; i++) {
+            int[] window = windows[i];
+            if (window[2] == 0)
+                break;
+
+            Rect rect = new Rect(window[0] * sample, window[1] * sample,
+                    Math.min(mWidth, (window[0] + windowWidth) * sample),
+                    Math.min(mHeight, (window[1] + windowHeight) * sample));
+            int fine = sampleSize(rect.width(), rect.height());
+            if (fine >= sample)
+                break;
+
+            PlanarYUVLuminanceSource source = readRegion(rect, fine);
+            LogUtil.log("decode => refine = " + rect + ", sample = " + fine + ", edges = " + window[2]);
+            if (null == source)
+                continue;
+            result = decode(source);
+            if (null != result)
+                return result;
+        }
+        return null;
+    }
+
+    /**
+     * 2 的幂采样率：长边不超过 PLANE_SIZE，且灰度平面不超过预算一半
+     */
+    private int sampleSize(int width, int height) {
+        int max = mBudget / 2;
+        int sample = 1;
+        while (true) {
+            int w = (width + sample - 1) / sample;
+            int h = (height + sample - 1) / sample;
+            if (w <= PLANE_SIZE && h <= PLANE_SIZE && (long) w * h <= max)
+                return sample;
+            sample *= 2;
+        }
+    }
+
+    /**
+     * 按横条分块解码 rect，逐行转灰度
+     */
+    @Nullable
+    private PlanarYUVLuminanceSource readRegion(@NonNull Rect rect, int sample) {
+
+        int planeWidth = (rect.width() + sample - 1) / sample;
+        int planeHeight = (rect.height() + sample - 1) / sample;
+        byte[] plane = new byte[planeWidth * planeHeight];
+
+        // 横条 ARGB_8888 不超过预算四分之一
+        int bandRows = Math.max(1, mBudget / 4 / (planeWidth * 4));
+        int bandHeight = bandRows * sample;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+        // 解码尺寸按向上取整，可能与计算值差一行一列，以实际写入为准
+        int width = planeWidth;
+        int rows = 0;
+        for (int top = rect.top; top < rect.bottom && rows < planeHeight; top += bandHeight) {
+            Rect band = new Rect(rect.left, top, rect.right, Math.min(rect.bottom, top + bandHeight));
+            Bitmap bitmap = mRegionDecoder.decodeRegion(band, options);
+            if (null == bitmap)
+                return null;
+            width = Math.min(width, bitmap.getWidth());
+            int count = Math.min(bitmap.getHeight(), planeHeight - rows);
+            for (int y = 0; y < count; y++) {
+                toLuminance(bitmap, y, width, plane, (rows + y) * planeWidth);
+            }
+            rows += count;
+            bitmap.recycle();
+        }
+
+        if (rows == 0 || width == 0)
+            return null;
+        mPlane = plane;
+        mPlaneWidth = planeWidth;
+        return new PlanarYUVLuminanceSource(plane, planeWidth, planeHeight, 0, 0, width, rows);
+    }
+
+    /**
+     * 不支持分块解码时整图采样解码，采样率同时保证 Bitmap 不超过预算一半
+     */
+    @Nullable
+    private PlanarYUVLuminanceSource readSampled(int sample) throws IOException {
+
+        while ((long) ((mWidth + sample - 1) / sample) * ((mHeight + sample - 1) / sample) * 4 > mBudget / 2) {
+            sample *= 2;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        InputStream inputStream = mOpener.open();
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+        } finally {
+            inputStream.close();
+        }
+        if (null == bitmap)
+            return null;
+
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        byte[] plane = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            toLuminance(bitmap, y, width, plane, y * width);
+        }
+        bitmap.recycle();
+        mPlane = plane;
+        mPlaneWidth = width;
+        return new PlanarYUVLuminanceSource(plane, width, height, 0, 0, width, height);
+    }
+
+    private void toLuminance(@NonNull Bitmap bitmap, int y, int width, @NonNull byte[] plane, int offset) {
+        if (null == mRow || mRow.length < width) {
+            mRow = new int[width];
+        }
+        bitmap.getPixels(mRow, 0, width, 0, y, width, 1);
+        LuminanceSourceFactory.argbToLuminance(mRow, 0, plane, offset, width);
+    }
+
+    /**
+     * 隔行统计水平方向灰度跳变次数，二维码模块边缘密集
+     */
+    private static int edges(@NonNull byte[] plane, int planeWidth, int left, int top, int width, int height) {
+        int count = 0;
+        for (int y = top; y < top + height; y += 2) {
+            int offset = y * planeWidth + left;
+            int last = plane[offset] & 0xff;
+            for (int x = 1; x < width; x++) {
+                int value = plane[offset + x] & 0xff;
+                if (Math.abs(value - last) > EDGE_THRESHOLD) {
+                    count++;
+                }
+                last = value;
+            }
+        }
+        return count;
+    }
+
+    @Nullable
+    private static Result decode(@NonNull PlanarYUVLuminanceSource source) {
+        try {
+            return QrcodePlusReader.getQRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(source)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void release() {
+        if (null != mRegionDecoder) {
+            mRegionDecoder.recycle();
+            mRegionDecoder = null;
+        }
+        mRow = null;
+        mPlane = null;
+    }
+}
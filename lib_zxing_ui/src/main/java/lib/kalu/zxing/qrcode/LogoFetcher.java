@@ -0,0 +1,264 @@
+package lib.kalu.zxing.qrcode;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+
+/**
+ * @description: 网络 logo 下载与条件请求，不依赖 Android，存储交给 {@link Store}
+ * <p>
+ * 新鲜期内（Cache-Control max-age，默认 10 分钟）直接用缓存不联网；过期后带 If-None-Match / If-Modified-Since 条件请求，
+ * 304 只刷新新鲜期；网络失败时继续用过期的缓存
+ * 同一 url 同时只有一个请求，并发调用等待并共用它的结果
+ * @date: 2021-06-25 15:40
+ */
+final class LogoFetcher {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // 默认新鲜期
+    static final long DEFAULT_MAX_AGE = 10 * 60 * 1000;
+    // 单个 logo 上限，超过不缓存也不使用
+    static final int MAX_LOGO = 2 * 1024 * 1024;
+    private static final int TIMEOUT = 10 * 1000;
+
+    /**
+     * logo 存储，key 为 url 的 SHA-256
+     */
+    interface Store {
+
+        @Nullable
+        Entry get(@NonNull String key);
+
+        /**
+         * @param modified true 内容变了（新下载），false 只刷新了新鲜期、验证信息（304）
+         */
+        void put(@NonNull String key, @NonNull Entry entry, boolean modified);
+    }
+
+    /**
+     * 一个 logo：原始字节、内容摘要、验证信息，不可变
+     */
+    static final class Entry {
+
+        private final byte[] mData;
+        private final String mDigest;
+        @Nullable
+        private final String mETag;
+        private final long mLastModified;
+        private final long mExpires;
+
+        Entry(@NonNull byte[] data, @NonNull String digest, @Nullable String eTag, long lastModified, long expires) {
+            mData = data;
+            mDigest = digest;
+            mETag = eTag;
+            mLastModified = lastModified;
+            mExpires = expires;
+        }
+
+        /**
+         * @return 不要修改
+         */
+        @NonNull
+        byte[] getData() {
+            return mData;
+        }
+
+        @NonNull
+        String getDigest() {
+            return mDigest;
+        }
+
+        @Nullable
+        String getETag() {
+            return mETag;
+        }
+
+        long getLastModified() {
+            return mLastModified;
+        }
+
+        long getExpires() {
+            return mExpires;
+        }
+    }
+
+    private final Store mStore;
+    // 进行中的请求，按 key
+    private final ConcurrentHashMap<String, FutureTask<Entry>> mInFlight = new ConcurrentHashMap<>();
+
+    LogoFetcher(@NonNull Store store) {
+        mStore = store;
+    }
+
+    /**
+     * 取 logo，必要时联网，须在分线程调用
+     *
+     * @return 下载失败且没有缓存时返回 null
+     */
+    @Nullable
+    Entry fetch(@NonNull final String url) {
+
+        final String key = sha256(url.getBytes(UTF_8));
+        Entry cached = mStore.get(key);
+        if (null != cached && System.currentTimeMillis() < cached.mExpires)
+            return cached;
+
+        FutureTask<Entry> task = new FutureTask<>(new Callable<Entry>() {
+            @Override
+            public Entry call() {
+                return request(url, key);
+            }
+        });
+        FutureTask<Entry> running = mInFlight.putIfAbsent(key, task);
+        if (null == running) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                mInFlight.remove(key, task);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return mStore.get(key);
+        } catch (Exception e) {
+            return mStore.get(key);
+        }
+    }
+
+    @Nullable
+    private Entry request(@NonNull String url, @NonNull String key) {
+
+        // 等待期间前一个请求可能已经刷新
+        Entry cached = mStore.get(key);
+        long now = System.currentTimeMillis();
+        if (null != cached && now < cached.mExpires)
+            return cached;
+
+        HttpURLConnection connection = null;
+        try {
+            URLConnection urlConnection = new URL(url).openConnection();
+            if (!(urlConnection instanceof HttpURLConnection)) {
+                // file:// 等非 http 地址不做缓存
+                byte[] data = readAll(urlConnection.getInputStream());
+                return null == data ? null : new Entry(data, sha256(data), null, 0, 0);
+            }
+            connection = (HttpURLConnection) urlConnection;
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            if (null != cached) {
+                if (null != cached.mETag) {
+                    connection.setRequestProperty("If-None-Match", cached.mETag);
+                }
+                if (cached.mLastModified > 0) {
+                    connection.setIfModifiedSince(cached.mLastModified);
+                }
+            }
+
+            int code = connection.getResponseCode();
+            long expires = now + maxAge(connection.getHeaderField("Cache-Control"));
+
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && null != cached) {
+                String eTag = connection.getHeaderField("ETag");
+                long lastModified = connection.getLastModified();
+                Entry entry = new Entry(cached.mData, cached.mDigest, null == eTag ? cached.mETag : eTag, lastModified > 0 ? lastModified : cached.mLastModified, expires);
+                mStore.put(key, entry, false);
+                return entry;
+            }
+            if (code != HttpURLConnection.HTTP_OK)
+                return cached;
+
+            byte[] data = readAll(connection.getInputStream());
+            if (null == data)
+                return cached;
+            Entry entry = new Entry(data, sha256(data), connection.getHeaderField("ETag"), connection.getLastModified(), expires);
+            mStore.put(key, entry, true);
+            return entry;
+        } catch (Exception e) {
+            // 网络失败继续用过期缓存
+            return cached;
+        } finally {
+            if (null != connection) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * no-store、no-cache 新鲜期为 0，每次都条件请求
+     *
+     * @return 毫秒
+     */
+    static long maxAge(@Nullable String cacheControl) {
+        if (null == cacheControl)
+            return DEFAULT_MAX_AGE;
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase(Locale.US);
+            if (value.equals("no-cache") || value.equals("no-store"))
+                return 0;
+            if (value.startsWith("max-age=")) {
+                try {
+                    return Math.max(0, Long.parseLong(value.substring(8).trim())) * 1000;
+                } catch (NumberFormatException e) {
+                    return DEFAULT_MAX_AGE;
+                }
+            }
+        }
+        return DEFAULT_MAX_AGE;
+    }
+
+    /**
+     * @return 超过 MAX_LOGO 返回 null
+     */
+    @Nullable
+    static byte[] readAll(@NonNull InputStream inputStream) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+                if (out.size() > MAX_LOGO)
+                    return null;
+            }
+            return out.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * @return 64 位十六进制 SHA-256
+     */
+    @NonNull
+    static String sha256(@NonNull byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            char[] digits = "0123456789abcdef".toCharArray();
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = digits[(digest[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = digits[digest[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package lib.kalu.zxing.qrcode;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lib.kalu.zxing.listener.OnQrcodeListener;
+import lib.kalu.zxing.util.LogUtil;
+
+/**
+ * @description: 库内共用的 I/O 线程池：下载 logo、生成二维码
+ * <p>
+ * 线程数、排队数都有上限，空闲线程 30 秒后退出；队列满时拒绝新任务，回调 null，不在调用线程执行
+ * @date: 2021-06-25 15:10
+ */
+final class QrcodeExecutor {
+
+    private static final int THREADS = 2;
+    private static final int MAX_THREADS = 4;
+    private static final int QUEUE = 32;
+
+    private QrcodeExecutor() {
+    }
+
+    private static final class Holder {
+        private static final ThreadPoolExecutor executor = create();
+        private static final Handler handler = new Handler(Looper.getMainLooper());
+
+        private static ThreadPoolExecutor create() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, MAX_THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE), new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "qrcode-io-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * @param task     在 I/O 线程执行
+     * @param listener 主线程回调结果，可为 null；任务被 cancel 时不回调
+     * @return 被拒绝时返回已取消的 Future
+     */
+    @NonNull
+    static Future<String> submit(@NonNull Callable<String> task, @Nullable OnQrcodeListener listener) {
+
+        FutureTask<String> future = new FutureTask<String>(task) {
+            @Override
+            protected void done() {
+                if (null == listener || isCancelled())
+                    return;
+                String path = null;
+                try {
+                    path = get();
+                } catch (Exception e) {
+                    LogUtil.log("QrcodeExecutor => " + e.getMessage(), e);
+                }
+                deliver(listener, path);
+            }
+        };
+
+        try {
+            Holder.executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            LogUtil.log("QrcodeExecutor => rejected, queue = " + Holder.executor.getQueue().size());
+            future.cancel(false);
+            if (null != listener) {
+                deliver(listener, null);
+            }
+        }
+        return future;
+    }
+
+    private static void deliver(@NonNull OnQrcodeListener listener, @Nullable String path) {
+        Holder.handler.post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onQrcode(path);
+            }
+        });
+    }
+}
@@ -21,20 +21,28 @@ import com.google.zxing.qrcode.QRCodeReader;
 import lib.kalu.zxing.util.LogUtil;
 
 /**
- * @description:
+ * @description: 每个线程一个 reader，复用解码过程中的缓冲（定位点候选、采样矩阵、码字数组）
+ * <p>
+ * QRCodeReader 非线程安全，不要跨线程传递 getQRCodeReader() 的返回值
  * @date:  2021-05-17 14:18
  */
 public final class QrcodePlusReader extends QRCodeReader {
 
-    private QrcodePlusReader() {
-        LogUtil.log("QrcodePlusReader =>");
-    }
+    private static final ThreadLocal<QrcodePlusReader> READERS = new ThreadLocal<QrcodePlusReader>() {
+        @Override
+        protected QrcodePlusReader initialValue() {
+            return new QrcodePlusReader();
+        }
+    };
 
-    private static class Holder {
-        private static final QrcodePlusReader qrcodePlusReader = new QrcodePlusReader();
+    private QrcodePlusReader() {
+        LogUtil.log("QrcodePlusReader => thread = " + Thread.currentThread().getName());
     }
 
+    /**
+     * @return 当前线程的 reader
+     */
     public static final QRCodeReader getQRCodeReader() {
-        return Holder.qrcodePlusReader;
+        return READERS.get();
     }
 }
\ No newline at end of file
@@ -24,9 +24,9 @@ import com.google.zxing.exception.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
-import com.google.zxing.qrcode.encoder.ByteMatrix;
 import com.google.zxing.qrcode.encoder.Encoder;
 import com.google.zxing.qrcode.encoder.QRCode;
+import com.google.zxing.qrcode.encoder.QRCodeRenderer;
 
 import java.util.Map;
 
@@ -59,6 +59,29 @@ public final class QrcodePlusWriter extends QRCodeWriter {
                             @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
                             ErrorCorrectionLevel level, Map<EncodeHintType, ?> hints) throws WriterException {
 
+        QRCode code = encodeQRCode(text, multiple, marginLeft, marginTop, marginRight, marginBottom, level, hints);
+        return QRCodeRenderer.toBitMatrix(code.getMatrix(), multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
+    }
+
+    /**
+     * 只编码不渲染，配合 {@link QRCodeRenderer} 直接输出像素
+     *
+     * @param text         二维码内容
+     * @param multiple     二维码放大倍数
+     * @param marginLeft   左边距
+     * @param marginTop    上边距
+     * @param marginRight  右边距
+     * @param marginBottom 下边距
+     * @return
+     */
+    public QRCode encodeQRCode(@NonNull String text,
+                               @IntRange(from = 3, to = 100) int multiple,
+                               @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+                               @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+                               @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+                               @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+                               ErrorCorrectionLevel level, Map<EncodeHintType, ?> hints) throws WriterException {
+
         if (null == text || text.length() == 0)
             throw new IllegalArgumentException("error -> text null");
 
@@ -77,66 +100,7 @@ public final class QrcodePlusWriter extends QRCodeWriter {
         if (marginBottom < 0)
             throw new IllegalArgumentException("error -> marginBottom < 0");
 
-
-        QRCode code = Encoder.encode(text, level, hints);
-        return createBitMatrix(code, multiple, marginLeft, marginTop, marginRight, marginBottom);
-    }
-
-    // Note that the input matrix uses 0 == white, 1 == black, while the output matrix uses
-    // 0 == black, 255 == white (i.e. an 8 bit greyscale bitmap).
-
-    /**
-     * @param code         二维码二位数据, 由二维码具体text生成
-     * @param multiple     二维码放大倍数
-     * @param marginLeft   左边距
-     * @param marginTop    上边距
-     * @param marginRight  右边距
-     * @param marginBottom 下边距
-     * @return
-     */
-    private static final BitMatrix createBitMatrix(
-            @NonNull QRCode code,
-            @IntRange(from = 3, to = 100) int multiple,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom) {
-
-        ByteMatrix input = code.getMatrix();
-        if (input == null) {
-            throw new IllegalStateException();
-        }
-        int inputWidth = input.getWidth();
-        int inputHeight = input.getHeight();
-//        int qrWidth = inputWidth + (quietZone * 2);
-//        int qrHeight = inputHeight + (quietZone * 2);
-//        int outputWidth = Math.max(width, qrWidth);
-//        int outputHeight = Math.max(height, qrHeight);
-
-        int outputWidth = inputWidth * multiple + marginLeft + marginRight;
-        int outputHeight = inputHeight * multiple + marginTop + marginBottom;
-
-        // Padding includes both the quiet zone and the extra white pixels to accommodate the requested
-        // dimensions. For example, if input is 25x25 the QR will be 33x33 including the quiet zone.
-        // If the requested size is 200x160, the multiple will be 4, for a QR of 132x132. These will
-        // handle all the padding from 100x100 (the actual QR) up to 200x160.
-
-//        int leftPadding = (outputWidth - (inputWidth * multiple)) / 2;
-//        int topPadding = (outputHeight - (inputHeight * multiple)) / 2;
-        int leftPadding = marginLeft;
-        int topPadding = marginTop;
-
-        BitMatrix output = new BitMatrix(outputWidth, outputHeight);
-        for (int inputY = 0, outputY = topPadding; inputY < inputHeight; inputY++, outputY += multiple) {
-            // Write the contents of this row of the barcode
-            for (int inputX = 0, outputX = leftPadding; inputX < inputWidth; inputX++, outputX += multiple) {
-                if (input.get(inputX, inputY) == 1) {
-                    output.setRegion(outputX, outputY, multiple, multiple);
-                }
-            }
-        }
-
-        return output;
+        return Encoder.encode(text, level, hints);
     }
 
     @Override
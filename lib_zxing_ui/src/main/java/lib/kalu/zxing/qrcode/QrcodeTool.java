@@ -20,24 +20,20 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RawRes;
 
-import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.source.LuminanceSourceImpl;
-import com.google.zxing.MultiFormatReader;
-import com.google.zxing.source.RGBLuminanceSource;
+import com.google.zxing.source.LuminanceSourceFactory;
 import com.google.zxing.Result;
-import com.google.zxing.common.GlobalHistogramBinarizer;
-import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.InputStream;
-import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import lib.kalu.zxing.listener.OnQrcodeListener;
 import lib.kalu.zxing.util.LogUtil;
 
 /**
@@ -49,6 +45,8 @@ public final class QrcodeTool {
 
     private static final int DEFAULT_REQ_WIDTH = 480;
     private static final int DEFAULT_REQ_HEIGHT = 640;
+    // 纠错级别，参与缓存 key
+    private static final ErrorCorrectionLevel LEVEL = ErrorCorrectionLevel.M;
 
     /**
      * @param filePath 二维码本地文件路径
@@ -60,6 +58,17 @@ public final class QrcodeTool {
         return DecodeTool.decodeQrcodeFromFile(filePath);
     }
 
+    /**
+     * @param filePath 二维码本地文件路径
+     * @param budget   内存预算（字节），大图分块、采样解码，峰值内存不超过此值
+     * @return
+     */
+    @Keep
+    public static final String decodeQrcodeFromFile(@NonNull String filePath, @IntRange(from = 1024 * 1024) int budget) {
+
+        return DecodeTool.decodeQrcodeFromFile(filePath, budget);
+    }
+
     /**
      * @param context 上下文
      * @param uri     二维码本地文件uri
@@ -70,6 +79,17 @@ public final class QrcodeTool {
         return DecodeTool.decodeQrcodeFromUri(context, uri);
     }
 
+    /**
+     * @param context 上下文
+     * @param uri     二维码本地文件uri
+     * @param budget  内存预算（字节），大图分块、采样解码，峰值内存不超过此值
+     * @return
+     */
+    @Keep
+    public static final String decodeQrcodeFromUrl(@NonNull Context context, @NonNull Uri uri, @IntRange(from = 1024 * 1024) int budget) {
+        return DecodeTool.decodeQrcodeFromUri(context, uri, budget);
+    }
+
     /****************************** createQrcodeFromBase64 *************************************/
 
     @Keep
@@ -124,22 +144,16 @@ public final class QrcodeTool {
             @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
             @Nullable String base64) {
 
-        InputStream inputStream = null;
-        if (null != base64 && base64.length() > 0) {
-            inputStream = base64ToInputStream(base64);
-        }
-
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
+        if (null == base64 || base64.length() == 0)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        if (null != inputStream) {
-            try {
-                inputStream.close();
-                inputStream = null;
-            } catch (Exception e) {
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "base64:" + base64, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                InputStream inputStream = base64ToInputStream(base64);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
             }
-        }
-
-        return qrcode;
+        });
     }
 
     /****************************** createQrcodeFromBase64 *************************************/
@@ -202,15 +216,13 @@ public final class QrcodeTool {
         if (null == context || null == assets || assets.length() == 0)
             return null;
 
-        InputStream inputStream = null;
-        try {
-            inputStream = context.getResources().getAssets().open(assets);
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromAssets => " + e.getMessage(), e);
-        }
-
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "assets:" + assets, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() throws Exception {
+                InputStream inputStream = context.getResources().getAssets().open(assets);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromAssets *************************************/
@@ -267,21 +279,19 @@ public final class QrcodeTool {
             @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
             @Nullable String filePath) {
 
-        Bitmap bitmap = null;
-
-        try {
-            bitmap = createBitmapLogoFromFile(context, filePath, 14, Color.WHITE);
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromFile => " + e.getMessage(), e);
-        }
-
-        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, bitmap);
-        if (null != bitmap) {
-            bitmap.recycle();
-            bitmap = null;
+        // 文件被替换后修改时间、大小会变，不会命中旧图
+        String logo = null;
+        if (null != filePath) {
+            File file = new File(filePath);
+            logo = "file:" + file.getAbsolutePath() + ":" + file.lastModified() + ":" + file.length();
         }
 
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return createBitmapLogoFromFile(context, filePath, 14, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromFile *************************************/
@@ -345,30 +355,20 @@ public final class QrcodeTool {
         if (Looper.getMainLooper() == Looper.myLooper())
             throw new RuntimeException("createQrcodeFromUrl 当前方法必须在分线程执行");
 
-        InputStream inputStream = null;
-
-        // 网络图片
-        try {
-            inputStream = Executors.newFixedThreadPool(1).submit(new Callable<InputStream>() {
-                @Override
-                public InputStream call() {
-
-                    try {
-                        InputStream openStream = new URL(url).openStream();
-                        return openStream;
-                    } catch (Exception e) {
-                        Log.e("QrcodeTool", "createQrcodeFromUrl => " + e.getMessage(), e);
-                        return null;
-                    }
-                }
-            }).get();
+        if (null == url || url.length() == 0)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "createQrcodeFromUrl => " + e.getMessage(), e);
-        }
+        // logo 走 LogoCache：新鲜期内不联网，过期后条件请求；标识带内容摘要，logo 变化后不会命中旧二维码
+        LogoFetcher.Entry entry = LogoCache.getCache(context).fetch(url);
+        if (null == entry)
+            return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null, null);
 
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "url:" + url + "#" + entry.getDigest(), new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return createBitmapLogo(context, new ByteArrayInputStream(entry.getData()), 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromUrl *************************************/
@@ -430,53 +430,17 @@ public final class QrcodeTool {
         if (null == context)
             return null;
 
-        InputStream inputStream = context.getResources().openRawResource(raw);
-        String qrcode = createQrcodeFromInputStream(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, inputStream);
-        return qrcode;
+        return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, "raw:" + raw, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                InputStream inputStream = context.getResources().openRawResource(raw);
+                return createBitmapLogo(context, inputStream, 20, Color.WHITE);
+            }
+        });
     }
 
     /****************************** createQrcodeFromRaw *************************************/
 
-    /****************************** createQrcodeFromInputStream *************************************/
-
-    /**
-     * @param context      上下文context
-     * @param text         二维码信息
-     * @param multiple     二维码放大倍数(from = 3, to = 100)
-     * @param marginLeft   二维码白边左边距
-     * @param marginTop    二维码白边上边距
-     * @param marginRight  二维码白边右边距
-     * @param marginBottom 二维码白边下边距
-     * @param inputStream  二维码中间logo
-     * @return
-     */
-    @Keep
-    private static String createQrcodeFromInputStream(
-            @NonNull Context context,
-            @NonNull String text,
-            @IntRange(from = 3, to = 100) int multiple,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
-            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
-            @Nullable InputStream inputStream) {
-
-        if (null == context)
-            return null;
-
-        Bitmap logoBitmap = createBitmapLogo(context, inputStream, 20, Color.WHITE);
-        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logoBitmap);
-
-        if (null != logoBitmap) {
-            logoBitmap.recycle();
-            logoBitmap = null;
-        }
-
-        return qrcode;
-    }
-
-    /****************************** createQrcodeFromInputStream *************************************/
-
     /****************************** createQrcode *************************************/
 
     public static String createQrcode(
@@ -538,78 +502,323 @@ public final class QrcodeTool {
         if (null == context || null == text || text.length() == 0)
             return null;
 
-        Bitmap bitmapQrcode = EncodeTool.createBitmapQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo);
+        // 只给了 Bitmap，按像素摘要识别 logo
+        String qrcode = createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, null == logo ? null : QrcodeCache.digest(logo), null == logo ? null : new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return logo;
+            }
+        });
+
+        if (null != logo && !logo.isRecycled()) {
+            logo.recycle();
+        }
 
-        int hashcode = text.hashCode();
-        String saveBitmapLocal = saveBitmapLocal(context, bitmapQrcode, hashcode);
+        return qrcode;
+    }
 
+    /**
+     * 先按 key 查缓存，未命中才加载 logo、编码
+     *
+     * @param logoId 缓存 key 里的 logo 标识，没有 logo 传 null
+     * @param logo   加载 logo，返回的 Bitmap 用完回收
+     * @return
+     */
+    private static String createQrcode(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String logoId,
+            @Nullable Callable<Bitmap> logo) {
+
+        if (null == context || null == text || text.length() == 0)
+            return null;
+
+        QrcodeCache cache = QrcodeCache.getCache(context);
+        String key = QrcodeCache.key(text, multiple, marginLeft, marginTop, marginRight, marginBottom, LEVEL.name(), logoId);
+        String path = cache.get(key);
+        if (null != path)
+            return path;
+
+        Bitmap logoBitmap = null;
         if (null != logo) {
-            logo.recycle();
-            logo = null;
+            try {
+                logoBitmap = logo.call();
+            } catch (Exception e) {
+                Log.e("QrcodeTool", "createQrcode => " + e.getMessage(), e);
+            }
+        }
+
+        // logo 加载失败生成的是无 logo 二维码，按无 logo 缓存，下次仍会重新加载 logo
+        if (null != logoId && null == logoBitmap) {
+            key = QrcodeCache.key(text, multiple, marginLeft, marginTop, marginRight, marginBottom, LEVEL.name(), null);
+            path = cache.get(key);
+            if (null != path)
+                return path;
         }
 
-        return saveBitmapLocal;
+        Bitmap bitmapQrcode = EncodeTool.createBitmapQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, LEVEL, logoBitmap);
+
+        if (null != logoBitmap) {
+            logoBitmap.recycle();
+            logoBitmap = null;
+        }
+
+        if (null == bitmapQrcode)
+            return null;
+
+        return cache.put(key, bitmapQrcode);
     }
 
-    /****************************** createQrcode *************************************/
+    /****************************** createQrcodeAsync *************************************/
+
+    @Keep
+    public static Future<String> createQrcodeFromBase64Async(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String base64,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromBase64Async(context, text, 3, 0, 0, 0, 0, base64, listener);
+    }
 
     /**
-     * 保存bitmap至本地
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromBase64}
      *
-     * @param context  上下文
-     * @param bitmap   bitmap
-     * @param hashcode 文件名hashcode
-     * @return
+     * @param base64 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromBase64Async(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String base64,
+            @Nullable OnQrcodeListener listener) {
+
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromBase64(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, base64);
+            }
+        }, listener);
+    }
+
+    @Keep
+    public static Future<String> createQrcodeFromAssetsAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String assets,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromAssetsAsync(context, text, 4, 0, 0, 0, 0, assets, listener);
+    }
+
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromAssets}
+     *
+     * @param assets 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
      */
     @Keep
-    private static String saveBitmapLocal(@NonNull Context context, @NonNull Bitmap bitmap, @NonNull int hashcode) {
+    public static Future<String> createQrcodeFromAssetsAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String assets,
+            @Nullable OnQrcodeListener listener) {
 
-        if (null == context || null == bitmap)
-            return null;
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromAssets(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, assets);
+            }
+        }, listener);
+    }
 
-        try {
+    @Keep
+    public static Future<String> createQrcodeFromFileAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String filePath,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromFileAsync(context, text, 3, 0, 0, 0, 0, filePath, listener);
+    }
+
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromFile}
+     *
+     * @param filePath 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromFileAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String filePath,
+            @Nullable OnQrcodeListener listener) {
 
-            String root = context.getFilesDir().getAbsolutePath() + File.separatorChar + "qrcode";
-            File dir = new File(root);
-            if (!dir.exists()) {
-                dir.mkdirs();
-            } else if (dir.isFile()) {
-                dir.delete();
-                dir.mkdirs();
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromFile(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, filePath);
             }
+        }, listener);
+    }
+
+    @Keep
+    public static Future<String> createQrcodeFromUrlAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable String url,
+            @Nullable OnQrcodeListener listener) {
 
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append("temp_qrcode_");
-            stringBuilder.append(hashcode);
-            stringBuilder.append(".png");
+        return createQrcodeFromUrlAsync(context, text, 3, 0, 0, 0, 0, url, listener);
+    }
 
-            String child = stringBuilder.toString();
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromUrl}
+     *
+     * @param url 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromUrlAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable String url,
+            @Nullable OnQrcodeListener listener) {
 
-            File file = new File(dir, child);
-            if (file.exists()) {
-                file.delete();
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromUrl(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, url);
             }
-            file.createNewFile();
-            Log.e("QrcodeTool", "saveBitmapLocal =>  path = " + file.getAbsolutePath());
+        }, listener);
+    }
 
-            FileOutputStream fos = new FileOutputStream(file);
-            bitmap.compress(Bitmap.CompressFormat.PNG, 100, fos);
+    @Keep
+    public static Future<String> createQrcodeFromRawAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @RawRes int raw,
+            @Nullable OnQrcodeListener listener) {
+
+        return createQrcodeFromRawAsync(context, text, 3, 0, 0, 0, 0, raw, listener);
+    }
 
-            fos.flush();
-            fos.close();
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcodeFromRaw}
+     *
+     * @param raw 二维码中间logo
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeFromRawAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @RawRes int raw,
+            @Nullable OnQrcodeListener listener) {
 
-            if (null != bitmap) {
-                bitmap.recycle();
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcodeFromRaw(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, raw);
             }
+        }, listener);
+    }
 
-            return root + File.separator + child;
+    @Keep
+    public static Future<String> createQrcodeAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @Nullable Bitmap logo,
+            @Nullable OnQrcodeListener listener) {
 
-        } catch (Exception e) {
-            Log.e("QrcodeTool", "saveBitmapLocal => " + e.getMessage(), e);
-            return null;
-        }
+        return createQrcodeAsync(context, text, 3, 0, 0, 0, 0, logo, listener);
     }
 
+    /**
+     * 在库内 I/O 线程池生成，参数同 {@link #createQrcode}
+     *
+     * @param logo 二维码中间logo，生成后回收
+     * @param listener 主线程回调 png 路径，失败为 null
+     * @return 可 cancel，cancel 后不回调
+     */
+    @Keep
+    public static Future<String> createQrcodeAsync(
+            @NonNull Context context,
+            @NonNull String text,
+            @IntRange(from = 3, to = 100) int multiple,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginLeft,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginTop,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginRight,
+            @IntRange(from = 0, to = Integer.MAX_VALUE) int marginBottom,
+            @Nullable Bitmap logo,
+            @Nullable OnQrcodeListener listener) {
+
+        return QrcodeExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return createQrcode(context, text, multiple, marginLeft, marginTop, marginRight, marginBottom, logo);
+            }
+        }, listener);
+    }
+
+    /****************************** createQrcodeAsync *************************************/
+
+    /**
+     * @return 二维码缓存，命中、淘汰计数
+     */
+    @Keep
+    public static QrcodeCache getQrcodeCache(@NonNull Context context) {
+        return QrcodeCache.getCache(context);
+    }
+
+    /**
+     * @param path createQrcode* 返回的路径
+     * @return 二维码 Bitmap，内存缓存命中时不解码 png；调用方用完回收
+     */
+    @Keep
+    public static Bitmap getQrcodeBitmap(@NonNull Context context, @Nullable String path) {
+        return QrcodeCache.getCache(context).getBitmap(path);
+    }
+
+    /****************************** createQrcode *************************************/
+
     /**
      * createBitmapLogoFromFile
      *
@@ -867,44 +1076,15 @@ public final class QrcodeTool {
      * @return
      */
     public static Result parseCodeResult(String bitmapPath, int reqWidth, int reqHeight, Map<DecodeHintType, Object> hints) {
-        Result result = null;
-        MultiFormatReader reader = new MultiFormatReader();
         try {
-            reader.setHints(hints);
-            RGBLuminanceSource source = getRGBLuminanceSource(compressBitmap(bitmapPath, reqWidth, reqHeight));
-            if (source != null) {
-                result = decodeInternal(reader, source);
-                if (result == null) {
-                    result = decodeInternal(reader, source.invert());
-                }
-                if (result == null && source.isRotateSupported()) {
-                    result = decodeInternal(reader, source.rotateCounterClockwise());
-                }
-            }
+            LuminanceSourceImpl source = getLuminanceSource(compressBitmap(bitmapPath, reqWidth, reqHeight));
+            if (source == null)
+                return null;
 
+            // 二值化 × 反色 × 缩放按历史成功率排序、并行尝试，见 DecodeCascade.setDefault
+            return DecodeCascade.getDefault().decode(source, hints);
         } catch (Exception e) {
             LogUtil.log(e.getMessage());
-        } finally {
-            reader.reset();
-        }
-
-        return result;
-    }
-
-    private static Result decodeInternal(@NonNull MultiFormatReader reader, @NonNull LuminanceSourceImpl source) {
-        try {
-
-            // 优先采用GlobalHistogramBinarizer解析
-            Result result = reader.decode(new BinaryBitmap(new GlobalHistogramBinarizer(source)));
-
-            if (null == result) {
-                // 采用HybridBinarizer解析
-                return reader.decode(new BinaryBitmap(new HybridBinarizer(source)));
-            } else {
-                return result;
-            }
-
-        } catch (Exception e) {
             return null;
         }
     }
@@ -949,18 +1129,25 @@ public final class QrcodeTool {
 
 
     /**
-     * 获取RGBLuminanceSource
+     * 逐行读取像素转灰度，不生成 width * height 的 int[]
      *
      * @param bitmap
      * @return
      */
-    private static RGBLuminanceSource getRGBLuminanceSource(@NonNull Bitmap bitmap) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
+    private static LuminanceSourceImpl getLuminanceSource(@Nullable Bitmap bitmap) {
 
-        int[] pixels = new int[width * height];
-        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-        return new RGBLuminanceSource(width, height, pixels);
+        if (null == bitmap)
+            return null;
 
+        final Bitmap source = bitmap;
+        final int width = bitmap.getWidth();
+        LuminanceSourceImpl luminanceSource = new LuminanceSourceFactory().fromArgb(width, bitmap.getHeight(), new LuminanceSourceFactory.ArgbRows() {
+            @Override
+            public void readRow(int y, int[] row) {
+                source.getPixels(row, 0, width, 0, y, width, 1);
+            }
+        });
+        bitmap.recycle();
+        return luminanceSource;
     }
 }